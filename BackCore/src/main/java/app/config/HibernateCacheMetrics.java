@@ -0,0 +1,67 @@
+package app.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+// Aciertos/fallos y tasa de aciertos de la caché de segundo nivel por región (requiere hibernate.generate_statistics)
+@Component
+public class HibernateCacheMetrics implements MeterBinder {
+
+    // Regiones declaradas en las entidades (@Cache) y en ehcache.xml
+    static final List<String> REGIONS = List.of("tools", "tariffs");
+
+    private final Statistics statistics;
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : REGIONS) {
+            register(registry, region,
+                    s -> regionCount(s, region, CacheRegionStatistics::getHitCount),
+                    s -> regionCount(s, region, CacheRegionStatistics::getMissCount),
+                    s -> regionCount(s, region, CacheRegionStatistics::getPutCount));
+        }
+    }
+
+    private void register(MeterRegistry registry, String region, ToDoubleFunction<Statistics> hits,
+                          ToDoubleFunction<Statistics> misses, ToDoubleFunction<Statistics> puts) {
+        FunctionCounter.builder("hibernate.cache.gets", statistics, hits)
+                .tag("region", region).tag("result", "hit").register(registry);
+        FunctionCounter.builder("hibernate.cache.gets", statistics, misses)
+                .tag("region", region).tag("result", "miss").register(registry);
+        FunctionCounter.builder("hibernate.cache.puts", statistics, puts)
+                .tag("region", region).register(registry);
+        Gauge.builder("hibernate.cache.hit.ratio", statistics, s -> hitRatio(hits.applyAsDouble(s), misses.applyAsDouble(s)))
+                .tag("region", region).register(registry);
+    }
+
+    // Si la caché está desactivada (o la región no existe) la región no tiene estadísticas: se informa 0
+    private static double regionCount(Statistics statistics, String region, ToLongFunction<CacheRegionStatistics> count) {
+        try {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            return regionStatistics == null ? 0 : count.applyAsLong(regionStatistics);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    // Tasa de aciertos acumulada desde el arranque (0 si aún no hubo lecturas)
+    static double hitRatio(double hits, double misses) {
+        double total = hits + misses;
+        return total == 0 ? 0.0 : hits / total;
+    }
+}
@@ -0,0 +1,63 @@
+package app.config;
+
+import app.security.CachingJwkSetSource;
+import app.security.CachingJwtDecoder;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+
+// Decodificador de JWT del resource server (reemplaza al que arma Spring Boot desde jwk-set-uri):
+// claves del emisor en caché con refresco de fondo (CachingJwkSetSource) y tokens validados en caché (CachingJwtDecoder).
+// Mismas reglas que el de Spring Boot: firma RS256, exp/nbf con 60 s de tolerancia e 'iss' igual a issuer-uri.
+@Configuration
+public class JwtDecoderConfig {
+
+    // Límite de tamaño del documento JWKS descargado
+    private static final int JWKS_SIZE_LIMIT = 50 * 1024;
+
+    @Bean(destroyMethod = "close")
+    public CachingJwkSetSource jwkSetSource(
+            MeterRegistry meterRegistry,
+            @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+            @Value("${security.jwt.jwks.ttl:10m}") Duration ttl,
+            @Value("${security.jwt.jwks.refresh-ahead:1m}") Duration refreshAhead,
+            @Value("${security.jwt.jwks.stale-if-error:1h}") Duration staleIfError,
+            @Value("${security.jwt.jwks.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${security.jwt.jwks.read-timeout:2s}") Duration readTimeout) throws MalformedURLException {
+        DefaultResourceRetriever retriever = new DefaultResourceRetriever(
+                (int) connectTimeout.toMillis(), (int) readTimeout.toMillis(), JWKS_SIZE_LIMIT);
+        return new CachingJwkSetSource(URI.create(jwkSetUri).toURL(), retriever, meterRegistry,
+                ttl, refreshAhead, staleIfError, Clock.systemUTC());
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder(
+            CachingJwkSetSource jwkSetSource,
+            MeterRegistry meterRegistry,
+            @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+            @Value("${security.jwt.token-cache.max-size:10000}") int tokenCacheMaxSize) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSetSource));
+        // Las claims las valida Spring (JwtValidators), no Nimbus
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return new CachingJwtDecoder(decoder, meterRegistry, tokenCacheMaxSize, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,44 @@
+package app.config;
+
+import app.utils.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Consultas a la BD por petición (métrica db.queries.per.request), etiquetada por método y patrón de URI
+// igual que http.server.requests, para encontrar endpoints con N+1 o consultas de más
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+    static final String METRIC = "db.queries.per.request";
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryCountInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        try {
+            // Patrón (/loans/{id}/return), no la URI concreta: una serie por endpoint, no por id
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC)
+                    .description("SQL statements prepared by Hibernate while handling the request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                    .register(meterRegistry)
+                    .record(QueryCounter.current());
+        } finally {
+            QueryCounter.clear();
+        }
+    }
+}
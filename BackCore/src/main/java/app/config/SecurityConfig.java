@@ -1,6 +1,8 @@
 package app.config;
 
 import app.security.KeycloakRealmRoleConverter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -30,6 +32,15 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() 
+
+                // Fin de respuestas asíncronas (SSE, exportaciones en streaming): la petición original ya se autorizó
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
+                // Actuator vive solo en el puerto de gestión (management.server.port, no publicado): EndpointRequest no
+                // coincide en el puerto público, donde /actuator no existe. Salud y Prometheus sin token (el scraper no
+                // tiene); el resto de Actuator solo ADMIN
+                .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
                 
                 // Permite a USER y ADMIN leer las herramientas con "GET"
                 .requestMatchers(HttpMethod.GET, "/loans/**").hasAnyRole("ADMIN", "USER") 
@@ -0,0 +1,161 @@
+package app.security;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.ResourceRetriever;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Claves públicas del emisor (JWKS de Keycloak) en memoria. La validación de un token nunca espera a la red salvo
+// en la primera carga o si las claves llevan vencidas más que 'staleIfError':
+//   - un hilo de fondo las vuelve a descargar cada (ttl - refreshAhead), antes de que venzan
+//   - vencidas (el emisor no respondió), se siguen usando hasta ttl + staleIfError mientras se reintenta en segundo plano
+//   - un 'kid' desconocido (rotación de claves) fuerza una descarga, como mucho una cada UNKNOWN_KEY_REFRESH_INTERVAL
+public class CachingJwkSetSource implements JWKSource<SecurityContext>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingJwkSetSource.class);
+    private static final long UNKNOWN_KEY_REFRESH_INTERVAL = Duration.ofSeconds(30).toMillis();
+
+    private record Snapshot(JWKSet keys, long fetchedAt) {}
+
+    private final URL jwkSetUrl;
+    private final ResourceRetriever retriever;
+    private final long ttlMillis;
+    private final long refreshAfterMillis;
+    private final long staleIfErrorMillis;
+    private final Clock clock;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final ReentrantLock fetchLock = new ReentrantLock(); // Una sola descarga a la vez
+    private final AtomicBoolean backgroundRefreshPending = new AtomicBoolean();
+    private final ScheduledExecutorService refresher;
+    private final Counter fetchSuccess;
+    private final Counter fetchFailure;
+
+    public CachingJwkSetSource(URL jwkSetUrl, ResourceRetriever retriever, MeterRegistry meterRegistry,
+                               Duration ttl, Duration refreshAhead, Duration staleIfError, Clock clock) {
+        if (ttl.isNegative() || ttl.isZero() || refreshAhead.isNegative() || refreshAhead.compareTo(ttl) >= 0 || staleIfError.isNegative()) {
+            throw new IllegalArgumentException("JWKS cache requires ttl > refresh-ahead >= 0 and stale-if-error >= 0.");
+        }
+        this.jwkSetUrl = jwkSetUrl;
+        this.retriever = retriever;
+        this.ttlMillis = ttl.toMillis();
+        this.refreshAfterMillis = ttl.minus(refreshAhead).toMillis();
+        this.staleIfErrorMillis = staleIfError.toMillis();
+        this.clock = clock;
+        this.fetchSuccess = meterRegistry.counter("jwks.fetch", "result", "success");
+        this.fetchFailure = meterRegistry.counter("jwks.fetch", "result", "failure");
+
+        // Refresco proactivo: primera descarga al arrancar y luego antes de cada vencimiento
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshAfterMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    @Override
+    public List<JWK> get(JWKSelector selector, SecurityContext context) throws KeySourceException {
+        Snapshot snapshot = usableSnapshot();
+        List<JWK> matches = selector.select(snapshot.keys());
+        if (matches.isEmpty() && clock.millis() - snapshot.fetchedAt() >= UNKNOWN_KEY_REFRESH_INTERVAL) {
+            // Ninguna clave coincide: el emisor pudo haber rotado sus claves
+            try {
+                matches = selector.select(refresh(snapshot).keys());
+            } catch (KeySourceException e) {
+                log.warn("JWK set refresh for unknown key failed: {}", e.getMessage());
+            }
+        }
+        return matches;
+    }
+
+    private Snapshot usableSnapshot() throws KeySourceException {
+        Snapshot snapshot = current.get();
+        if (snapshot == null) {
+            return refresh(null); // Primera carga (el refresco de fondo aún no terminó)
+        }
+        long age = clock.millis() - snapshot.fetchedAt();
+        if (age < ttlMillis) {
+            return snapshot;
+        }
+        if (age < ttlMillis + staleIfErrorMillis) {
+            // Vencidas pero tolerables: no se bloquea la petición, se reintenta fuera de ella
+            refreshInBackground();
+            return snapshot;
+        }
+        return refresh(snapshot);
+    }
+
+    // Descarga el JWKS; si otro hilo lo renovó mientras se esperaba el candado, se usa ese resultado
+    private Snapshot refresh(Snapshot seen) throws KeySourceException {
+        fetchLock.lock();
+        try {
+            Snapshot latest = current.get();
+            if (latest != null && latest != seen) {
+                return latest;
+            }
+            JWKSet keys = JWKSet.parse(retriever.retrieveResource(jwkSetUrl).getContent());
+            Snapshot fresh = new Snapshot(keys, clock.millis());
+            current.set(fresh);
+            fetchSuccess.increment();
+            return fresh;
+        } catch (IOException | ParseException e) {
+            fetchFailure.increment();
+            throw new KeySourceException("Couldn't retrieve JWK set from " + jwkSetUrl + ": " + e.getMessage(), e);
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private void refreshInBackground() {
+        if (backgroundRefreshPending.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    refreshQuietly();
+                } finally {
+                    backgroundRefreshPending.set(false);
+                }
+            });
+        }
+    }
+
+    private void refreshQuietly() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null && clock.millis() - snapshot.fetchedAt() < refreshAfterMillis) {
+            return; // Una petición ya las descargó hace poco (p. ej. la primera carga)
+        }
+        try {
+            refresh(snapshot);
+        } catch (KeySourceException e) {
+            log.warn("JWK set refresh failed, keeping cached keys: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            // Un error inesperado no debe cancelar las siguientes ejecuciones programadas
+            log.error("Unexpected error refreshing JWK set", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package app.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tokens ya validados (firma + claims) por hash SHA-256, hasta su 'exp': el mismo token en las siguientes peticiones
+// del cliente no vuelve a verificar la firma. Solo se guardan tokens válidos; los rechazados se validan cada vez.
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private record Entry(Jwt jwt, long expiresAt) {}
+
+    private final JwtDecoder delegate;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingJwtDecoder(JwtDecoder delegate, MeterRegistry meterRegistry, int maxSize, Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("JWT cache max size must be greater than zero.");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.hits = Counter.builder("cache.gets").tag("cache", "jwt").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "jwt").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("cache.size", entries, Map::size).tag("cache", "jwt").register(meterRegistry);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = hash(token);
+        long now = clock.millis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            hits.increment();
+            return entry.jwt();
+        }
+        misses.increment();
+        Jwt jwt = delegate.decode(token);
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt != null && expiresAt.toEpochMilli() > now) {
+            put(key, jwt, expiresAt.toEpochMilli(), now);
+        }
+        return jwt;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void put(String key, Jwt jwt, long expiresAt, long now) {
+        if (!entries.containsKey(key) && entries.size() >= maxSize) {
+            // 1. Liberar espacio quitando los tokens vencidos
+            entries.values().removeIf(e -> e.expiresAt() <= now);
+            // 2. Si sigue llena, quitar el que vence antes
+            if (entries.size() >= maxSize) {
+                entries.entrySet().stream()
+                        .min(Comparator.comparingLong(e -> e.getValue().expiresAt()))
+                        .ifPresent(oldest -> entries.remove(oldest.getKey()));
+            }
+        }
+        entries.put(key, new Entry(jwt, expiresAt));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM", e);
+        }
+    }
+}
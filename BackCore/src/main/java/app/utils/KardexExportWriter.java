@@ -0,0 +1,95 @@
+package app.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dtos.KardexExportRequest;
+import dtos.KardexMovement;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Escribe movimientos de Kardex fila a fila (CSV o NDJSON) sobre un OutputStream, sin acumularlos en memoria
+public class KardexExportWriter {
+
+    private static final String CSV_HEADER = "id,movement_date,type,quantity,tool_id,tool_name,user_id,username";
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final Writer writer;
+    private final KardexExportRequest.Format format;
+    private long rows;
+
+    public KardexExportWriter(OutputStream out, KardexExportRequest.Format format) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.format = format;
+        if (format == KardexExportRequest.Format.CSV) {
+            writeLine(CSV_HEADER);
+        }
+    }
+
+    public void write(KardexMovement movement) {
+        writeLine(format == KardexExportRequest.Format.CSV ? toCsv(movement) : toJson(movement));
+        rows++;
+    }
+
+    public long finish() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    // --- Formatos ---
+    private static String toCsv(KardexMovement m) {
+        return String.join(",",
+                value(m.id()),
+                value(m.movementDate()),
+                value(m.type()),
+                value(m.quantity()),
+                value(m.tool().id()),
+                csv(m.tool().name()),
+                value(m.user().id()),
+                csv(m.user().username()));
+    }
+
+    private static String toJson(KardexMovement m) {
+        try {
+            return JSON.writeValueAsString(m);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String value(Object o) {
+        return o == null ? "" : o.toString();
+    }
+
+    // Escapado RFC 4180: comillas dobles si el texto contiene separador, comillas o saltos de línea
+    private static String csv(String s) {
+        if (s == null) {
+            return "";
+        }
+        if (s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r")) {
+            return "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+        return s;
+    }
+
+    private void writeLine(String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
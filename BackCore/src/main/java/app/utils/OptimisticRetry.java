@@ -0,0 +1,83 @@
+package app.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Reintenta una operación transaccional completa cuando falla por bloqueo optimista (@Version), o por clave duplicada
+// al crear a la vez la primera fila de un modelo de lectura (client_loan_summary, tool_loan_daily).
+// Debe envolver la llamada al servicio desde fuera de la transacción: cada intento abre una transacción nueva
+// y vuelve a leer las entidades. Entre intentos espera un tiempo aleatorio (full jitter) con tope exponencial.
+@Component
+public class OptimisticRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticRetry(MeterRegistry meterRegistry,
+                           @Value("${concurrency.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${concurrency.retry.initial-backoff:20ms}") Duration initialBackoff,
+                           @Value("${concurrency.retry.max-backoff:200ms}") Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Retry max attempts must be at least 1.");
+        }
+        if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("Retry backoff must be non-negative and max-backoff >= initial-backoff.");
+        }
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    public <T> T execute(String operation, Supplier<T> action) {
+        // Dentro de una transacción ya abierta no se puede reintentar (quedó marcada para rollback): un solo intento
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException | DuplicateKeyException e) {
+                meterRegistry.counter("optimistic.lock.conflicts", "operation", operation).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("optimistic.lock.exhausted", "operation", operation).increment();
+                    log.warn("Optimistic lock conflict on {} after {} attempt(s), giving up", operation, attempt);
+                    throw e;
+                }
+                meterRegistry.counter("optimistic.lock.retries", "operation", operation).increment();
+                log.debug("Optimistic lock conflict on {} (attempt {}), retrying", operation, attempt);
+                backoff(operation, attempt);
+            }
+        }
+    }
+
+    // Espera aleatoria en [0, min(max, inicial * 2^(intento-1))] para que los que chocaron no reintenten a la vez
+    private void backoff(String operation, int attempt) {
+        long cap = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (cap <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry " + operation, e);
+        }
+    }
+}
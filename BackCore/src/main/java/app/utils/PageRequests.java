@@ -0,0 +1,37 @@
+package app.utils;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+// Construcción de Pageable para los listados: orden estable por id y tamaño acotado
+public final class PageRequests {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private PageRequests() {
+    }
+
+    // Página numerada ordenada por id ascendente
+    public static Pageable byId(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), clampSize(size), Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    // Primer bloque de un recorrido por keyset (el orden lo fija la consulta: id > after ORDER BY id)
+    public static Pageable firstSlice(int size) {
+        return PageRequest.of(0, clampSize(size));
+    }
+
+    // Punto de partida del keyset (los ids siempre son positivos)
+    public static long after(Long afterId) {
+        return afterId == null ? 0L : afterId;
+    }
+
+    public static int clampSize(int size) {
+        if (size < 1) {
+            return 1;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
@@ -0,0 +1,30 @@
+package app.utils;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Cuenta las sentencias SQL que prepara Hibernate en el hilo actual (JPQL, criteria y nativas).
+// QueryCountInterceptor lo reinicia al empezar cada petición y publica el total al terminar.
+// Un lote JDBC (batch_size) se prepara una vez: cuenta como una sentencia, igual que en el viaje a la BD.
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql; // No modifica la sentencia
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int current() {
+        return COUNT.get()[0];
+    }
+
+    // Al terminar la petición: con hilos de plataforma el hilo vuelve al pool de Tomcat
+    public static void clear() {
+        COUNT.remove();
+    }
+}
@@ -10,10 +10,12 @@ import services.UserService; // NECESARIO para buscar el ID de usuario
 public class SecurityUtils {
 
     private final UserService userService;
+    private final UserLookupCache userCache;
 
     // Spring usa este constructor para inyectar UserService
-    public SecurityUtils(UserService userService) {
+    public SecurityUtils(UserService userService, UserLookupCache userCache) {
         this.userService = userService;
+        this.userCache = userCache;
     }
 
 
@@ -36,8 +38,9 @@ public class SecurityUtils {
              throw new IllegalStateException("La claim 'preferred_username' no se encontró en el JWT.");
         }
 
-        // Busca el UserEntity por username para obtener el ID de la base de datos (CRÍTICO para Kardex)
-        return userService.findByUsername(username)
+        // Busca el UserEntity por username para obtener el ID de la base de datos (CRÍTICO para Kardex);
+        // la caché evita la consulta en cada petición de escritura
+        return userCache.get(username, userService::findByUsername)
                 .orElseThrow(() -> new RuntimeException("User '" + username + "' not found in database."));
     }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package app.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Versión de cambios por tabla, mantenida por los servicios que escriben en ella (ToolService, TariffService,
+// ClientService, OverdueLoanService). Es la base de los ETag de las lecturas: si el If-None-Match del cliente coincide
+// con la versión actual se responde 304 sin consultar la BD ni serializar nada.
+// Las versiones viven en memoria (se reinician con el servidor, por eso el ETag incluye el arranque).
+// Limitación: solo valen con UNA instancia de la aplicación (el despliegue de compose.yml). Con varias, un cambio
+// hecho en otra instancia no sube la versión local y esta seguiría respondiendo 304 con datos viejos; en ese caso se
+// desactivan los ETag con http.etags.enabled=false y las lecturas devuelven siempre el cuerpo completo
+@Component
+public class TableVersions {
+
+    public enum Table {
+        TOOLS("tools"), TARIFFS("tariffs"), CLIENTS("clients");
+
+        private final String key;
+
+        Table(String key) {
+            this.key = key;
+        }
+    }
+
+    // Las respuestas se guardan en el navegador pero se revalidan siempre (nunca se sirven sin preguntar)
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Table, AtomicLong> versions = new EnumMap<>(Table.class);
+    private final Map<Table, Counter> notModified = new EnumMap<>(Table.class);
+    private final Map<Table, Counter> full = new EnumMap<>(Table.class);
+
+    private final boolean etagsEnabled;
+
+    public TableVersions(MeterRegistry meterRegistry) {
+        this(meterRegistry, true);
+    }
+
+    @Autowired
+    public TableVersions(MeterRegistry meterRegistry, @Value("${http.etags.enabled:true}") boolean etagsEnabled) {
+        this.etagsEnabled = etagsEnabled;
+        for (Table table : Table.values()) {
+            versions.put(table, new AtomicLong());
+            notModified.put(table, meterRegistry.counter("http.conditional.gets", "table", table.key, "result", "not_modified"));
+            full.put(table, meterRegistry.counter("http.conditional.gets", "table", table.key, "result", "full"));
+        }
+    }
+
+    // --- ESCRITURA ---
+
+    // La tabla cambia cuando la transacción confirma (un rollback no invalida nada). Si la versión subiera antes del
+    // commit, una lectura concurrente podría guardar datos viejos bajo la versión nueva
+    public void touch(Table table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.get(table).incrementAndGet();
+            return;
+        }
+        pendingTouches().tables.add(table);
+    }
+
+    private PendingTouches pendingTouches() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingTouches pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingTouches pending = new PendingTouches();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    // Una sola sincronización por transacción, aunque la tabla se toque muchas veces (p. ej. préstamo en lote)
+    private final class PendingTouches implements TransactionSynchronization {
+        private final Set<Table> tables = EnumSet.noneOf(Table.class);
+
+        private TableVersions owner() {
+            return TableVersions.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            tables.forEach(table -> versions.get(table).incrementAndGet());
+        }
+    }
+
+    // --- LECTURA ---
+
+    public long version(Table table) {
+        return versions.get(table).get();
+    }
+
+    public String etag(Table table) {
+        return "\"" + table.key + "-" + epoch + "-" + version(table) + "\"";
+    }
+
+    // GET condicional: 304 si el cliente ya tiene la versión actual; si no, el cuerpo con su ETag.
+    // El ETag se toma ANTES de leer los datos: un cambio que confirme durante la lectura deja un ETag viejo
+    // (el cliente volverá a descargar), nunca datos viejos con un ETag nuevo
+    public <T> ResponseEntity<T> conditionalGet(WebRequest request, Table table, Supplier<T> body) {
+        if (!etagsEnabled) {
+            full.get(table).increment();
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(body.get());
+        }
+        String etag = etag(table);
+        if (request.checkNotModified(etag)) {
+            notModified.get(table).increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        full.get(table).increment();
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body.get());
+    }
+}
@@ -0,0 +1,93 @@
+package app.utils;
+
+import entities.UserEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Caché acotada con expiración (TTL) de usuarios por username, usada por SecurityUtils en cada petición de escritura
+@Component
+public class UserLookupCache {
+
+    private record Entry(UserEntity user, long expiresAt) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public UserLookupCache(MeterRegistry meterRegistry,
+                           @Value("${security.user-cache.ttl:5m}") Duration ttl,
+                           @Value("${security.user-cache.max-size:1000}") int maxSize) {
+        this(meterRegistry, ttl, maxSize, Clock.systemUTC());
+    }
+
+    public UserLookupCache(MeterRegistry meterRegistry, Duration ttl, int maxSize, Clock clock) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero() || maxSize <= 0) {
+            throw new IllegalArgumentException("User cache TTL and max size must be greater than zero.");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.hits = Counter.builder("cache.gets").tag("cache", "users").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "users").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("cache.size", entries, Map::size).tag("cache", "users").register(meterRegistry);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Devuelve el usuario en caché o lo carga con 'loader'; los usuarios inexistentes no se guardan
+    public Optional<UserEntity> get(String username, Function<String, Optional<UserEntity>> loader) {
+        long now = clock.millis();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAt() > now) {
+            hits.increment();
+            return Optional.of(entry.user());
+        }
+        misses.increment();
+        Optional<UserEntity> loaded = loader.apply(username);
+        loaded.ifPresent(user -> put(username, user, now));
+        return loaded;
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void put(String username, UserEntity user, long now) {
+        if (!entries.containsKey(username) && entries.size() >= maxSize) {
+            // 1. Liberar espacio quitando las entradas vencidas
+            entries.values().removeIf(e -> e.expiresAt() <= now);
+            // 2. Si sigue llena, quitar la que vence antes
+            if (entries.size() >= maxSize) {
+                entries.entrySet().stream()
+                        .min(Comparator.comparingLong(e -> e.getValue().expiresAt()))
+                        .ifPresent(oldest -> entries.remove(oldest.getKey()));
+            }
+        }
+        entries.put(username, new Entry(user, now + ttlMillis));
+    }
+}
@@ -1,14 +1,20 @@
 package controllers;
 
+import dtos.PageResponse;
+import dtos.ScrollResponse;
 import dtos.UpdateClientRequest;
 import entities.ClientEntity;
+import entities.ClientLoanSummaryEntity;
 import entities.enums.ClientStatus;
 import jakarta.validation.Valid; 
+import services.ClientLoanSummaryService;
 import services.ClientService;
+import app.utils.TableVersions;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -20,14 +26,32 @@ import java.util.Map;
 public class ClientController {
 
     private final ClientService clientService;
+    private final ClientLoanSummaryService clientLoanSummaryService;
+    private final TableVersions tableVersions;
 
-    public ClientController(ClientService clientService) { 
+    public ClientController(ClientService clientService, ClientLoanSummaryService clientLoanSummaryService,
+                            TableVersions tableVersions) {
         this.clientService = clientService;
+        this.clientLoanSummaryService = clientLoanSummaryService;
+        this.tableVersions = tableVersions;
     }
 
+    // GET condicional: con If-None-Match de la versión actual de clientes responde 304 sin consultar la BD
     @GetMapping
-    public List<ClientEntity> getAllClients() {
-        return clientService.getAllClients();
+    public ResponseEntity<List<ClientEntity>> getAllClients(WebRequest request) {
+        return tableVersions.conditionalGet(request, TableVersions.Table.CLIENTS, clientService::getAllClients);
+    }
+
+    @GetMapping("/page")
+    public PageResponse<ClientEntity> getClientsPage(@RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        return clientService.getClientsPage(page, size);
+    }
+
+    @GetMapping("/scroll")
+    public ScrollResponse<ClientEntity> getClientsAfter(@RequestParam(required = false) Long after,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        return clientService.getClientsAfter(after, size);
     }
 
     @GetMapping("/{id}")
@@ -65,4 +89,24 @@ public class ClientController {
         // Devuelve el estado final del cliente: puede seguir RESTRICTED si falló, o ACTIVE si tuvo éxito
         return ResponseEntity.ok(potentiallyUpdatedClient);
     }
-}
\ No newline at end of file
+
+    // --- Contadores de préstamos y deuda del cliente (client_loan_summary) ---
+    @GetMapping("/{id}/summary")
+    public ClientLoanSummaryEntity getLoanSummary(@PathVariable Long id) {
+        clientService.getClientById(id); // 404 si el cliente no existe
+        return clientLoanSummaryService.getSummary(id);
+    }
+
+    // Reconstruye los contadores de un cliente desde sus préstamos (corrección de desvíos)
+    @PostMapping("/{id}/summary/rebuild")
+    public ClientLoanSummaryEntity rebuildLoanSummary(@PathVariable Long id) {
+        clientService.getClientById(id);
+        return clientLoanSummaryService.rebuild(id);
+    }
+
+    // Reconstruye los contadores de todos los clientes; devuelve las filas generadas
+    @PostMapping("/summaries/rebuild")
+    public int rebuildAllLoanSummaries() {
+        return clientLoanSummaryService.rebuildAll();
+    }
+}
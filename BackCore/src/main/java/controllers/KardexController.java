@@ -1,12 +1,21 @@
 package controllers;
 
-import entities.KardexEntity;
+import dtos.KardexExportRequest;
+import dtos.KardexMovement;
+import dtos.PageResponse;
+import dtos.ScrollResponse;
+import entities.enums.MovementType;
 import services.KardexService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import app.exceptions.ResourceNotFoundException;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.zip.GZIPOutputStream;
 import java.util.List;
 
 @RestController
@@ -21,9 +30,9 @@ public class KardexController {
     }
 
     @GetMapping("/tool/{toolId}")
-    public ResponseEntity<List<KardexEntity>> getMovementsByToolId(@PathVariable Long toolId) {
+    public ResponseEntity<List<KardexMovement>> getMovementsByToolId(@PathVariable Long toolId) {
         try {
-            List<KardexEntity> movements = kardexService.getMovementsByToolId(toolId);
+            List<KardexMovement> movements = kardexService.listMovementsByToolId(toolId);
             return ResponseEntity.ok(movements);
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.notFound().build();
@@ -31,9 +40,56 @@ public class KardexController {
     }
 
     @GetMapping("/date")
-    public List<KardexEntity> getMovementsByDate(@RequestParam String start,@RequestParam String end) {
+    public List<KardexMovement> getMovementsByDate(@RequestParam String start,@RequestParam String end) {
         LocalDateTime startTime = LocalDateTime.parse(start);
         LocalDateTime endTime = LocalDateTime.parse(end);
-        return kardexService.getMovementsByDate(startTime, endTime);
+        return kardexService.listMovementsByDate(startTime, endTime);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/date/page")
+    public PageResponse<KardexMovement> getMovementsByDatePage(@RequestParam String start, @RequestParam String end,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(defaultValue = "20") int size) {
+        return kardexService.getMovementsByDatePage(LocalDateTime.parse(start), LocalDateTime.parse(end), page, size);
+    }
+
+    @GetMapping("/date/scroll")
+    public ScrollResponse<KardexMovement> getMovementsByDateAfter(@RequestParam String start, @RequestParam String end,
+                                                                @RequestParam(required = false) Long after,
+                                                                @RequestParam(defaultValue = "20") int size) {
+        return kardexService.getMovementsByDateAfter(LocalDateTime.parse(start), LocalDateTime.parse(end), after, size);
+    }
+
+    // Exportación completa en streaming (CSV o NDJSON, opcionalmente gzip) para auditorías de rangos grandes
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMovements(@RequestParam String start, @RequestParam String end,
+                                                                 @RequestParam(required = false) Long toolId,
+                                                                 @RequestParam(required = false) MovementType type,
+                                                                 @RequestParam(defaultValue = "csv") String format,
+                                                                 @RequestParam(defaultValue = "false") boolean gzip) {
+        // 1. Validar parámetros antes de enviar cabeceras
+        KardexExportRequest request;
+        try {
+            request = new KardexExportRequest(LocalDateTime.parse(start), LocalDateTime.parse(end),
+                    toolId, type, KardexExportRequest.parseFormat(format), gzip);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // 2. El cuerpo se escribe fila a fila directamente sobre la respuesta
+        StreamingResponseBody body = out -> {
+            if (request.gzip()) {
+                GZIPOutputStream zipped = new GZIPOutputStream(out);
+                kardexService.exportMovements(request, zipped);
+                zipped.finish();
+            } else {
+                kardexService.exportMovements(request, out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(request.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + request.fileName() + "\"")
+                .body(body);
+    }
+}
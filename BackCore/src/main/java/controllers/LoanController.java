@@ -1,7 +1,13 @@
 package controllers;
 
+import dtos.BatchLoanRequest;
+import dtos.BatchReturnRequest;
+import dtos.BatchReturnResult;
 import dtos.LoanRequest;
+import dtos.LoanSummary;
+import dtos.PageResponse;
 import dtos.ReturnLoanRequest;
+import dtos.ScrollResponse;
 import entities.LoanEntity;
 import entities.UserEntity;
 import jakarta.validation.Valid;
@@ -11,6 +17,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import services.LoanService;
+import app.utils.OptimisticRetry;
 import app.utils.SecurityUtils;
 
 import java.util.List;
@@ -22,20 +29,34 @@ public class LoanController {
 
     private final LoanService loanService;
     private final SecurityUtils securityUtils; 
+    private final OptimisticRetry optimisticRetry;
 
-    public LoanController(LoanService loanService, SecurityUtils securityUtils) { 
+    public LoanController(LoanService loanService, SecurityUtils securityUtils, OptimisticRetry optimisticRetry) { 
         this.loanService = loanService;
         this.securityUtils = securityUtils;
+        this.optimisticRetry = optimisticRetry;
     }
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public List<LoanEntity> getAllLoans() {
-        List<LoanEntity> active = loanService.getActiveLoans();
-        List<LoanEntity> late = loanService.getLateLoans();
-        active.addAll(late);
-        return active;
-        }
+    public List<LoanSummary> getAllLoans() {
+        // Activos + atrasados en una sola consulta con JOIN (sin cargar entidades)
+        return loanService.getOpenLoanSummaries();
+    }
+
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public PageResponse<LoanSummary> getOpenLoansPage(@RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        return loanService.getOpenLoansPage(page, size);
+    }
+
+    @GetMapping("/scroll")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ScrollResponse<LoanSummary> getOpenLoansAfter(@RequestParam(required = false) Long after,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        return loanService.getOpenLoansAfter(after, size);
+    }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
@@ -55,27 +76,45 @@ public class LoanController {
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
     public LoanEntity createLoanJson(@RequestBody @Valid LoanRequest req, Authentication authentication) {
         UserEntity currentUser = securityUtils.getUserFromAuthentication(authentication);
-        return loanService.createLoan(req.clientId(), req.toolId(), req.startDate(), req.dueDate(), currentUser);
+        return optimisticRetry.execute("loan.create", () ->
+                loanService.createLoan(req.clientId(), req.toolId(), req.startDate(), req.dueDate(), currentUser));
+    }
+
+    // Préstamo de varias herramientas a un cliente: todo o nada (si una falla, no se crea ninguno)
+    @PostMapping(path = "/batch", consumes = "application/json", produces = "application/json")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public List<LoanEntity> createLoansBatch(@RequestBody @Valid BatchLoanRequest req, Authentication authentication) {
+        UserEntity currentUser = securityUtils.getUserFromAuthentication(authentication);
+        return optimisticRetry.execute("loan.create-batch", () ->
+                loanService.createLoans(req.clientId(), req.toolIds(), req.startDate(), req.dueDate(), currentUser));
     }
 
     @PutMapping(path = "/{id}/return", consumes = "application/json", produces = "application/json")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
     public LoanEntity returnLoanJson(@PathVariable Long id, @RequestBody @Valid ReturnLoanRequest req, Authentication authentication) {
         UserEntity currentUser = securityUtils.getUserFromAuthentication(authentication);
-        return loanService.returnLoan(
+        return optimisticRetry.execute("loan.return", () -> loanService.returnLoan(
             id,
             req.toolId(),
             req.damaged(),
             req.irreparable(),
             currentUser,
             req.returnDate()
-            );
+            ));
         }
 
+    // Devolución de varias herramientas en una sola llamada; la respuesta trae el resultado de cada ítem
+    @PostMapping(path = "/returns:batch", consumes = "application/json", produces = "application/json")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public BatchReturnResult returnLoansBatch(@RequestBody @Valid BatchReturnRequest req, Authentication authentication) {
+        UserEntity currentUser = securityUtils.getUserFromAuthentication(authentication);
+        return optimisticRetry.execute("loan.return-batch", () -> loanService.returnLoans(req, currentUser));
+    }
+
     @PatchMapping("/{loanId}/pay")
     @PreAuthorize("hasAnyRole('ADMIN')")
     public ResponseEntity<LoanEntity> markLoanAsPaid(@PathVariable Long loanId) {
-        LoanEntity updatedLoan = loanService.markLoanAsPaid(loanId);
+        LoanEntity updatedLoan = optimisticRetry.execute("loan.pay", () -> loanService.markLoanAsPaid(loanId));
         // Devuelve el préstamo actualizado (con estado CLOSED y penalty 0)
         return ResponseEntity.ok(updatedLoan);
     }
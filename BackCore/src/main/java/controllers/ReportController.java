@@ -1,8 +1,11 @@
 package controllers;
 
+import dtos.ToolRanking;
 import entities.ClientEntity;
 import entities.LoanEntity;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import services.ToolLoanRollupService;
 import org.springframework.web.bind.annotation.*;
 import services.ReportService;
 
@@ -15,9 +18,11 @@ import java.util.List;
 public class ReportController {
 
     private final ReportService reportService;
+    private final ToolLoanRollupService toolLoanRollupService;
 
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService, ToolLoanRollupService toolLoanRollupService) {
         this.reportService = reportService;
+        this.toolLoanRollupService = toolLoanRollupService;
     }
 
     // --- RF6.1: Modificado para aceptar fechas opcionales ---
@@ -42,10 +47,20 @@ public class ReportController {
 
     // --- RF6.3: Herramientas más Prestadas ---
     @GetMapping("/tools/top")
-    public List<Object[]> getTopTools(
+    public List<ToolRanking> getTopTools(
             // Mantener required = true o quitarlo si @RequestParam es obligatorio por defecto
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit) {
+        return reportService.getTopTools(from, to, limit);
+    }
+
+    // --- RF6.3: Recalcular el agregado diario del ranking para un rango (carga inicial o corrección) ---
+    @PostMapping("/tools/top/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public int backfillTopTools(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
-        return reportService.getTopTools(from, to);
+        return toolLoanRollupService.backfill(from, to);
     }
 }
\ No newline at end of file
@@ -2,8 +2,11 @@ package controllers;
 
 import entities.TariffEntity;
 import services.TariffService;
+import app.utils.TableVersions;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/tariffs")
@@ -12,15 +15,17 @@ import org.springframework.web.bind.annotation.*;
 public class TariffController {
 
     private final TariffService tariffService;
+    private final TableVersions tableVersions;
 
-    public TariffController(TariffService tariffService) {
+    public TariffController(TariffService tariffService, TableVersions tableVersions) {
         this.tariffService = tariffService;
+        this.tableVersions = tableVersions;
     }
 
-    // Consultar tarifas actuales (Admin puede verlas)
+    // Consultar tarifas actuales (Admin puede verlas); 304 si el If-None-Match coincide con la versión vigente
     @GetMapping
-    public TariffEntity getTariff() {
-        return tariffService.getTariff();
+    public ResponseEntity<TariffEntity> getTariff(WebRequest request) {
+        return tableVersions.conditionalGet(request, TableVersions.Table.TARIFFS, tariffService::getTariff);
     }
 
     // Modificar tarifas (Admin puede modificarlas)
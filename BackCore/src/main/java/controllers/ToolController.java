@@ -1,16 +1,25 @@
 package controllers;
 
+import dtos.PageResponse;
+import dtos.ScrollResponse;
 import dtos.StockAdjustmentRequest;
 import dtos.UpdateToolRequest;
 import entities.ToolEntity;
 import entities.UserEntity;
 import entities.enums.MovementType;
 import jakarta.validation.Valid;
+import services.ToolAvailabilityFeed;
 import services.ToolService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import app.utils.OptimisticRetry;
 import app.utils.SecurityUtils;
+import app.utils.TableVersions;
 
 import java.util.List;
 
@@ -21,15 +30,41 @@ public class ToolController {
 
     private final ToolService toolService;
     private final SecurityUtils securityUtils;
+    private final OptimisticRetry optimisticRetry;
+    private final ToolAvailabilityFeed availabilityFeed;
+    private final TableVersions tableVersions;
 
-    public ToolController(ToolService toolService, SecurityUtils securityUtils) {
+    public ToolController(ToolService toolService, SecurityUtils securityUtils, OptimisticRetry optimisticRetry,
+                          ToolAvailabilityFeed availabilityFeed, TableVersions tableVersions) {
         this.toolService = toolService;
         this.securityUtils = securityUtils;
+        this.optimisticRetry = optimisticRetry;
+        this.availabilityFeed = availabilityFeed;
+        this.tableVersions = tableVersions;
     }
 
+    // GET condicional: con If-None-Match de la versión actual del catálogo responde 304 sin consultar la BD
     @GetMapping
-    public List<ToolEntity> getAllTools() {
-        return toolService.getAllTools();
+    public ResponseEntity<List<ToolEntity>> getAllTools(WebRequest request) {
+        return tableVersions.conditionalGet(request, TableVersions.Table.TOOLS, toolService::getAllTools);
+    }
+
+    @GetMapping("/page")
+    public PageResponse<ToolEntity> getToolsPage(@RequestParam(defaultValue = "0") int page,
+                                                 @RequestParam(defaultValue = "20") int size) {
+        return toolService.getToolsPage(page, size);
+    }
+
+    @GetMapping("/scroll")
+    public ScrollResponse<ToolEntity> getToolsAfter(@RequestParam(required = false) Long after,
+                                                    @RequestParam(defaultValue = "20") int size) {
+        return toolService.getToolsAfter(after, size);
+    }
+
+    // Cambios de stock/estado en vivo (SSE). Al reconectar, el cliente envía Last-Event-ID y recibe lo que se perdió
+    @GetMapping(value = "/availability", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return availabilityFeed.subscribe(lastEventId);
     }
 
     @GetMapping("/{id}")
@@ -48,7 +83,7 @@ public class ToolController {
     @PreAuthorize("hasRole('ADMIN')")
     public ToolEntity updateTool(@PathVariable Long id, @Valid @RequestBody UpdateToolRequest updateRequest, Authentication authentication) {
         UserEntity currentUser = securityUtils.getUserFromAuthentication(authentication);
-        return toolService.updateTool(id, updateRequest, currentUser);
+        return optimisticRetry.execute("tool.update", () -> toolService.updateTool(id, updateRequest, currentUser));
     }
 
     @PatchMapping("/{id}/stock")
@@ -66,13 +101,15 @@ public class ToolController {
             // El servicio ya valida quantityChange != 0, pero por si acaso
             throw new IllegalArgumentException("Quantity change cannot be zero.");
         }
-        return toolService.adjustStock(id, request.quantityChange(), type, currentUser);
+        MovementType movementType = type;
+        return optimisticRetry.execute("tool.adjust-stock", () ->
+                toolService.adjustStock(id, request.quantityChange(), movementType, currentUser));
     }
 
     @PutMapping("/{id}/decommission")
     @PreAuthorize("hasRole('ADMIN')")
     public ToolEntity decommissionTool(@PathVariable Long id, Authentication authentication) {
         UserEntity currentUser = securityUtils.getUserFromAuthentication(authentication);
-        return toolService.decommissionTool(id, currentUser);
+        return optimisticRetry.execute("tool.decommission", () -> toolService.decommissionTool(id, currentUser));
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package dtos;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.List;
+
+// Préstamo de varias herramientas a un mismo cliente en una sola llamada (POST /loans/batch)
+public record BatchLoanRequest(
+    @NotNull Long clientId,
+    @NotEmpty @Size(max = 5) List<@NotNull Long> toolIds,   // Nunca más que el límite de 5 préstamos abiertos
+    @NotNull @JsonFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+    @NotNull @FutureOrPresent @JsonFormat(pattern = "yyyy-MM-dd") LocalDate dueDate
+) {}
@@ -0,0 +1,22 @@
+package dtos;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.List;
+
+// Devolución de varias herramientas en una sola llamada (POST /loans/returns:batch)
+public record BatchReturnRequest(
+    @NotEmpty @Size(max = 100) List<@Valid @NotNull Item> items,
+    @JsonFormat(pattern = "yyyy-MM-dd") LocalDate returnDate   // Fecha común; si falta se usa hoy
+) {
+    public record Item(
+        @NotNull Long loanId,
+        @NotNull Long toolId,
+        @NotNull Boolean damaged,
+        @NotNull Boolean irreparable
+    ) {}
+}
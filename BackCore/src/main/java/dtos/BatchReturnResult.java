@@ -0,0 +1,33 @@
+package dtos;
+
+import entities.enums.LoanStatus;
+import java.util.List;
+
+// Resultado de una devolución en lote: un elemento por ítem solicitado, en el mismo orden
+public record BatchReturnResult(
+    int returned,
+    int rejected,
+    List<Item> items
+) {
+    public static BatchReturnResult of(List<Item> items) {
+        int returned = (int) items.stream().filter(Item::returned).count();
+        return new BatchReturnResult(returned, items.size() - returned, items);
+    }
+
+    public record Item(
+        Long loanId,
+        Long toolId,
+        boolean returned,
+        LoanStatus status,      // RECEIVED si se devolvió; null si se rechazó
+        Double totalPenalty,    // Monto a pagar calculado; null si se rechazó
+        String error            // Motivo del rechazo; null si se devolvió
+    ) {
+        public static Item ok(Long loanId, Long toolId, double totalPenalty) {
+            return new Item(loanId, toolId, true, LoanStatus.RECEIVED, totalPenalty, null);
+        }
+
+        public static Item rejected(Long loanId, Long toolId, String error) {
+            return new Item(loanId, toolId, false, null, null, error);
+        }
+    }
+}
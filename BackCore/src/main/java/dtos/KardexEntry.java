@@ -0,0 +1,13 @@
+package dtos;
+
+import entities.ToolEntity;
+import entities.UserEntity;
+import entities.enums.MovementType;
+
+// Movimiento a registrar en lote (KardexService.registerMovements); la herramienta debe estar ya persistida
+public record KardexEntry(
+    ToolEntity tool,
+    MovementType type,
+    int quantity,
+    UserEntity user
+) {}
@@ -0,0 +1,49 @@
+package dtos;
+
+import entities.enums.MovementType;
+
+import java.time.LocalDateTime;
+
+// Parámetros de la exportación de Kardex (toolId y type son filtros opcionales)
+public record KardexExportRequest(
+    LocalDateTime start,
+    LocalDateTime end,
+    Long toolId,
+    MovementType type,
+    Format format,
+    boolean gzip
+) {
+    public enum Format { CSV, NDJSON }
+
+    public KardexExportRequest {
+        // Se valida antes de empezar a escribir: una vez enviadas las cabeceras ya no se puede responder 400
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Start and end dates cannot be null.");
+        }
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End date cannot be before start date.");
+        }
+        if (format == null) {
+            format = Format.CSV;
+        }
+    }
+
+    public static Format parseFormat(String value) {
+        if (value == null || value.isBlank()) {
+            return Format.CSV;
+        }
+        try {
+            return Format.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + value);
+        }
+    }
+
+    public String contentType() {
+        return format == Format.CSV ? "text/csv" : "application/x-ndjson";
+    }
+
+    public String fileName() {
+        return "kardex." + (format == Format.CSV ? "csv" : "ndjson") + (gzip ? ".gz" : "");
+    }
+}
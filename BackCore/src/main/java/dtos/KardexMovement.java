@@ -0,0 +1,25 @@
+package dtos;
+
+import entities.enums.MovementType;
+
+import java.time.LocalDateTime;
+
+// Vista de lectura de un movimiento de Kardex (solo los campos que muestra la UI, sin datos sensibles del usuario)
+public record KardexMovement(
+    Long id,
+    LocalDateTime movementDate,
+    MovementType type,
+    Integer quantity,
+    ToolRef tool,
+    UserRef user
+) {
+    public record ToolRef(Long id, String name) {}
+
+    public record UserRef(Long id, String username) {}
+
+    // Constructor plano usado por las consultas JPQL (SELECT new dtos.KardexMovement(...))
+    public KardexMovement(Long id, LocalDateTime movementDate, MovementType type, Integer quantity,
+                          Long toolId, String toolName, Long userId, String username) {
+        this(id, movementDate, type, quantity, new ToolRef(toolId, toolName), new UserRef(userId, username));
+    }
+}
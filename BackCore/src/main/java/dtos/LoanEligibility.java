@@ -0,0 +1,21 @@
+package dtos;
+
+// Proyección agregada con los contadores necesarios para validar un nuevo préstamo (una sola consulta)
+public record LoanEligibility(
+    Long lateLoans,      // Préstamos LATE del cliente
+    Long unpaidLoans,    // Préstamos RECEIVED con totalPenalty > 0
+    Long openLoans,      // Préstamos ACTIVE + LATE (para el límite de 5)
+    Long sameToolLoans   // Préstamos ACTIVE/LATE de la misma herramienta
+) {
+    public LoanEligibility {
+        // SUM sobre cero filas devuelve null en algunos motores
+        lateLoans = lateLoans == null ? 0L : lateLoans;
+        unpaidLoans = unpaidLoans == null ? 0L : unpaidLoans;
+        openLoans = openLoans == null ? 0L : openLoans;
+        sameToolLoans = sameToolLoans == null ? 0L : sameToolLoans;
+    }
+
+    public boolean holdsTool() {
+        return sameToolLoans > 0;
+    }
+}
@@ -0,0 +1,28 @@
+package dtos;
+
+import entities.enums.LoanStatus;
+
+import java.time.LocalDate;
+
+// Vista de lectura de un préstamo para los listados (una sola consulta con JOIN, sin entidades)
+public record LoanSummary(
+    Long id,
+    ClientRef client,
+    ToolRef tool,
+    LocalDate startDate,
+    LocalDate dueDate,
+    LocalDate returnDate,
+    LoanStatus status,
+    double totalPenalty
+) {
+    public record ClientRef(Long id, String name, String rut) {}
+
+    public record ToolRef(Long id, String name) {}
+
+    // Constructor plano usado por las consultas JPQL (SELECT new dtos.LoanSummary(...))
+    public LoanSummary(Long id, Long clientId, String clientName, String clientRut, Long toolId, String toolName,
+                       LocalDate startDate, LocalDate dueDate, LocalDate returnDate, LoanStatus status, double totalPenalty) {
+        this(id, new ClientRef(clientId, clientName, clientRut), new ToolRef(toolId, toolName),
+                startDate, dueDate, returnDate, status, totalPenalty);
+    }
+}
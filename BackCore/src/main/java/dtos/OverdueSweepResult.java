@@ -0,0 +1,8 @@
+package dtos;
+
+// Resultado de una ejecución del barrido de préstamos atrasados
+public record OverdueSweepResult(
+    int loansMarkedLate,
+    int clientsRestricted,
+    int chunks
+) {}
@@ -0,0 +1,18 @@
+package dtos;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+// Página numerada (page/size) con el total de elementos
+public record PageResponse<T>(
+    List<T> content,
+    int page,
+    int size,
+    long totalElements,
+    int totalPages
+) {
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+}
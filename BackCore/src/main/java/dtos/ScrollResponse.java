@@ -0,0 +1,19 @@
+package dtos;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Bloque por keyset: el cliente pide el siguiente con after=nextAfter (sin COUNT ni OFFSET)
+public record ScrollResponse<T>(
+    List<T> content,
+    Long nextAfter,
+    boolean hasNext
+) {
+    public static <T> ScrollResponse<T> of(Slice<T> slice, Function<T, Long> idOf) {
+        List<T> content = slice.getContent();
+        Long lastId = content.isEmpty() ? null : idOf.apply(content.get(content.size() - 1));
+        return new ScrollResponse<>(content, lastId, slice.hasNext());
+    }
+}
@@ -0,0 +1,15 @@
+package dtos;
+
+import entities.TariffEntity;
+
+// Copia inmutable de las tarifas vigentes: los tres valores siempre pertenecen a la misma versión
+public record TariffSnapshot(
+    long version,
+    double dailyRentFee,
+    double dailyLateFee,
+    double repairFee
+) {
+    public static TariffSnapshot from(TariffEntity tariff, long version) {
+        return new TariffSnapshot(version, tariff.getDailyRentFee(), tariff.getDailyLateFee(), tariff.getRepairFee());
+    }
+}
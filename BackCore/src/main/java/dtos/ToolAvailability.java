@@ -0,0 +1,17 @@
+package dtos;
+
+import entities.ToolEntity;
+import entities.enums.ToolStatus;
+
+// Delta de disponibilidad de una herramienta para el feed SSE (/tools/availability): solo lo que cambia en préstamos,
+// devoluciones y ajustes, sin nombre/categoría/valor
+public record ToolAvailability(
+    Long toolId,
+    Integer stock,
+    Integer inRepair,
+    ToolStatus status
+) {
+    public static ToolAvailability of(ToolEntity tool) {
+        return new ToolAvailability(tool.getId(), tool.getStock(), tool.getInRepair(), tool.getStatus());
+    }
+}
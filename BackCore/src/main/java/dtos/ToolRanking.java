@@ -0,0 +1,9 @@
+package dtos;
+
+// Fila del ranking de herramientas más prestadas (RF6.3)
+public record ToolRanking(
+    Long toolId,
+    String name,
+    String category,
+    Long totalLoans
+) {}
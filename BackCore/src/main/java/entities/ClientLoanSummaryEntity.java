@@ -0,0 +1,41 @@
+package entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Modelo de lectura por cliente: contadores de préstamos y deuda, mantenidos en la misma transacción que cada cambio
+// de préstamo (crear, devolver, pagar, pasar a atrasado). Se puede reconstruir desde la tabla de préstamos.
+@Entity
+@Table(name = "client_loan_summary")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientLoanSummaryEntity {
+
+    @Id
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @Column(name = "open_loans", nullable = false)
+    private int openLoans;          // ACTIVE + LATE
+
+    @Column(name = "late_loans", nullable = false)
+    private int lateLoans;          // LATE
+
+    @Column(name = "unpaid_loans", nullable = false)
+    private int unpaidLoans;        // RECEIVED con totalPenalty > 0
+
+    @Column(name = "outstanding_balance", nullable = false)
+    private double outstandingBalance;  // Suma de totalPenalty de los préstamos RECEIVED
+
+    @Column(name = "last_activity")
+    private LocalDateTime lastActivity;
+
+    public static ClientLoanSummaryEntity empty(Long clientId) {
+        return ClientLoanSummaryEntity.builder().clientId(clientId).build();
+    }
+}
@@ -17,7 +17,9 @@ import entities.enums.MovementType;
 public class KardexEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia con asignación por bloques (pooled): permite a Hibernate agrupar los INSERT en lotes JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "kardex_seq")
+    @SequenceGenerator(name = "kardex_seq", sequenceName = "kardex_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
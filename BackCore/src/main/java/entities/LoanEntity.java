@@ -17,7 +17,9 @@ import entities.enums.LoanStatus;
 public class LoanEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia con asignación por bloques (pooled): permite a Hibernate agrupar los INSERT en lotes JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loans_seq")
+    @SequenceGenerator(name = "loans_seq", sequenceName = "loans_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -37,4 +39,8 @@ public class LoanEntity {
 
     @Column(name = "total_penalty")
     private double totalPenalty;
+
+    // Bloqueo optimista: un UPDATE con una versión antigua falla en vez de pisar cambios concurrentes
+    @Version
+    private Long version;
 }
@@ -2,8 +2,13 @@ package entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+// Caché de segundo nivel: una fila que casi nunca cambia
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tariffs")
 @Table(name = "tariffs")
 @Getter
 @Setter
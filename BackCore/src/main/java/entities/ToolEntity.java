@@ -6,8 +6,13 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+// Caché de segundo nivel: leída en casi cada préstamo/devolución, cambia mucho menos que los préstamos
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tools")
 @Table(name = "tools")
 @Getter
 @Setter
@@ -42,4 +47,8 @@ public class ToolEntity {
     @Min(value = 1000, message = "Replacement value cannot be negative")
     @Column(name = "replacement_value")
     private Integer replacementValue;
-}
\ No newline at end of file
+
+    // Bloqueo optimista: un UPDATE con una versión antigua falla en vez de pisar cambios concurrentes
+    @Version
+    private Long version;
+}
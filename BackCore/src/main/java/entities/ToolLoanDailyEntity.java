@@ -0,0 +1,32 @@
+package entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Agregado diario de préstamos por herramienta (se mantiene al crear préstamos; base del ranking de herramientas)
+@Entity
+@Table(name = "tool_loan_daily",
+       uniqueConstraints = @UniqueConstraint(name = "ux_tool_loan_daily_tool_day", columnNames = {"tool_id", "loan_day"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ToolLoanDailyEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tool_id", nullable = false)
+    private ToolEntity tool;
+
+    @Column(name = "loan_day", nullable = false)
+    private LocalDate loanDay;      // Fecha de inicio de los préstamos contados
+
+    @Column(name = "loan_count", nullable = false)
+    private long loanCount;
+}
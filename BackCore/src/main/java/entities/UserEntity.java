@@ -4,6 +4,8 @@ import entities.enums.UserRole;
 import jakarta.persistence.*;
 import lombok.*;
 
+// Sin caché de segundo nivel: el usuario de cada petición de escritura se resuelve con UserLookupCache (SecurityUtils),
+// que UserService invalida en cada escritura. Una segunda caché de la misma fila podría quedar desactualizada
 @Entity
 @Table(name = "users")
 @Getter
@@ -0,0 +1,81 @@
+package repositories;
+
+import entities.ClientLoanSummaryEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ClientLoanSummaryRepository extends JpaRepository<ClientLoanSummaryEntity, Long> {
+
+    // Recalcula los contadores desde la tabla de préstamos (misma fórmula que la carga inicial de la migración V5)
+    String REBUILD_SELECT =
+            "SELECT c.id, " +
+            "COALESCE(SUM(CASE WHEN l.status IN ('ACTIVE', 'LATE') THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN l.status = 'LATE' THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN l.status = 'RECEIVED' AND l.total_penalty > 0 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN l.status = 'RECEIVED' THEN l.total_penalty ELSE 0 END), 0), " +
+            "CAST(MAX(COALESCE(l.return_date, l.start_date)) AS TIMESTAMP) " +
+            "FROM clients c LEFT JOIN loans l ON l.client_id = c.id ";
+
+    String INSERT_COLUMNS =
+            "INSERT INTO client_loan_summary (client_id, open_loans, late_loans, unpaid_loans, outstanding_balance, last_activity) ";
+
+    // Suma atómica de deltas sobre la fila del cliente; devuelve 0 si aún no tiene fila (ver insertSummary).
+    // JPQL portable (PostgreSQL y H2); la entidad no está en la caché de segundo nivel, así que no vacía ninguna región.
+    // CAST explícito del saldo: sin él Hibernate 6.4 genera "cast(? as float($p))", que H2 rechaza
+    @Modifying
+    @Query("UPDATE ClientLoanSummaryEntity s SET s.openLoans = s.openLoans + :open, s.lateLoans = s.lateLoans + :late, " +
+           "s.unpaidLoans = s.unpaidLoans + :unpaid, s.outstandingBalance = s.outstandingBalance + CAST(:balance AS Double), " +
+           "s.lastActivity = :at WHERE s.clientId = :clientId")
+    int applyDelta(@Param("clientId") Long clientId, @Param("open") int open, @Param("late") int late,
+                   @Param("unpaid") int unpaid, @Param("balance") double balance, @Param("at") LocalDateTime at);
+
+    // Primera fila del cliente con el delta como valor inicial; no inserta nada si otra transacción ya la creó.
+    // SQL estándar (INSERT ... SELECT ... WHERE NOT EXISTS) en lugar de ON CONFLICT, que H2 no soporta
+    // NATIVE_SPACES: el SQL nativo solo toca client_loan_summary, así Hibernate no vacía toda la caché de segundo nivel
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "client_loan_summary"))
+    @Query(value = INSERT_COLUMNS + "SELECT c.id, :open, :late, :unpaid, :balance, CAST(:at AS TIMESTAMP) FROM clients c " +
+                   "WHERE c.id = :clientId AND NOT EXISTS (SELECT 1 FROM client_loan_summary s WHERE s.client_id = c.id)",
+           nativeQuery = true)
+    int insertSummary(@Param("clientId") Long clientId, @Param("open") int open, @Param("late") int late,
+                      @Param("unpaid") int unpaid, @Param("balance") double balance, @Param("at") LocalDateTime at);
+
+    // Barrido de atrasados: suma por cliente los préstamos del bloque que van a pasar de ACTIVE a LATE
+    // (debe ejecutarse antes de LoanRepository.markOverdueAsLate, mientras siguen en ACTIVE)
+    @Modifying
+    @Query("UPDATE ClientLoanSummaryEntity s SET s.lateLoans = s.lateLoans + CAST((" +
+           "SELECT COUNT(l) FROM LoanEntity l WHERE l.client.id = s.clientId AND l.status = entities.enums.LoanStatus.ACTIVE " +
+           "AND l.dueDate < :today AND l.id BETWEEN :fromId AND :toId) AS Integer) " +
+           "WHERE s.clientId IN (SELECT l.client.id FROM LoanEntity l WHERE l.status = entities.enums.LoanStatus.ACTIVE " +
+           "AND l.dueDate < :today AND l.id BETWEEN :fromId AND :toId)")
+    int addOverdueLoans(@Param("today") LocalDate today, @Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // --- Reconstrucción (corrección de desvíos) ---
+    @Modifying
+    @Query("DELETE FROM ClientLoanSummaryEntity s")
+    int deleteAllSummaries();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "client_loan_summary"))
+    @Query(value = INSERT_COLUMNS + REBUILD_SELECT + "GROUP BY c.id", nativeQuery = true)
+    int rebuildAll();
+
+    @Modifying
+    @Query("DELETE FROM ClientLoanSummaryEntity s WHERE s.clientId = :clientId")
+    int deleteSummary(@Param("clientId") Long clientId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "client_loan_summary"))
+    @Query(value = INSERT_COLUMNS + REBUILD_SELECT + "WHERE c.id = :clientId GROUP BY c.id", nativeQuery = true)
+    int rebuildClient(@Param("clientId") Long clientId);
+}
@@ -2,13 +2,37 @@ package repositories;
 
 import entities.ClientEntity;
 import entities.enums.ClientStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ClientRepository extends JpaRepository<ClientEntity, Long> {
     List<ClientEntity> findByStatus(ClientStatus status);
     boolean existsByRut(String rut);
+
+    // Keyset: siguiente bloque de clientes después del id indicado
+    Slice<ClientEntity> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Barrido de atrasos: restringe a los clientes con préstamos ACTIVE vencidos dentro del rango de ids
+    // (debe ejecutarse antes de pasar esos préstamos a LATE)
+    @Modifying
+    @Query("UPDATE ClientEntity c SET c.status = entities.enums.ClientStatus.RESTRICTED " +
+           "WHERE c.status = entities.enums.ClientStatus.ACTIVE AND c.id IN (" +
+           "SELECT l.client.id FROM LoanEntity l WHERE l.status = entities.enums.LoanStatus.ACTIVE " +
+           "AND l.dueDate < :today AND l.id BETWEEN :fromId AND :toId)")
+    int restrictClientsWithOverdueLoans(@Param("today") LocalDate today, @Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Devolución en lote: cambia el estado de todos los clientes afectados en un solo UPDATE
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ClientEntity c SET c.status = :status WHERE c.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") ClientStatus status);
 }
@@ -1,17 +1,70 @@
 package repositories;
 
+import dtos.KardexMovement;
 import entities.KardexEntity;
+import entities.enums.MovementType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface KardexRepository extends JpaRepository<KardexEntity, Long> {
 
-    List<KardexEntity> findByTool_Id(Long toolId);
+    // Filtro por la clave foránea (k.tool.id): el derivado findByTool_Id hace JOIN a tools y filtra por su clave
+    // primaria, y el plan ya no usa idx_kardex_tool_movement_date
+    @Query("SELECT k FROM KardexEntity k WHERE k.tool.id = :toolId")
+    List<KardexEntity> findByTool_Id(@Param("toolId") Long toolId);
     List<KardexEntity> findByMovementDateBetween(LocalDateTime start, LocalDateTime end);
-    List<KardexEntity> findByTool_IdAndType(Long toolId, entities.enums.MovementType type);
-    List<KardexEntity> findByMovementDateBetweenAndType(LocalDateTime start, LocalDateTime end, entities.enums.MovementType type);
+    @Query("SELECT k FROM KardexEntity k WHERE k.tool.id = :toolId AND k.type = :type")
+    List<KardexEntity> findByTool_IdAndType(@Param("toolId") Long toolId, @Param("type") MovementType type);
+    List<KardexEntity> findByMovementDateBetweenAndType(LocalDateTime start, LocalDateTime end, MovementType type);
+
+    // Listados como proyección (un solo SELECT con JOIN a herramienta y usuario)
+    @Query("SELECT new dtos.KardexMovement(k.id, k.movementDate, k.type, k.quantity, t.id, t.name, u.id, u.username) " +
+           "FROM KardexEntity k JOIN k.tool t JOIN k.user u " +
+           "WHERE k.tool.id = :toolId ORDER BY k.id")
+    List<KardexMovement> findMovementsByToolId(@Param("toolId") Long toolId);
+
+    @Query("SELECT new dtos.KardexMovement(k.id, k.movementDate, k.type, k.quantity, t.id, t.name, u.id, u.username) " +
+           "FROM KardexEntity k JOIN k.tool t JOIN k.user u " +
+           "WHERE k.movementDate BETWEEN :start AND :end ORDER BY k.id")
+    List<KardexMovement> findMovementsByDateBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query(value = "SELECT new dtos.KardexMovement(k.id, k.movementDate, k.type, k.quantity, t.id, t.name, u.id, u.username) " +
+           "FROM KardexEntity k JOIN k.tool t JOIN k.user u " +
+           "WHERE k.movementDate BETWEEN :start AND :end",
+           countQuery = "SELECT COUNT(k) FROM KardexEntity k WHERE k.movementDate BETWEEN :start AND :end")
+    Page<KardexMovement> findMovementPageByDateBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end, Pageable pageable);
+
+    @Query("SELECT new dtos.KardexMovement(k.id, k.movementDate, k.type, k.quantity, t.id, t.name, u.id, u.username) " +
+           "FROM KardexEntity k JOIN k.tool t JOIN k.user u " +
+           "WHERE k.movementDate BETWEEN :start AND :end AND k.id > :afterId ORDER BY k.id")
+    Slice<KardexMovement> findMovementsByDateBetweenAfter(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                                          @Param("afterId") Long afterId, Pageable pageable);
+
+    // Exportación: cursor de solo avance leído por bloques (fetch size); filtros de herramienta y tipo opcionales.
+    // El Stream debe consumirse y cerrarse dentro de una transacción de solo lectura.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new dtos.KardexMovement(k.id, k.movementDate, k.type, k.quantity, t.id, t.name, u.id, u.username) " +
+           "FROM KardexEntity k JOIN k.tool t JOIN k.user u " +
+           "WHERE k.movementDate BETWEEN :start AND :end " +
+           "AND (:toolId IS NULL OR t.id = :toolId) " +
+           "AND (:type IS NULL OR k.type = :type) " +
+           "ORDER BY k.id")
+    Stream<KardexMovement> streamMovements(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                           @Param("toolId") Long toolId, @Param("type") MovementType type);
 }
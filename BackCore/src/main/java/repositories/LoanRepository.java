@@ -1,15 +1,21 @@
 package repositories;
 
+import dtos.LoanSummary;
 import entities.ClientEntity;
 import entities.LoanEntity;
 import entities.ToolEntity;
 import entities.enums.LoanStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,12 +27,55 @@ public interface LoanRepository extends JpaRepository<LoanEntity, Long> {
        List<LoanEntity> findByClientAndStatusAndTotalPenaltyGreaterThan(ClientEntity client, LoanStatus status, double penaltyThreshold);
        long countByClientAndStatus(ClientEntity client, LoanStatus status);
 
-@Query("SELECT l.tool, COUNT(l) as total " +
-       "FROM LoanEntity l " +
-       "WHERE l.startDate >= :from AND l.startDate <= :to " +
-       "GROUP BY l.tool " +
-       "ORDER BY total DESC")
-       List<Object[]> findTopToolsByDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+// Listados de préstamos por estado como proyección (un solo SELECT con JOIN a cliente y herramienta)
+@Query("SELECT new dtos.LoanSummary(l.id, c.id, c.name, c.rut, t.id, t.name, " +
+       "l.startDate, l.dueDate, l.returnDate, l.status, l.totalPenalty) " +
+       "FROM LoanEntity l JOIN l.client c JOIN l.tool t " +
+       "WHERE l.status IN :statuses ORDER BY l.id")
+       List<LoanSummary> findSummariesByStatusIn(@Param("statuses") Collection<LoanStatus> statuses);
+
+@Query(value = "SELECT new dtos.LoanSummary(l.id, c.id, c.name, c.rut, t.id, t.name, " +
+       "l.startDate, l.dueDate, l.returnDate, l.status, l.totalPenalty) " +
+       "FROM LoanEntity l JOIN l.client c JOIN l.tool t " +
+       "WHERE l.status IN :statuses",
+       countQuery = "SELECT COUNT(l) FROM LoanEntity l WHERE l.status IN :statuses")
+       Page<LoanSummary> findSummaryPageByStatusIn(@Param("statuses") Collection<LoanStatus> statuses, Pageable pageable);
+
+@Query("SELECT new dtos.LoanSummary(l.id, c.id, c.name, c.rut, t.id, t.name, " +
+       "l.startDate, l.dueDate, l.returnDate, l.status, l.totalPenalty) " +
+       "FROM LoanEntity l JOIN l.client c JOIN l.tool t " +
+       "WHERE l.status IN :statuses AND l.id > :afterId ORDER BY l.id")
+       Slice<LoanSummary> findSummariesByStatusInAfter(@Param("statuses") Collection<LoanStatus> statuses, @Param("afterId") Long afterId, Pageable pageable);
+
+// Devolución en lote: préstamos con su herramienta y cliente en un solo SELECT
+@Query("SELECT l FROM LoanEntity l JOIN FETCH l.tool JOIN FETCH l.client WHERE l.id IN :ids")
+       List<LoanEntity> findAllWithToolAndClientByIdIn(@Param("ids") Collection<Long> ids);
+
+// Elegibilidad: ¿el cliente ya tiene esta herramienta en un préstamo abierto? (los contadores salen de client_loan_summary)
+// Filtran por las claves foráneas (l.client.id, l.tool.id) para usar idx_loans_client_status: los métodos derivados
+// equivalentes hacen JOIN a clients/tools y filtran por sus claves primarias
+@Query("SELECT CASE WHEN COUNT(l) > 0 THEN true ELSE false END FROM LoanEntity l " +
+       "WHERE l.client.id = :clientId AND l.tool.id = :toolId AND l.status IN :statuses")
+       boolean existsByClient_IdAndTool_IdAndStatusIn(@Param("clientId") Long clientId, @Param("toolId") Long toolId,
+                                                      @Param("statuses") Collection<LoanStatus> statuses);
+
+@Query("SELECT COUNT(l) FROM LoanEntity l " +
+       "WHERE l.client.id = :clientId AND l.tool.id IN :toolIds AND l.status IN :statuses")
+       long countByClient_IdAndTool_IdInAndStatusIn(@Param("clientId") Long clientId, @Param("toolIds") Collection<Long> toolIds,
+                                                    @Param("statuses") Collection<LoanStatus> statuses);
+
+// Barrido de atrasos: rango de ids de préstamos ACTIVE vencidos (para procesar por bloques)
+@Query("SELECT MIN(l.id) FROM LoanEntity l WHERE l.status = entities.enums.LoanStatus.ACTIVE AND l.dueDate < :today")
+       Long findMinOverdueId(@Param("today") LocalDate today);
+
+@Query("SELECT MAX(l.id) FROM LoanEntity l WHERE l.status = entities.enums.LoanStatus.ACTIVE AND l.dueDate < :today")
+       Long findMaxOverdueId(@Param("today") LocalDate today);
+
+// Barrido de atrasos: ACTIVE -> LATE en bloque (un solo UPDATE por rango de ids)
+@Modifying
+@Query("UPDATE LoanEntity l SET l.status = entities.enums.LoanStatus.LATE, l.version = l.version + 1 " +
+       "WHERE l.status = entities.enums.LoanStatus.ACTIVE AND l.dueDate < :today AND l.id BETWEEN :fromId AND :toId")
+       int markOverdueAsLate(@Param("today") LocalDate today, @Param("fromId") Long fromId, @Param("toId") Long toId);
 
 // RF6.1: Préstamos por estado DENTRO de un rango de fechas (considerando fecha de inicio)
 @Query("SELECT l FROM LoanEntity l WHERE l.status = :status AND l.startDate BETWEEN :from AND :to")
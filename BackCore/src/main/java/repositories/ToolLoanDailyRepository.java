@@ -0,0 +1,59 @@
+package repositories;
+
+import dtos.ToolRanking;
+import entities.ToolLoanDailyEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ToolLoanDailyRepository extends JpaRepository<ToolLoanDailyEntity, Long> {
+
+    // Suma atómica sobre el agregado del día; segura con préstamos concurrentes. Devuelve 0 si la fila del día aún no
+    // existe (ver insertDay). JPQL portable (PostgreSQL y H2); la entidad no está en la caché de segundo nivel
+    @Modifying
+    @Query("UPDATE ToolLoanDailyEntity d SET d.loanCount = d.loanCount + :delta WHERE d.tool.id = :toolId AND d.loanDay = :day")
+    int addLoans(@Param("toolId") Long toolId, @Param("day") LocalDate day, @Param("delta") long delta);
+
+    // Primera fila del día con el delta como valor inicial; no inserta nada si otra transacción ya la creó.
+    // SQL estándar (INSERT ... SELECT ... WHERE NOT EXISTS) en lugar de ON CONFLICT, que H2 no soporta
+    // NATIVE_SPACES: el SQL nativo solo toca tool_loan_daily, así Hibernate no vacía toda la caché de segundo nivel
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tool_loan_daily"))
+    @Query(value = "INSERT INTO tool_loan_daily (tool_id, loan_day, loan_count) " +
+                   "SELECT t.id, CAST(:day AS DATE), :delta FROM tools t WHERE t.id = :toolId AND NOT EXISTS " +
+                   "(SELECT 1 FROM tool_loan_daily d WHERE d.tool_id = t.id AND d.loan_day = CAST(:day AS DATE))",
+           nativeQuery = true)
+    int insertDay(@Param("toolId") Long toolId, @Param("day") LocalDate day, @Param("delta") long delta);
+
+    // Ranking para cualquier rango: suma de los agregados diarios (como mucho herramientas x días, no préstamos)
+    @Query("SELECT new dtos.ToolRanking(t.id, t.name, t.category, SUM(d.loanCount)) " +
+           "FROM ToolLoanDailyEntity d JOIN d.tool t " +
+           "WHERE d.loanDay BETWEEN :from AND :to " +
+           "GROUP BY t.id, t.name, t.category " +
+           "ORDER BY SUM(d.loanCount) DESC, t.id")
+    List<ToolRanking> findRanking(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable limit);
+
+    // --- Reconstrucción (backfill) de un rango a partir de la tabla de préstamos ---
+    @Modifying
+    @Query("DELETE FROM ToolLoanDailyEntity d WHERE d.loanDay BETWEEN :from AND :to")
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tool_loan_daily"))
+    @Query(value = "INSERT INTO tool_loan_daily (tool_id, loan_day, loan_count) " +
+                   "SELECT l.tool_id, l.start_date, COUNT(*) FROM loans l " +
+                   "WHERE l.start_date BETWEEN :from AND :to " +
+                   "GROUP BY l.tool_id, l.start_date",
+           nativeQuery = true)
+    int rebuildRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -1,14 +1,67 @@
 package repositories;
 
+import dtos.ToolAvailability;
 import entities.ToolEntity;
 import entities.enums.ToolStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ToolRepository extends JpaRepository<ToolEntity, Long> {
+
+    // Espacio de consulta de los UPDATE de stock. No es el nombre de la tabla a propósito: con "tools" Hibernate
+    // vaciaría la región "tools" completa; ninguna consulta cacheable lee tools y ToolService invalida por id
+    String STOCK_SPACE = "tools_stock";
+
     List<ToolEntity> findByStatus(ToolStatus status);
     List<ToolEntity> findByNameContainingIgnoreCase(String name);
+
+    // Keyset: siguiente bloque de herramientas después del id indicado
+    Slice<ToolEntity> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Reserva atómica de 1 unidad: solo descuenta si queda stock (devuelve 0 si otro préstamo ganó la última unidad)
+    // El CASE usa el stock previo a la actualización, así la última unidad deja la herramienta en LOANED
+    // Los UPDATE masivos también incrementan la versión: una edición concurrente por entidad detecta el conflicto
+    // SQL nativo con NATIVE_SPACES: un UPDATE JPQL sobre ToolEntity vaciaría la región "tools" completa de la caché
+    // de segundo nivel; así no toca la caché y ToolService invalida solo la entrada de esta herramienta
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = STOCK_SPACE))
+    @Query(value = "UPDATE tools SET stock = stock - 1, version = version + 1, " +
+                   "status = CASE WHEN stock = 1 THEN 'LOANED' ELSE status END " +
+                   "WHERE id = :id AND stock > 0 AND status = 'AVAILABLE'",
+           nativeQuery = true)
+    int reserveUnit(@Param("id") Long id);
+
+    // Devolución en lote: repone n unidades de una herramienta en un solo UPDATE (LOANED vuelve a AVAILABLE)
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = STOCK_SPACE))
+    @Query(value = "UPDATE tools SET stock = COALESCE(stock, 0) + :units, version = version + 1, " +
+                   "status = CASE WHEN status = 'LOANED' THEN 'AVAILABLE' ELSE status END " +
+                   "WHERE id = :id",
+           nativeQuery = true)
+    int restockUnits(@Param("id") Long id, @Param("units") int units);
+
+    // Devolución en lote: n unidades dañadas pasan a reparación (no vuelven al stock disponible)
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = STOCK_SPACE))
+    @Query(value = "UPDATE tools SET in_repair = COALESCE(in_repair, 0) + :units, version = version + 1 WHERE id = :id",
+           nativeQuery = true)
+    int addInRepair(@Param("id") Long id, @Param("units") int units);
+
+    // Disponibilidad leída de la BD tras los UPDATE masivos (la proyección no devuelve las entidades desactualizadas en memoria)
+    @Query("SELECT new dtos.ToolAvailability(t.id, t.stock, t.inRepair, t.status) FROM ToolEntity t WHERE t.id IN :ids")
+    List<ToolAvailability> findAvailabilityByIdIn(@Param("ids") Collection<Long> ids);
 }
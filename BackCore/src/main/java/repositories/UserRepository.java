@@ -8,5 +8,6 @@ import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
+    // Siempre va a la BD: la caché de usuarios es UserLookupCache (SecurityUtils)
     Optional<UserEntity> findByUsername(String username);
 }
@@ -0,0 +1,115 @@
+package services;
+
+import dtos.LoanEligibility;
+import entities.ClientLoanSummaryEntity;
+import entities.enums.LoanStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import repositories.ClientLoanSummaryRepository;
+import repositories.LoanRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Mantiene y consulta client_loan_summary: elegibilidad y reactivación leen una fila por clave primaria en vez de
+// recorrer los préstamos del cliente
+@Service
+public class ClientLoanSummaryService {
+
+    private static final List<LoanStatus> OPEN_STATUSES = List.of(LoanStatus.ACTIVE, LoanStatus.LATE);
+
+    private final ClientLoanSummaryRepository summaryRepository;
+    private final LoanRepository loanRepository;
+
+    public ClientLoanSummaryService(ClientLoanSummaryRepository summaryRepository, LoanRepository loanRepository) {
+        this.summaryRepository = summaryRepository;
+        this.loanRepository = loanRepository;
+    }
+
+    // --- CONSULTAS ---
+    @Transactional(readOnly = true)
+    public ClientLoanSummaryEntity getSummary(Long clientId) {
+        // Un cliente sin fila todavía no tiene préstamos
+        return summaryRepository.findById(clientId).orElseGet(() -> ClientLoanSummaryEntity.empty(clientId));
+    }
+
+    @Transactional(readOnly = true)
+    public LoanEligibility getEligibility(Long clientId, Long toolId) {
+        ClientLoanSummaryEntity summary = getSummary(clientId);
+        // Si no tiene préstamos abiertos no puede tener esta herramienta: se evita la segunda consulta
+        boolean holdsTool = summary.getOpenLoans() > 0
+                && loanRepository.existsByClient_IdAndTool_IdAndStatusIn(clientId, toolId, OPEN_STATUSES);
+        return new LoanEligibility(
+                (long) summary.getLateLoans(),
+                (long) summary.getUnpaidLoans(),
+                (long) summary.getOpenLoans(),
+                holdsTool ? 1L : 0L);
+    }
+
+    // Pedido de varias herramientas: los mismos contadores y cuántas de ellas ya tiene en préstamos abiertos
+    @Transactional(readOnly = true)
+    public LoanEligibility getBasketEligibility(Long clientId, Collection<Long> toolIds) {
+        ClientLoanSummaryEntity summary = getSummary(clientId);
+        long heldTools = summary.getOpenLoans() > 0
+                ? loanRepository.countByClient_IdAndTool_IdInAndStatusIn(clientId, toolIds, OPEN_STATUSES)
+                : 0L;
+        return new LoanEligibility(
+                (long) summary.getLateLoans(),
+                (long) summary.getUnpaidLoans(),
+                (long) summary.getOpenLoans(),
+                heldTools);
+    }
+
+    // --- TRANSICIONES (se llaman dentro de la transacción que cambia el préstamo) ---
+    @Transactional
+    public void recordLoanOpened(Long clientId) {
+        applyDelta(clientId, 1, 0, 0, 0.0);
+    }
+
+    @Transactional
+    public void recordLoansOpened(Long clientId, int count) {
+        applyDelta(clientId, count, 0, 0, 0.0);
+    }
+
+    @Transactional
+    public void recordLoanReturned(Long clientId, boolean wasLate, double amountDue) {
+        applyDelta(clientId, -1, wasLate ? -1 : 0, amountDue > 0 ? 1 : 0, amountDue);
+    }
+
+    // Devolución en lote: una sola actualización por cliente con los totales de sus préstamos devueltos
+    @Transactional
+    public void recordLoansReturned(Long clientId, int returned, int wereLate, int withAmountDue, double amountDue) {
+        applyDelta(clientId, -returned, -wereLate, withAmountDue, amountDue);
+    }
+
+    @Transactional
+    public void recordLoanPaid(Long clientId, double amountPaid) {
+        applyDelta(clientId, 0, 0, amountPaid > 0 ? -1 : 0, -amountPaid);
+    }
+
+    // UPDATE de la fila y, si el cliente aún no la tiene, INSERT con el delta como valor inicial. Si otra transacción
+    // la crea a la vez: ya confirmada, el INSERT no hace nada y se repite el UPDATE; sin confirmar, el INSERT falla
+    // por clave duplicada y OptimisticRetry repite la operación completa (el UPDATE ya encuentra la fila)
+    private void applyDelta(Long clientId, int open, int late, int unpaid, double balance) {
+        LocalDateTime now = LocalDateTime.now();
+        if (summaryRepository.applyDelta(clientId, open, late, unpaid, balance, now) == 0
+                && summaryRepository.insertSummary(clientId, open, late, unpaid, balance, now) == 0) {
+            summaryRepository.applyDelta(clientId, open, late, unpaid, balance, now);
+        }
+    }
+
+    // --- RECONSTRUCCIÓN (corrección de desvíos) ---
+    @Transactional
+    public int rebuildAll() {
+        summaryRepository.deleteAllSummaries();
+        return summaryRepository.rebuildAll();
+    }
+
+    @Transactional
+    public ClientLoanSummaryEntity rebuild(Long clientId) {
+        summaryRepository.deleteSummary(clientId);
+        summaryRepository.rebuildClient(clientId);
+        return getSummary(clientId);
+    }
+}
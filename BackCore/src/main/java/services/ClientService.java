@@ -2,15 +2,18 @@ package services;
 
 import app.exceptions.InvalidOperationException;
 import app.exceptions.ResourceNotFoundException;
+import app.utils.PageRequests;
+import app.utils.TableVersions;
+import dtos.PageResponse;
+import dtos.ScrollResponse;
 import dtos.UpdateClientRequest; 
 import entities.ClientEntity;
-import entities.LoanEntity;
+import entities.ClientLoanSummaryEntity;
 import entities.enums.ClientStatus;
-import entities.enums.LoanStatus;
 import jakarta.validation.Valid; 
 import repositories.ClientRepository;
-import repositories.LoanRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
@@ -22,17 +25,30 @@ import org.springframework.validation.annotation.Validated;
 public class ClientService {
 
     private final ClientRepository clientRepository;
-    private final LoanRepository loanRepository;
+    private final ClientLoanSummaryService clientLoanSummaryService;
+    private final TableVersions tableVersions;
 
-    public ClientService(ClientRepository clientRepository, LoanRepository loanRepository) {
+    public ClientService(ClientRepository clientRepository, ClientLoanSummaryService clientLoanSummaryService,
+                         TableVersions tableVersions) {
         this.clientRepository = clientRepository;
-        this.loanRepository = loanRepository;
+        this.clientLoanSummaryService = clientLoanSummaryService;
+        this.tableVersions = tableVersions;
     }
 
     public List<ClientEntity> getAllClients() {
         return clientRepository.findAll();
     }
 
+    public PageResponse<ClientEntity> getClientsPage(int page, int size) {
+        return PageResponse.of(clientRepository.findAll(PageRequests.byId(page, size)));
+    }
+
+    public ScrollResponse<ClientEntity> getClientsAfter(Long afterId, int size) {
+        return ScrollResponse.of(
+                clientRepository.findByIdGreaterThanOrderByIdAsc(PageRequests.after(afterId), PageRequests.firstSlice(size)),
+                ClientEntity::getId);
+    }
+
     public ClientEntity getClientById(Long id) {
         return clientRepository.findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + id));
@@ -52,7 +68,9 @@ public class ClientService {
         if (client.getStatus() == null) {
             client.setStatus(ClientStatus.ACTIVE);
         }
-        return clientRepository.save(client);
+        ClientEntity saved = clientRepository.save(client);
+        tableVersions.touch(TableVersions.Table.CLIENTS);
+        return saved;
     }
 
     @Transactional 
@@ -60,7 +78,19 @@ public class ClientService {
         // Usar método auxiliar getClientById
         ClientEntity client = getClientById(id);
         client.setStatus(status);
-        return clientRepository.save(client);
+        ClientEntity saved = clientRepository.save(client);
+        tableVersions.touch(TableVersions.Table.CLIENTS);
+        return saved;
+    }
+
+    // Cambio de estado de varios clientes en un solo UPDATE (devolución en lote)
+    @Transactional
+    public int updateStatuses(Collection<Long> ids, ClientStatus status) {
+        int updated = clientRepository.updateStatusByIdIn(ids, status);
+        if (updated > 0) {
+            tableVersions.touch(TableVersions.Table.CLIENTS);
+        }
+        return updated;
     }
 
     @Transactional
@@ -71,7 +101,9 @@ public class ClientService {
         client.setPhone(updateRequest.phone());
         client.setEmail(updateRequest.email());
         // RUT y Status no se modifican aquí segun RF 3.2
-        return clientRepository.save(client); // Guardar cambios
+        ClientEntity saved = clientRepository.save(client); // Guardar cambios
+        tableVersions.touch(TableVersions.Table.CLIENTS);
+        return saved;
     }
 
     @Transactional
@@ -85,17 +117,17 @@ public class ClientService {
             return client;
         }
 
+        // Contadores del cliente en una sola lectura por clave primaria (client_loan_summary)
+        ClientLoanSummaryEntity summary = clientLoanSummaryService.getSummary(clientId);
+
         // 3. Verificar si tiene préstamos ATRASADOS (LATE)
-        long lateLoanCount = loanRepository.countByClientAndStatus(client, LoanStatus.LATE);
-        if (lateLoanCount > 0) {
-            throw new InvalidOperationException("Cannot reactivate client: " + lateLoanCount + " late loan(s) found.");
+        if (summary.getLateLoans() > 0) {
+            throw new InvalidOperationException("Cannot reactivate client: " + summary.getLateLoans() + " late loan(s) found.");
         }
 
         // 4. Verificar si tiene deudas PENDIENTES (RECEIVED con totalPenalty > 0)
-        List<LoanEntity> unpaidReceivedLoans = loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(
-                client, LoanStatus.RECEIVED, 0.0);
-        if (!unpaidReceivedLoans.isEmpty()) {
-            throw new InvalidOperationException("Cannot reactivate client: " + unpaidReceivedLoans.size() + " unpaid loan(s) found.");
+        if (summary.getUnpaidLoans() > 0) {
+            throw new InvalidOperationException("Cannot reactivate client: " + summary.getUnpaidLoans() + " unpaid loan(s) found.");
         }
 
         // 5. Si pasa las validaciones, reactivar
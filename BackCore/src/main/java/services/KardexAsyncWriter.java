@@ -0,0 +1,225 @@
+package services;
+
+import entities.KardexEntity;
+import entities.enums.MovementType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import repositories.KardexRepository;
+import repositories.ToolRepository;
+import repositories.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Escritor asíncrono de Kardex (kardex.async.enabled=true): los movimientos confirmados se encolan en una cola acotada
+// y un hilo de fondo los inserta por lotes, fuera del camino crítico de préstamos y devoluciones
+@Component
+public class KardexAsyncWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(KardexAsyncWriter.class);
+
+    // Movimiento pendiente: solo ids (las entidades se resuelven en la transacción del escritor)
+    public record PendingMovement(Long toolId, MovementType type, int quantity, Long userId,
+                                  LocalDateTime movementDate, long enqueuedAtNanos) {}
+
+    private final KardexRepository kardexRepository;
+    private final ToolRepository toolRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    private final BlockingQueue<PendingMovement> queue;
+    private final Thread worker;
+    private volatile boolean closed;
+    // Encolar (lectura) vs. cerrar (escritura): ningún movimiento entra a la cola después del vaciado final de close()
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    // --- Métricas ---
+    private final Counter writtenCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+
+    public KardexAsyncWriter(KardexRepository kardexRepository,
+                             ToolRepository toolRepository,
+                             UserRepository userRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${kardex.async.enabled:false}") boolean enabled,
+                             @Value("${kardex.async.queue-capacity:10000}") int queueCapacity,
+                             @Value("${kardex.async.batch-size:200}") int batchSize,
+                             @Value("${kardex.async.offer-timeout:200ms}") Duration offerTimeout,
+                             @Value("${kardex.async.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        if (queueCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("kardex.async queue capacity and batch size must be positive.");
+        }
+        this.kardexRepository = kardexRepository;
+        this.toolRepository = toolRepository;
+        this.userRepository = userRepository;
+        // Cada lote en su propia transacción, independiente de la del llamador
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeout.toMillis();
+        this.shutdownTimeoutMillis = shutdownTimeout.toMillis();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.writtenCounter = meterRegistry.counter("kardex.async.written");
+        this.rejectedCounter = meterRegistry.counter("kardex.async.rejected");
+        this.failedCounter = meterRegistry.counter("kardex.async.failed");
+        this.lagTimer = meterRegistry.timer("kardex.async.lag");
+        Gauge.builder("kardex.async.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+
+        if (enabled) {
+            this.worker = new Thread(this::drainLoop, "kardex-writer");
+            this.worker.setDaemon(true);
+            this.worker.start();
+        } else {
+            this.worker = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Encola los movimientos. Contrapresión: si la cola sigue llena tras offer-timeout (o el escritor ya se cerró),
+    // el llamador los escribe él mismo en forma síncrona; nunca se descarta un movimiento
+    public void enqueue(List<PendingMovement> movements) {
+        List<PendingMovement> overflow = new ArrayList<>();
+        closeLock.readLock().lock();
+        try {
+            for (PendingMovement movement : movements) {
+                if (closed || !offer(movement)) {
+                    overflow.add(movement);
+                }
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        if (!overflow.isEmpty()) {
+            rejectedCounter.increment(overflow.size());
+            writeBatch(overflow);
+        }
+    }
+
+    private boolean offer(PendingMovement movement) {
+        try {
+            return queue.offer(movement, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Al apagar: dejar de aceptar, esperar a que el hilo vacíe la cola (sale al verla vacía) y escribir lo que quede.
+    // El candado de escritura espera a los enqueue en curso: lo que ya pasó el chequeo de 'closed' termina de encolarse
+    // antes del vaciado, y lo que llegue después se escribe en forma síncrona
+    @PreDestroy
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        if (worker != null) {
+            try {
+                worker.join(shutdownTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<PendingMovement> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.info("Flushing {} pending kardex movements on shutdown", remaining.size());
+            writeBatch(remaining);
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingMovement> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                // 1. Esperar el primer movimiento y 2. juntar los que ya estén en cola hasta batch-size
+                PendingMovement first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                // Lo que quede en cola lo escribe close()
+                Thread.currentThread().interrupt();
+                return;
+            }
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    private void writeBatch(List<PendingMovement> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> kardexRepository.saveAll(toEntities(batch)));
+            recordWritten(batch);
+        } catch (RuntimeException e) {
+            // Si el lote falla, reintentar uno a uno para no perder los movimientos válidos
+            log.warn("Kardex batch of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (PendingMovement movement : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> kardexRepository.saveAll(toEntities(List.of(movement))));
+                    recordWritten(List.of(movement));
+                } catch (RuntimeException single) {
+                    failedCounter.increment();
+                    log.error("Could not write kardex movement {}: {}", movement, single.getMessage());
+                }
+            }
+        }
+    }
+
+    private List<KardexEntity> toEntities(List<PendingMovement> batch) {
+        return batch.stream()
+                .map(m -> KardexEntity.builder()
+                        .tool(toolRepository.getReferenceById(m.toolId()))
+                        .type(m.type())
+                        .quantity(m.quantity())
+                        .movementDate(m.movementDate())
+                        .user(m.userId() == null ? null : userRepository.getReferenceById(m.userId()))
+                        .build())
+                .toList();
+    }
+
+    private void recordWritten(List<PendingMovement> batch) {
+        long now = System.nanoTime();
+        writtenCounter.increment(batch.size());
+        batch.forEach(m -> lagTimer.record(now - m.enqueuedAtNanos(), TimeUnit.NANOSECONDS));
+    }
+}
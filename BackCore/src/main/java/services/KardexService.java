@@ -1,30 +1,45 @@
 package services;
 
+import app.utils.KardexExportWriter;
+import app.utils.PageRequests;
+import dtos.KardexEntry;
+import dtos.KardexExportRequest;
+import dtos.KardexMovement;
+import dtos.PageResponse;
+import dtos.ScrollResponse;
 import entities.KardexEntity;
 import entities.ToolEntity;
 import entities.UserEntity;
 import entities.enums.MovementType;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import repositories.KardexRepository;
 import repositories.ToolRepository; 
 import app.exceptions.ResourceNotFoundException;
 
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class KardexService {
 
     private final KardexRepository kardexRepository;
     private final ToolRepository toolRepository;
+    private final KardexAsyncWriter asyncWriter;
 
-    public KardexService(KardexRepository kardexRepository, ToolRepository toolRepository) {
+    public KardexService(KardexRepository kardexRepository, ToolRepository toolRepository, KardexAsyncWriter asyncWriter) {
         this.kardexRepository = kardexRepository;
         this.toolRepository = toolRepository;
+        this.asyncWriter = asyncWriter;
     }
 
     // ---------------------------------------------------------------------------------------------------------------------
+    @Timed("kardex.register")
     @Transactional
     public void registerMovement(ToolEntity tool, MovementType type, int quantity, UserEntity user) {
         // 1. Validar si la herramienta existe antes de registrar
@@ -32,14 +47,80 @@ public class KardexService {
             throw new ResourceNotFoundException("Cannot register movement for non-existent tool.");
         }
         // 2. Crear y guardar el movimiento en Kardex
-        KardexEntity movement = KardexEntity.builder()
+        persist(List.of(buildMovement(tool, type, quantity, user, LocalDateTime.now())));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Ruta interna (ToolService): la herramienta es una entidad gestionada que se acaba de leer o guardar en la misma
+    // transacción, así que no se repite la consulta de existencia
+    @Timed("kardex.register")
+    @Transactional
+    public void registerManagedMovement(ToolEntity tool, MovementType type, int quantity, UserEntity user) {
+        requirePersistedTool(tool);
+        persist(List.of(buildMovement(tool, type, quantity, user, LocalDateTime.now())));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Lote de movimientos (herramientas gestionadas): un solo saveAll, que Hibernate envía en lotes JDBC al hacer flush
+    @Timed("kardex.register")
+    @Transactional
+    public void registerMovements(List<KardexEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<KardexEntity> movements = entries.stream()
+                .map(entry -> {
+                    requirePersistedTool(entry.tool());
+                    return buildMovement(entry.tool(), entry.type(), entry.quantity(), entry.user(), now);
+                })
+                .toList();
+        persist(movements);
+    }
+
+    // Modo síncrono: INSERT en la transacción actual. Modo asíncrono: se encolan al confirmar la transacción
+    // (si se revierte, no quedan movimientos) y el escritor de fondo los inserta por lotes
+    private void persist(List<KardexEntity> movements) {
+        if (!asyncWriter.isEnabled()) {
+            if (movements.size() == 1) {
+                kardexRepository.save(movements.get(0));
+            } else {
+                kardexRepository.saveAll(movements);
+            }
+            return;
+        }
+        long now = System.nanoTime();
+        List<KardexAsyncWriter.PendingMovement> pending = movements.stream()
+                .map(k -> new KardexAsyncWriter.PendingMovement(
+                        k.getTool().getId(), k.getType(), k.getQuantity(),
+                        k.getUser() == null ? null : k.getUser().getId(), k.getMovementDate(), now))
+                .toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    asyncWriter.enqueue(pending);
+                }
+            });
+        } else {
+            asyncWriter.enqueue(pending);
+        }
+    }
+
+    private void requirePersistedTool(ToolEntity tool) {
+        if (tool == null || tool.getId() == null) {
+            throw new ResourceNotFoundException("Cannot register movement for non-existent tool.");
+        }
+    }
+
+    private KardexEntity buildMovement(ToolEntity tool, MovementType type, int quantity, UserEntity user, LocalDateTime date) {
+        return KardexEntity.builder()
                 .tool(tool)
                 .type(type)
-                .movementDate(LocalDateTime.now())
+                .movementDate(date)
                 .quantity(quantity)
                 .user(user)
                 .build();
-        kardexRepository.save(movement);
     }
 
     // ---------------------------------------------------------------------------------------------------------------------
@@ -66,18 +147,69 @@ public class KardexService {
         return kardexRepository.findByTool_Id(toolId);
     }
 
+    // ---------------------------------------------------------------------------------------------------------------------
+    @Transactional(readOnly = true)
+    public List<KardexMovement> listMovementsByToolId(Long toolId) {
+        if (toolId == null) {
+            throw new IllegalArgumentException("Tool ID cannot be null.");
+        }
+        if (!toolRepository.existsById(toolId)) {
+            throw new ResourceNotFoundException("Tool not found with id: " + toolId);
+        }
+        return kardexRepository.findMovementsByToolId(toolId);
+    }
+
     // ---------------------------------------------------------------------------------------------------------------------
     @Transactional(readOnly = true)
     public List<KardexEntity> getMovementsByDate(LocalDateTime startDate, LocalDateTime endDate) {
-        // 1. Validar fechas 
+        // 1. Validar fechas
+        validateDateRange(startDate, endDate);
+        // 2. Consultar movimientos en el rango de fechas
+        return kardexRepository.findByMovementDateBetween(startDate, endDate);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    @Transactional(readOnly = true)
+    public List<KardexMovement> listMovementsByDate(LocalDateTime startDate, LocalDateTime endDate) {
+        validateDateRange(startDate, endDate);
+        return kardexRepository.findMovementsByDateBetween(startDate, endDate);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    @Transactional(readOnly = true)
+    public PageResponse<KardexMovement> getMovementsByDatePage(LocalDateTime startDate, LocalDateTime endDate, int page, int size) {
+        validateDateRange(startDate, endDate);
+        return PageResponse.of(kardexRepository.findMovementPageByDateBetween(startDate, endDate, PageRequests.byId(page, size)));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    @Transactional(readOnly = true)
+    public ScrollResponse<KardexMovement> getMovementsByDateAfter(LocalDateTime startDate, LocalDateTime endDate, Long afterId, int size) {
+        validateDateRange(startDate, endDate);
+        return ScrollResponse.of(
+                kardexRepository.findMovementsByDateBetweenAfter(startDate, endDate, PageRequests.after(afterId), PageRequests.firstSlice(size)),
+                KardexMovement::id);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Exportación en streaming: cada fila se escribe en cuanto llega del cursor, memoria constante sea cual sea el rango
+    @Transactional(readOnly = true)
+    public long exportMovements(KardexExportRequest request, OutputStream out) {
+        KardexExportWriter writer = new KardexExportWriter(out, request.format());
+        try (Stream<KardexMovement> rows = kardexRepository.streamMovements(
+                request.start(), request.end(), request.toolId(), request.type())) {
+            rows.forEach(writer::write);
+        }
+        return writer.finish();
+    }
+
+    private void validateDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         if (startDate == null || endDate == null) {
             throw new IllegalArgumentException("Start and end dates cannot be null.");
         }
-        // 2. Validar que la fecha de fin no sea anterior a la de inicio
+        // La fecha de fin no puede ser anterior a la de inicio
         if (endDate.isBefore(startDate)) {
             throw new IllegalArgumentException("End date cannot be before start date.");
         }
-        // 3. Consultar movimientos en el rango de fechas
-        return kardexRepository.findByMovementDateBetween(startDate, endDate);
     }
 }
\ No newline at end of file
@@ -1,11 +1,21 @@
 package services;
 
+import app.utils.PageRequests;
+import dtos.BatchReturnRequest;
+import dtos.BatchReturnResult;
+import dtos.KardexEntry;
+import dtos.LoanEligibility;
+import dtos.LoanSummary;
+import dtos.PageResponse;
+import dtos.ScrollResponse;
+import dtos.TariffSnapshot;
 import entities.ClientEntity;
 import entities.LoanEntity;
 import entities.ToolEntity;
 import entities.UserEntity;
 import entities.enums.ClientStatus;
 import entities.enums.LoanStatus;
+import entities.enums.MovementType;
 import entities.enums.ToolStatus;
 import repositories.LoanRepository;
 import repositories.ClientRepository;
@@ -15,19 +25,37 @@ import app.exceptions.ResourceNotFoundException;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class LoanService {
 
+    private static final List<LoanStatus> OPEN_STATUSES = List.of(LoanStatus.ACTIVE, LoanStatus.LATE);
+    // Préstamos rechazados por regla de negocio, con el motivo como etiqueta (restricted, out_of_stock, late_loans, ...)
+    private static final String REJECTIONS_METRIC = "loan.rejections";
+
     private final LoanRepository loanRepository;
     private final ClientRepository clientRepository;
     private final ToolRepository toolRepository;
     private final ToolService toolService;
+    private final KardexService kardexService;
     private final TariffService tariffService;
     private final ClientService clientService;
+    private final ToolLoanRollupService toolLoanRollupService;
+    private final ClientLoanSummaryService clientLoanSummaryService;
+    private final MeterRegistry meterRegistry;
 
     // --- Constructor ---
     public LoanService(LoanRepository loanRepository,
@@ -36,25 +64,34 @@ public class LoanService {
                        ToolService toolService,
                        KardexService kardexService,
                        TariffService tariffService,
-                       ClientService clientService) {
+                       ClientService clientService,
+                       ToolLoanRollupService toolLoanRollupService,
+                       ClientLoanSummaryService clientLoanSummaryService,
+                       MeterRegistry meterRegistry) {
         this.loanRepository = loanRepository;
         this.clientRepository = clientRepository;
         this.toolRepository = toolRepository;
         this.toolService = toolService;
+        this.kardexService = kardexService;
         this.tariffService = tariffService;
         this.clientService = clientService;
+        this.toolLoanRollupService = toolLoanRollupService;
+        this.clientLoanSummaryService = clientLoanSummaryService;
+        this.meterRegistry = meterRegistry;
     }
 
     // ########################################################################################################################################################
     // ####################################################### MÉTODOS DE PRÉSTAMO ############################################################################
     // ########################################################################################################################################################
     // METODO ENVOLVENTE PARA CREAR PRÉSTAMO CON FECHA DE INICIO HOY
+    @Timed("loan.create")
     @Transactional
     public LoanEntity createLoan(Long clientId, Long toolId, LocalDate dueDate, UserEntity user) {
         return createLoan(clientId, toolId, LocalDate.now(), dueDate, user);
     }
 
     // MÉTODO PRINCIPAL PARA CREAR PRÉSTAMO
+    @Timed("loan.create")
     @Transactional
     public LoanEntity createLoan(Long clientId, Long toolId, LocalDate startDate, LocalDate dueDate, UserEntity user) {
         // 0. Obtener Cliente y Herramienta ---
@@ -66,48 +103,23 @@ public class LoanService {
         //  ############################################# Validaciones de Negocio #############################################
         // 1. Estado General del Cliente
         if (client.getStatus() == ClientStatus.RESTRICTED) {
-            throw new InvalidOperationException("Client is restricted and cannot request loans.");
-        }
-
-        // 2. Verificar préstamos ATRASADOS (STATUS LATE)
-        long lateLoanCount = loanRepository.countByClientAndStatus(client, LoanStatus.LATE);
-        if (lateLoanCount > 0) {
-            throw new InvalidOperationException("Client has " + lateLoanCount + " late loan(s) that must be returned.");
-        }
-
-        // 3. Verificar DEUDAS PENDIENTES (STATUS RECEIVED con totalPenalty > 0)
-        List<LoanEntity> unpaidReceivedLoans = loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(client, LoanStatus.RECEIVED, 0.0);
-        if (!unpaidReceivedLoans.isEmpty()) {
-            throw new InvalidOperationException("Client has outstanding payments due for " + unpaidReceivedLoans.size() + " previous loan(s).");
+            throw reject("restricted", "Client is restricted and cannot request loans.");
         }
 
-        // 4. Disponibilidad de Herramienta
+        // 2. Disponibilidad de Herramienta
         if (tool.getStatus() != ToolStatus.AVAILABLE || tool.getStock() == null || tool.getStock() <= 0) {
-            throw new InvalidOperationException("Tool is not available or out of stock.");
+            throw reject("out_of_stock", "Tool is not available or out of stock.");
         }
 
-        // 5. Fechas Válidas
+        // 3. Fechas Válidas
         if (startDate == null) startDate = LocalDate.now();
         if (dueDate == null) throw new IllegalArgumentException("dueDate is required.");
         if (dueDate.isBefore(startDate)) {
             throw new IllegalArgumentException("Due date cannot be before start date.");
         }
 
-        // 6. Límite de 5 Préstamos Activos/Atrasados (Ya incluye LATE, está bien)
-        long activeOrLateCount = loanRepository.findByClientAndStatus(client, LoanStatus.ACTIVE).size() + lateLoanCount;
-        if (activeOrLateCount >= 5) {
-            throw new InvalidOperationException("Client has reached the maximum number of active/late loans (5).");
-        }
-
-        // 7. No Repetir Herramienta Activa/Atrasada (Ya incluye LATE, está bien)
-        boolean hasSameToolActiveOrLate = loanRepository.findByClientAndStatus(client, LoanStatus.ACTIVE).stream()
-                .anyMatch(l -> l.getTool() != null && l.getTool().getId().equals(toolId))
-                ||
-                loanRepository.findByClientAndStatus(client, LoanStatus.LATE).stream() // Re-chequeo por si acaso
-                .anyMatch(l -> l.getTool() != null && l.getTool().getId().equals(toolId));
-        if (hasSameToolActiveOrLate) {
-            throw new InvalidOperationException("Client already has an active or late loan for this tool.");
-        }
+        // 4. Reglas sobre préstamos del cliente (contadores de client_loan_summary, búsqueda por clave primaria)
+        validateEligibility(clientLoanSummaryService.getEligibility(clientId, toolId), 1);
 
         // --- Crear y Guardar Préstamo ---
         LoanEntity loan = LoanEntity.builder()
@@ -119,72 +131,162 @@ public class LoanService {
                 .totalPenalty(0.0)
                 .build();
 
-        toolService.decrementStockForLoan(tool, user);
-        return loanRepository.save(loan);
+        try {
+            toolService.decrementStockForLoan(tool, user);
+        } catch (InvalidOperationException e) {
+            // Otro préstamo concurrente se llevó la última unidad entre la lectura y la reserva
+            meterRegistry.counter(REJECTIONS_METRIC, "reason", "out_of_stock").increment();
+            throw e;
+        }
+        LoanEntity savedLoan = loanRepository.save(loan);
+        // Mantener el agregado diario del ranking y los contadores del cliente en la misma transacción
+        toolLoanRollupService.recordLoans(toolId, startDate, 1);
+        clientLoanSummaryService.recordLoanOpened(clientId);
+        return savedLoan;
+    }
+
+    // MÉTODO PARA PRESTAR VARIAS HERRAMIENTAS A UN CLIENTE (TODO O NADA)
+    // La elegibilidad se evalúa una vez para toda la canasta; el stock se reserva en orden de id (dos canastas que
+    // comparten herramientas bloquean las filas en el mismo orden y no se interbloquean). Si una reserva falla, la
+    // transacción completa se revierte.
+    @Timed("loan.create.batch")
+    @Transactional
+    public List<LoanEntity> createLoans(Long clientId, List<Long> toolIds, LocalDate startDate, LocalDate dueDate, UserEntity user) {
+        // 0. Obtener Cliente y Herramientas (un solo SELECT, ordenadas por id) ---
+        ClientEntity client = clientRepository.findById(clientId)
+                .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + clientId));
+        if (toolIds == null || toolIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one tool is required.");
+        }
+        Set<Long> uniqueToolIds = new HashSet<>(toolIds);
+        if (uniqueToolIds.size() != toolIds.size()) {
+            throw new IllegalArgumentException("The same tool cannot be requested twice in one checkout.");
+        }
+        List<ToolEntity> tools = toolRepository.findAllById(uniqueToolIds).stream()
+                .sorted(Comparator.comparing(ToolEntity::getId))
+                .toList();
+        if (tools.size() != uniqueToolIds.size()) {
+            Set<Long> found = tools.stream().map(ToolEntity::getId).collect(Collectors.toSet());
+            Long missing = toolIds.stream().filter(id -> !found.contains(id)).findFirst().orElse(null);
+            throw new ResourceNotFoundException("Tool not found with id: " + missing);
+        }
+
+        //  ############################################# Validaciones de Negocio #############################################
+        // 1. Estado General del Cliente
+        if (client.getStatus() == ClientStatus.RESTRICTED) {
+            throw reject("restricted", "Client is restricted and cannot request loans.");
+        }
+
+        // 2. Disponibilidad de cada Herramienta (lectura previa; la reserva atómica decide al final)
+        for (ToolEntity tool : tools) {
+            if (tool.getStatus() != ToolStatus.AVAILABLE || tool.getStock() == null || tool.getStock() <= 0) {
+                throw reject("out_of_stock", "Tool " + tool.getId() + " is not available or out of stock.");
+            }
+        }
+
+        // 3. Fechas Válidas
+        if (startDate == null) startDate = LocalDate.now();
+        if (dueDate == null) throw new IllegalArgumentException("dueDate is required.");
+        if (dueDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("Due date cannot be before start date.");
+        }
+
+        // 4. Reglas sobre préstamos del cliente, una sola vez para toda la canasta (el límite de 5 incluye la canasta)
+        validateEligibility(clientLoanSummaryService.getBasketEligibility(clientId, uniqueToolIds), tools.size());
+
+        // --- Reservar stock en orden de id ---
+        for (ToolEntity tool : tools) {
+            if (!toolService.reserveForLoan(tool)) {
+                throw reject("out_of_stock", "Tool " + tool.getId() + " is not available or out of stock.");
+            }
+        }
+
+        // --- Crear y Guardar Préstamos y Kardex en lote ---
+        List<LoanEntity> loans = new ArrayList<>(tools.size());
+        List<KardexEntry> movements = new ArrayList<>(tools.size());
+        for (ToolEntity tool : tools) {
+            loans.add(LoanEntity.builder()
+                    .client(client)
+                    .tool(tool)
+                    .startDate(startDate)
+                    .dueDate(dueDate)
+                    .status(LoanStatus.ACTIVE)
+                    .totalPenalty(0.0)
+                    .build());
+            movements.add(new KardexEntry(tool, MovementType.LOAN, 1, user));
+        }
+        List<LoanEntity> savedLoans = loanRepository.saveAll(loans);
+        kardexService.registerMovements(movements);
+
+        // Agregado diario del ranking (una fila por herramienta) y contadores del cliente (una sola actualización)
+        for (ToolEntity tool : tools) {
+            toolLoanRollupService.recordLoans(tool.getId(), startDate, 1);
+        }
+        clientLoanSummaryService.recordLoansOpened(clientId, tools.size());
+        return savedLoans;
+    }
+
+    // VALIDA LAS REGLAS DE NEGOCIO CONTRA LOS CONTADORES DEL CLIENTE (requested = préstamos que se van a abrir)
+    private void validateEligibility(LoanEligibility eligibility, int requested) {
+        // 1. Verificar préstamos ATRASADOS (STATUS LATE)
+        if (eligibility.lateLoans() > 0) {
+            throw reject("late_loans", "Client has " + eligibility.lateLoans() + " late loan(s) that must be returned.");
+        }
+
+        // 2. Verificar DEUDAS PENDIENTES (STATUS RECEIVED con totalPenalty > 0)
+        if (eligibility.unpaidLoans() > 0) {
+            throw reject("debt", "Client has outstanding payments due for " + eligibility.unpaidLoans() + " previous loan(s).");
+        }
+
+        // 3. Límite de 5 Préstamos Activos/Atrasados
+        if (eligibility.openLoans() + requested > 5) {
+            throw reject("limit_reached", "Client has reached the maximum number of active/late loans (5).");
+        }
+
+        // 4. No Repetir Herramienta Activa/Atrasada
+        if (eligibility.holdsTool()) {
+            throw reject("duplicate_tool", "Client already has an active or late loan for this tool.");
+        }
+    }
+
+    // Cuenta el rechazo por motivo y devuelve la excepción para lanzarla
+    private InvalidOperationException reject(String reason, String message) {
+        meterRegistry.counter(REJECTIONS_METRIC, "reason", reason).increment();
+        return new InvalidOperationException(message);
     }
 
     // ########################################################################################################################################################
     // ####################################################### MÉTODOS DE DEVOLUCION ##########################################################################
     // ########################################################################################################################################################
     // MÉTODO ENVOLVENTE PARA DEVOLVER PRÉSTAMO CON FECHA DE DEVOLUCIÓN HOY
+    @Timed("loan.return")
     @Transactional
     public LoanEntity returnLoan(Long loanId, Long toolId, boolean damaged, boolean irreparable, UserEntity user) {
         return returnLoan(loanId, toolId, damaged, irreparable, user, LocalDate.now());
     }
 
     // MÉTODO PRINCIPAL PARA DEVOLVER PRÉSTAMO
+    @Timed("loan.return")
     @Transactional
     public LoanEntity returnLoan(Long loanId, Long toolId, boolean damaged, boolean irreparable, UserEntity user, LocalDate returnDate) {
         // 0. Obtener Préstamo y Herramienta ---
         LoanEntity loan = loanRepository.findById(loanId)
                 .orElseThrow(() -> new ResourceNotFoundException("Loan not found with id: " + loanId));
 
-        // 1. Verificar que el toolId recibido coincida con el del préstamo original
-        if (!loan.getTool().getId().equals(toolId)) {
-            throw new IllegalArgumentException("Tool ID (" + toolId + ") does not match the tool ID in the loan (" + loan.getTool().getId() + ").");
-        }
+        // 1. Validar herramienta, estado y fecha de devolución
+        if (returnDate == null) returnDate = LocalDate.now();
+        validateReturnable(loan, toolId, returnDate);
         ToolEntity tool = loan.getTool(); // Ya tenemos la herramienta desde el préstamo
 
-        // --- Validar estado del préstamo ---
-        if (loan.getStatus() != LoanStatus.ACTIVE && loan.getStatus() != LoanStatus.LATE) {
-            throw new InvalidOperationException("Loan is already closed and cannot be returned again.");
-        }
-
-        // --- Validar fecha de devolución ---
-        if (returnDate == null) returnDate = LocalDate.now();
-        if (returnDate.isBefore(loan.getStartDate())) {
-            throw new IllegalArgumentException("Return date cannot be before the loan start date.");
-        }
+        // Una sola versión de tarifas para todo el cálculo (no se mezclan valores si cambian a mitad de la devolución)
+        TariffSnapshot tariff = tariffService.getSnapshot();
 
         // ----------------------------------------------------------------------------------------------------------------------------------------------------
-        // --- Calcular Costo de Arriendo (ÉPICA 4 / RN Épica 2) ---
-        long rentalDays = ChronoUnit.DAYS.between(loan.getStartDate(), loan.getDueDate());
-        // RN: tarifa mínima siempre es 1 día
-        if (rentalDays < 1) {
-            rentalDays = 1;
-        }
-        // Obtener la tarifa diaria de arriendo (Necesita método en TariffService)
-        double rentalCost = rentalDays * tariffService.getDailyRentFee();
-        
-        // ----------------------------------------------------------------------------------------------------------------------------------------------------
-        // --- Calcular Multa por Atraso (ÉPICA 2 / 4) ---
-        long delayDays = ChronoUnit.DAYS.between(loan.getDueDate(), returnDate);
-        double lateFee = 0.0;
-        if (delayDays > 0) {
-            lateFee = delayDays * tariffService.getDailyLateFee();
-        }
-
-        // ----------------------------------------------------------------------------------------------------------------------------------------------------
-        // --- Calcular Penalidades por Daño (ÉPICA 1 / 2 / 4) ---
-        double damagePenalty = 0.0;
+        // --- Movimiento de la herramienta según su estado ---
         if (damaged) {
             if (irreparable) {
-                // Baja definitiva: cobrar reposición
-                damagePenalty = tool.getReplacementValue();
                 toolService.markAsDecommissioned(tool, user); // Esto ya registra DECOMMISSION en Kardex
             } else {
-                // Reparación: cobrar tarifa de reparación
-                damagePenalty = tariffService.getRepairFee();
                 toolService.markAsRepairing(tool, user); // Esto ya registra REPAIR en Kardex y ajusta stock
             }
         } else {
@@ -194,33 +296,171 @@ public class LoanService {
 
         // ----------------------------------------------------------------------------------------------------------------------------------------------------
         // --- Calcular Total a Pagar y Actualizar Préstamo ---
-        boolean ON_TIME = returnDate.isBefore(loan.getDueDate()) || returnDate.isEqual(loan.getDueDate());
-        boolean DELAYED = returnDate.isAfter(loan.getDueDate());
-        
-        if (ON_TIME) {
-            double totalAmountDue = rentalCost + damagePenalty;
-            loan.setTotalPenalty(totalAmountDue);
-        } else if (DELAYED) {
-            double totalAmountDue = rentalCost + lateFee + damagePenalty;
-            loan.setTotalPenalty(totalAmountDue);
-        }
+        loan.setTotalPenalty(computeAmountDue(loan, damaged, irreparable, returnDate, tariff));
 
+        boolean wasLate = loan.getStatus() == LoanStatus.LATE;
         loan.setReturnDate(returnDate);
         loan.setStatus(LoanStatus.RECEIVED); // Se recibe la herramienta, pendiente de pago
 
         // --- Guardar Préstamo ---
         LoanEntity savedLoan = loanRepository.save(loan);
+        clientLoanSummaryService.recordLoanReturned(loan.getClient().getId(), wasLate, loan.getTotalPenalty());
         clientService.updateStatus(loan.getClient().getId(), ClientStatus.RESTRICTED); // Cliente queda RESTRINGIDO hasta pagar
 
         // Devolver el préstamo actualizado
         return savedLoan;
     }
 
+    // --------------------------------------------------------------------------------------------------------------------------------------------------------
+    // --- DEVOLUCIÓN EN LOTE: un SELECT de préstamos, una versión de tarifas, UPDATEs agrupados por herramienta y cliente ---
+    // Cada ítem se valida por separado: los inválidos se rechazan con su motivo y el resto se devuelve en la misma transacción
+    @Timed("loan.return.batch")
+    @Transactional
+    public BatchReturnResult returnLoans(BatchReturnRequest request, UserEntity user) {
+        LocalDate returnDate = request.returnDate() != null ? request.returnDate() : LocalDate.now();
+        List<BatchReturnRequest.Item> items = request.items();
+
+        // 1. Cargar todos los préstamos con herramienta y cliente en una sola consulta
+        Set<Long> loanIds = items.stream().map(BatchReturnRequest.Item::loanId).collect(Collectors.toSet());
+        Map<Long, LoanEntity> loansById = loanRepository.findAllWithToolAndClientByIdIn(loanIds).stream()
+                .collect(Collectors.toMap(LoanEntity::getId, Function.identity()));
+
+        // 2. Una sola versión de tarifas para todo el lote
+        TariffSnapshot tariff = tariffService.getSnapshot();
+
+        // 3. Validar y calcular cada ítem; acumular los cambios por herramienta y por cliente
+        List<BatchReturnResult.Item> results = new ArrayList<>(items.size());
+        List<LoanEntity> returnedLoans = new ArrayList<>();
+        List<KardexEntry> movements = new ArrayList<>();
+        Map<Long, Integer> restockByTool = new LinkedHashMap<>();
+        Map<Long, Integer> repairByTool = new LinkedHashMap<>();
+        Map<Long, ClientReturnTotals> totalsByClient = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+
+        for (BatchReturnRequest.Item item : items) {
+            LoanEntity loan = loansById.get(item.loanId());
+            try {
+                if (!seen.add(item.loanId())) {
+                    throw new InvalidOperationException("Loan appears more than once in the batch.");
+                }
+                if (loan == null) {
+                    throw new ResourceNotFoundException("Loan not found with id: " + item.loanId());
+                }
+                validateReturnable(loan, item.toolId(), returnDate);
+                ToolEntity tool = loan.getTool();
+                boolean damaged = item.damaged();
+                boolean irreparable = damaged && item.irreparable();
+                if (damaged && tool.getStatus() == ToolStatus.DECOMMISSIONED) {
+                    throw new InvalidOperationException("Tool is already decommissioned.");
+                }
+
+                // Mismos movimientos que la devolución individual, agrupados por herramienta
+                if (!damaged) {
+                    restockByTool.merge(tool.getId(), 1, Integer::sum);
+                    movements.add(new KardexEntry(tool, MovementType.RETURN, 1, user));
+                } else if (irreparable) {
+                    movements.add(new KardexEntry(tool, MovementType.DECOMMISSION, 1, user));
+                } else {
+                    repairByTool.merge(tool.getId(), 1, Integer::sum);
+                    movements.add(new KardexEntry(tool, MovementType.REPAIR, 1, user));
+                }
+
+                double amountDue = computeAmountDue(loan, damaged, irreparable, returnDate, tariff);
+                totalsByClient.computeIfAbsent(loan.getClient().getId(), id -> new ClientReturnTotals())
+                        .add(loan.getStatus() == LoanStatus.LATE, amountDue);
+                loan.setTotalPenalty(amountDue);
+                loan.setReturnDate(returnDate);
+                loan.setStatus(LoanStatus.RECEIVED);
+                returnedLoans.add(loan);
+                results.add(BatchReturnResult.Item.ok(loan.getId(), item.toolId(), amountDue));
+            } catch (ResourceNotFoundException | InvalidOperationException | IllegalArgumentException e) {
+                results.add(BatchReturnResult.Item.rejected(item.loanId(), item.toolId(), e.getMessage()));
+            }
+        }
+
+        if (returnedLoans.isEmpty()) {
+            return BatchReturnResult.of(results);
+        }
+
+        // 4. Escribir: préstamos (batch JDBC), stock por herramienta, Kardex en un solo saveAll
+        loanRepository.saveAll(returnedLoans);
+        toolService.applyBatchReturn(restockByTool, repairByTool);
+        kardexService.registerMovements(movements);
+
+        // 5. Contadores por cliente y restricción de todos los clientes afectados (hasta pagar)
+        totalsByClient.forEach((clientId, totals) -> clientLoanSummaryService.recordLoansReturned(
+                clientId, totals.returned, totals.wereLate, totals.withAmountDue, totals.amountDue));
+        clientService.updateStatuses(totalsByClient.keySet(), ClientStatus.RESTRICTED);
+
+        return BatchReturnResult.of(results);
+    }
+
+    // Acumulado por cliente de los préstamos devueltos en un lote
+    private static final class ClientReturnTotals {
+        private int returned;
+        private int wereLate;
+        private int withAmountDue;
+        private double amountDue;
+
+        private void add(boolean wasLate, double due) {
+            returned++;
+            if (wasLate) wereLate++;
+            if (due > 0) withAmountDue++;
+            amountDue += due;
+        }
+    }
+
+    // VALIDA QUE EL PRÉSTAMO PUEDA DEVOLVERSE (misma herramienta, abierto, fecha posterior al inicio)
+    private void validateReturnable(LoanEntity loan, Long toolId, LocalDate returnDate) {
+        // 1. Verificar que el toolId recibido coincida con el del préstamo original
+        if (!loan.getTool().getId().equals(toolId)) {
+            throw new IllegalArgumentException("Tool ID (" + toolId + ") does not match the tool ID in the loan (" + loan.getTool().getId() + ").");
+        }
+
+        // 2. Validar estado del préstamo
+        if (loan.getStatus() != LoanStatus.ACTIVE && loan.getStatus() != LoanStatus.LATE) {
+            throw new InvalidOperationException("Loan is already closed and cannot be returned again.");
+        }
+
+        // 3. Validar fecha de devolución
+        if (returnDate.isBefore(loan.getStartDate())) {
+            throw new IllegalArgumentException("Return date cannot be before the loan start date.");
+        }
+    }
+
+    // CALCULA EL TOTAL A PAGAR: arriendo + multa por atraso + penalidad por daño
+    private double computeAmountDue(LoanEntity loan, boolean damaged, boolean irreparable, LocalDate returnDate, TariffSnapshot tariff) {
+        // --- Costo de Arriendo (ÉPICA 4 / RN Épica 2) ---
+        long rentalDays = ChronoUnit.DAYS.between(loan.getStartDate(), loan.getDueDate());
+        // RN: tarifa mínima siempre es 1 día
+        if (rentalDays < 1) {
+            rentalDays = 1;
+        }
+        double rentalCost = rentalDays * tariff.dailyRentFee();
+
+        // --- Multa por Atraso (ÉPICA 2 / 4) ---
+        long delayDays = ChronoUnit.DAYS.between(loan.getDueDate(), returnDate);
+        double lateFee = 0.0;
+        if (delayDays > 0) {
+            lateFee = delayDays * tariff.dailyLateFee();
+        }
+
+        // --- Penalidades por Daño (ÉPICA 1 / 2 / 4) ---
+        double damagePenalty = 0.0;
+        if (damaged) {
+            // Baja definitiva: cobrar reposición. Reparación: cobrar tarifa de reparación
+            damagePenalty = irreparable ? loan.getTool().getReplacementValue() : tariff.repairFee();
+        }
+
+        return rentalCost + lateFee + damagePenalty;
+    }
+
     // ########################################################################################################################################################
     // ####################################################### OTROS METODOS ##################################################################################
     // ########################################################################################################################################################
     // --------------------------------------------------------------------------------------------------------------------------------------------------------
     // --- MÉTODO MODIFICADO PARA MARCAR COMO PAGADO (SOLO PAGA, NO ACTIVA) ---
+    @Timed("loan.pay")
     @Transactional
     public LoanEntity markLoanAsPaid(Long loanId) {
         // 1. Encontrar el préstamo
@@ -233,9 +473,11 @@ public class LoanService {
         }
 
         // 3. Marcar como pagado (penalidad a 0) y CERRAR el préstamo
+        double amountPaid = loan.getTotalPenalty();
         loan.setTotalPenalty(0.0);
         loan.setStatus(LoanStatus.CLOSED); // <- Importante: pasa a CLOSED
         LoanEntity savedLoan = loanRepository.save(loan);
+        clientLoanSummaryService.recordLoanPaid(loan.getClient().getId(), amountPaid);
 
         // 4. NO intentamos reactivar al cliente aquí. Devolvemos el préstamo actualizado.
         return savedLoan;
@@ -271,4 +513,22 @@ public class LoanService {
     public List<LoanEntity> getLateLoans() {
         return loanRepository.findByStatus(LoanStatus.LATE);
     }
+
+    // --- Préstamos abiertos (ACTIVE + LATE) como proyección: completos, paginados o por keyset ---
+    @Transactional(readOnly = true)
+    public List<LoanSummary> getOpenLoanSummaries() {
+        return loanRepository.findSummariesByStatusIn(OPEN_STATUSES);
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<LoanSummary> getOpenLoansPage(int page, int size) {
+        return PageResponse.of(loanRepository.findSummaryPageByStatusIn(OPEN_STATUSES, PageRequests.byId(page, size)));
+    }
+
+    @Transactional(readOnly = true)
+    public ScrollResponse<LoanSummary> getOpenLoansAfter(Long afterId, int size) {
+        return ScrollResponse.of(
+                loanRepository.findSummariesByStatusInAfter(OPEN_STATUSES, PageRequests.after(afterId), PageRequests.firstSlice(size)),
+                LoanSummary::id);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package services;
+
+import app.utils.TableVersions;
+import dtos.OverdueSweepResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import repositories.ClientLoanSummaryRepository;
+import repositories.ClientRepository;
+import repositories.LoanRepository;
+
+import java.time.LocalDate;
+
+@Service
+public class OverdueLoanService {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanService.class);
+
+    private final LoanRepository loanRepository;
+    private final ClientRepository clientRepository;
+    private final ClientLoanSummaryRepository clientLoanSummaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TableVersions tableVersions;
+    private final int chunkSize;
+
+    // --- Métricas ---
+    private final Counter loansMarkedCounter;
+    private final Counter clientsRestrictedCounter;
+    private final Timer sweepTimer;
+
+    public OverdueLoanService(LoanRepository loanRepository,
+                              ClientRepository clientRepository,
+                              ClientLoanSummaryRepository clientLoanSummaryRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              TableVersions tableVersions,
+                              @Value("${loans.overdue.chunk-size:5000}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("loans.overdue.chunk-size must be positive.");
+        }
+        this.loanRepository = loanRepository;
+        this.clientRepository = clientRepository;
+        this.clientLoanSummaryRepository = clientLoanSummaryRepository;
+        this.tableVersions = tableVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.loansMarkedCounter = meterRegistry.counter("loans.overdue.marked");
+        this.clientsRestrictedCounter = meterRegistry.counter("loans.overdue.clients.restricted");
+        this.sweepTimer = meterRegistry.timer("loans.overdue.sweep");
+    }
+
+    // Ejecución programada (por defecto cada día a las 00:05)
+    @Scheduled(cron = "${loans.overdue.cron:0 5 0 * * *}")
+    public void scheduledSweep() {
+        markOverdueLoans(LocalDate.now());
+    }
+
+    // MARCA COMO LATE TODOS LOS PRÉSTAMOS ACTIVE CON dueDate < today, POR BLOQUES DE IDS
+    public OverdueSweepResult markOverdueLoans(LocalDate today) {
+        return sweepTimer.record(() -> sweep(today));
+    }
+
+    private OverdueSweepResult sweep(LocalDate today) {
+        // 1. Rango de ids a procesar (si no hay vencidos, no hay nada que hacer)
+        Long minId = loanRepository.findMinOverdueId(today);
+        Long maxId = loanRepository.findMaxOverdueId(today);
+        if (minId == null || maxId == null) {
+            return new OverdueSweepResult(0, 0, 0);
+        }
+
+        int loansMarked = 0;
+        int clientsRestricted = 0;
+        int chunks = 0;
+
+        // 2. Un UPDATE por bloque, cada bloque en su propia transacción (locks cortos)
+        for (long start = minId; start <= maxId; start += chunkSize) {
+            long fromId = start;
+            long toId = Math.min(start + chunkSize - 1, maxId);
+            int[] updated = transactionTemplate.execute(status -> updateChunk(today, fromId, toId));
+            clientsRestricted += updated[0];
+            loansMarked += updated[1];
+            chunks++;
+        }
+
+        // 3. Métricas de la ejecución
+        clientsRestrictedCounter.increment(clientsRestricted);
+        loansMarkedCounter.increment(loansMarked);
+        log.info("Overdue sweep for {}: {} loan(s) marked LATE, {} client(s) restricted in {} chunk(s).",
+                today, loansMarked, clientsRestricted, chunks);
+        return new OverdueSweepResult(loansMarked, clientsRestricted, chunks);
+    }
+
+    private int[] updateChunk(LocalDate today, long fromId, long toId) {
+        // Primero los clientes y sus contadores: las subconsultas aún ven los préstamos en ACTIVE
+        int clients = clientRepository.restrictClientsWithOverdueLoans(today, fromId, toId);
+        if (clients > 0) {
+            tableVersions.touch(TableVersions.Table.CLIENTS); // Al confirmar el bloque
+        }
+        clientLoanSummaryRepository.addOverdueLoans(today, fromId, toId);
+        int loans = loanRepository.markOverdueAsLate(today, fromId, toId);
+        return new int[] { clients, loans };
+    }
+}
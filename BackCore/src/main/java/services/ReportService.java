@@ -1,12 +1,18 @@
 package services;
 
+import dtos.ToolRanking;
 import entities.ClientEntity;
 import entities.LoanEntity;
 import entities.enums.ClientStatus;
 import entities.enums.LoanStatus;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import repositories.ClientRepository;
 import repositories.LoanRepository;
+import repositories.ToolLoanDailyRepository;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -16,13 +22,16 @@ public class ReportService {
 
     private final LoanRepository loanRepository;
     private final ClientRepository clientRepository; 
+    private final ToolLoanDailyRepository toolLoanDailyRepository;
 
-    public ReportService(LoanRepository loanRepository, ClientRepository clientRepository) {
+    public ReportService(LoanRepository loanRepository, ClientRepository clientRepository, ToolLoanDailyRepository toolLoanDailyRepository) {
         this.loanRepository = loanRepository;
         this.clientRepository = clientRepository;
+        this.toolLoanDailyRepository = toolLoanDailyRepository;
     }
 
     // --- RF6.1: Préstamos por estado (CON FILTRO DE FECHA OPCIONAL) ---
+    @Timed("report.query")
     public List<LoanEntity> getLoansByStatus(String status, LocalDate from, LocalDate to) {
         LoanStatus loanStatus = LoanStatus.valueOf(status);
         // Si las fechas son nulas, llama al método sin filtro
@@ -39,6 +48,7 @@ public class ReportService {
     }
 
     // --- RF6.2: Clientes con préstamos atrasados (CON FILTRO DE FECHA OPCIONAL) ---
+    @Timed("report.query")
     public List<ClientEntity> getClientsWithLateLoans(LocalDate from, LocalDate to) {
         // Si las fechas son nulas, busca todos los clientes con préstamos LATE
         if (from == null || to == null) {
@@ -55,18 +65,25 @@ public class ReportService {
         }
     }
 
-    // --- RF6.3: Ranking (sin cambios, ya acepta fechas) ---
-    public List<Object[]> getTopTools(LocalDate from, LocalDate to) {
+    // --- RF6.3: Ranking desde el agregado diario (tool_loan_daily), top-N opcional ---
+    @Timed("report.query")
+    @Transactional(readOnly = true)
+    public List<ToolRanking> getTopTools(LocalDate from, LocalDate to, Integer limit) {
         if (from == null || to == null) {
             throw new IllegalArgumentException("Date range is required for Top Tools report.");
         }
         if (from.isAfter(to)) {
             throw new IllegalArgumentException("Start date cannot be after end date.");
         }
-        return loanRepository.findTopToolsByDateRange(from, to);
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero.");
+        }
+        Pageable top = limit == null ? Pageable.unpaged() : PageRequest.of(0, limit);
+        return toolLoanDailyRepository.findRanking(from, to, top);
     }
 
     // --- Clientes restringidos ---
+    @Timed("report.query")
     public List<ClientEntity> getRestrictedClients() {
         return clientRepository.findByStatus(ClientStatus.RESTRICTED);
     }
@@ -1,17 +1,53 @@
 package services;
 
+import app.utils.TableVersions;
+import dtos.TariffSnapshot;
 import entities.TariffEntity;
 import repositories.TariffRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Supuesto de un solo escritor: las tarifas solo cambian con updateTariff, que publica el snapshot nuevo al instante
+// en la instancia que lo ejecuta. Con varias instancias, las demás ven el cambio cuando su snapshot caduca y se
+// recarga desde la BD (tariffs.snapshot.ttl), así que durante ese intervalo pueden calcular con las tarifas anteriores
 @Service
 public class TariffService {
 
+    private record Loaded(TariffSnapshot snapshot, long loadedAt) {}
+
     private final TariffRepository tariffRepository;
+    private final TableVersions tableVersions;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    // Tarifas vigentes en memoria (se carga en el primer acceso, se reemplaza completa en cada updateTariff y se
+    // recarga desde la BD al caducar)
+    private final AtomicReference<Loaded> snapshot = new AtomicReference<>();
+    private final AtomicBoolean reloading = new AtomicBoolean();
 
-    public TariffService(TariffRepository tariffRepository) {
+    @Autowired
+    public TariffService(TariffRepository tariffRepository, TableVersions tableVersions,
+                         @Value("${tariffs.snapshot.ttl:30s}") Duration ttl) {
+        this(tariffRepository, tableVersions, ttl, Clock.systemUTC());
+    }
+
+    public TariffService(TariffRepository tariffRepository, TableVersions tableVersions, Duration ttl, Clock clock) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Tariff snapshot TTL must be greater than zero.");
+        }
         this.tariffRepository = tariffRepository;
+        this.tableVersions = tableVersions;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
     }
 
     @Transactional(readOnly = true)
@@ -27,18 +63,70 @@ public class TariffService {
         current.setDailyRentFee(updated.getDailyRentFee());
         current.setDailyLateFee(updated.getDailyLateFee());
         current.setRepairFee(updated.getRepairFee());
-        return tariffRepository.save(current);
+        TariffEntity saved = tariffRepository.save(current);
+        publishSnapshot(TariffSnapshot.from(saved, 0L));
+        tableVersions.touch(TableVersions.Table.TARIFFS);
+        return saved;
+    }
+
+    // --- SNAPSHOT DE TARIFAS (sin acceso a BD en el camino de las peticiones, salvo la recarga al caducar) ---
+    public TariffSnapshot getSnapshot() {
+        Loaded current = snapshot.get();
+        if (current == null) {
+            // Primer acceso: cargar desde BD. Si un updateTariff publicó antes, se respeta esa versión
+            snapshot.compareAndSet(null, new Loaded(TariffSnapshot.from(getTariff(), 1L), clock.millis()));
+            return snapshot.get().snapshot();
+        }
+        if (clock.millis() - current.loadedAt() < ttlMillis || !reloading.compareAndSet(false, true)) {
+            return current.snapshot(); // Vigente, u otro hilo ya lo está recargando
+        }
+        try {
+            reload(current);
+        } finally {
+            reloading.set(false);
+        }
+        return snapshot.get().snapshot();
+    }
+
+    // Relee las tarifas (findAll va a la BD, no a la región "tariffs" de la caché de segundo nivel). La versión solo
+    // sube si los valores cambiaron; si updateTariff publicó mientras tanto, se conserva lo publicado
+    private void reload(Loaded current) {
+        TariffSnapshot previous = current.snapshot();
+        TariffSnapshot read = TariffSnapshot.from(getTariff(), previous.version());
+        TariffSnapshot next = read.equals(previous) ? previous : new TariffSnapshot(previous.version() + 1,
+                read.dailyRentFee(), read.dailyLateFee(), read.repairFee());
+        snapshot.compareAndSet(current, new Loaded(next, clock.millis()));
+    }
+
+    // Publica las nuevas tarifas con la versión siguiente, solo cuando la transacción confirma
+    private void publishSnapshot(TariffSnapshot values) {
+        Runnable publish = () -> snapshot.updateAndGet(previous -> new Loaded(new TariffSnapshot(
+                previous == null ? 1L : previous.snapshot().version() + 1,
+                values.dailyRentFee(),
+                values.dailyLateFee(),
+                values.repairFee()), clock.millis()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
     }
 
     public double getDailyLateFee() {
-        return getTariff().getDailyLateFee();
+        return getSnapshot().dailyLateFee();
     }
 
     public double getDailyRentFee() {
-        return getTariff().getDailyRentFee();
+        return getSnapshot().dailyRentFee();
     }
 
     public double getRepairFee() {
-        return getTariff().getRepairFee();
+        return getSnapshot().repairFee();
     }
 }
@@ -0,0 +1,251 @@
+package services;
+
+import dtos.ToolAvailability;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Feed SSE de cambios de disponibilidad (GET /tools/availability): cada cambio de stock/estado confirmado en ToolService
+// se numera y se envía a las pantallas conectadas, que así no vuelven a descargar el catálogo completo.
+//   - ids "<arranque>-<secuencia>": quien reconecta con Last-Event-ID recibe lo que se perdió si sigue en el historial
+//     (replay-size); si no, o si el servidor se reinició, recibe 'reset' y debe recargar GET /tools
+//   - cada conexión tiene su buffer acotado (connection-buffer): una pantalla lenta que lo llena se desconecta (reconecta
+//     con su Last-Event-ID) en vez de acumular memoria o frenar la transacción que publica
+@Service
+public class ToolAvailabilityFeed {
+
+    public static final String CHANGE_EVENT = "availability";
+    public static final String RESET_EVENT = "reset";
+
+    private record Change(long sequence, ToolAvailability availability) {}
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final int replaySize;
+    private final int connectionBuffer;
+    private final long timeoutMillis;
+    private final Deque<Change> history = new ArrayDeque<>(); // Protegido por 'this', igual que lastSequence
+    private long lastSequence;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // El envío a cada conexión (E/S bloqueante) corre en hilos virtuales, nunca en el hilo que confirma la transacción
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter overflowCounter;
+
+    public ToolAvailabilityFeed(MeterRegistry meterRegistry,
+                                @Value("${tools.availability.replay-size:1024}") int replaySize,
+                                @Value("${tools.availability.connection-buffer:256}") int connectionBuffer,
+                                @Value("${tools.availability.timeout:30m}") Duration timeout) {
+        if (replaySize <= 0 || connectionBuffer <= 0) {
+            throw new IllegalArgumentException("tools.availability replay size and connection buffer must be positive.");
+        }
+        this.replaySize = replaySize;
+        this.connectionBuffer = connectionBuffer;
+        this.timeoutMillis = timeout.toMillis();
+        this.overflowCounter = meterRegistry.counter("tools.availability.overflows");
+        Gauge.builder("tools.availability.subscribers", subscriptions, Set::size).register(meterRegistry);
+    }
+
+    // --- PUBLICACIÓN ---
+
+    // El cambio se envía al confirmar la transacción (un rollback no publica nada). Varios cambios de la misma
+    // herramienta en una transacción salen como uno solo, con los valores finales
+    public void publish(ToolAvailability availability) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(availability));
+            return;
+        }
+        pendingChanges().byTool.put(availability.toolId(), availability);
+    }
+
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.feed() == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private final class PendingChanges implements TransactionSynchronization {
+        private final Map<Long, ToolAvailability> byTool = new LinkedHashMap<>();
+
+        private ToolAvailabilityFeed feed() {
+            return ToolAvailabilityFeed.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            append(byTool.values());
+        }
+    }
+
+    private synchronized void append(Collection<ToolAvailability> changes) {
+        for (ToolAvailability availability : changes) {
+            Change change = new Change(++lastSequence, availability);
+            history.addLast(change);
+            if (history.size() > replaySize) {
+                history.removeFirst();
+            }
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(change);
+            }
+        }
+    }
+
+    // --- SUSCRIPCIÓN ---
+
+    // lastEventId: el último evento que recibió el cliente (null en la primera conexión)
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(emitter);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+
+        // Reenvío y alta bajo el mismo candado que append: ningún cambio queda entre lo reenviado y lo nuevo
+        synchronized (this) {
+            List<Change> missed = missedSince(lastEventId);
+            if (missed == null || missed.size() > connectionBuffer) {
+                // Primera conexión o hueco irrecuperable: el cliente recarga el catálogo y sigue desde aquí
+                subscription.reset(lastSequence);
+            } else {
+                missed.forEach(subscription::offer);
+            }
+            subscriptions.add(subscription);
+        }
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    // Cambios posteriores a lastEventId, o null si no se pueden reconstruir desde el historial
+    private List<Change> missedSince(String lastEventId) {
+        if (lastEventId == null) {
+            return null;
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null; // Id de otro arranque del servidor (o mal formado)
+        }
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long oldest = history.isEmpty() ? lastSequence + 1 : history.getFirst().sequence();
+        if (after > lastSequence || after < oldest - 1) {
+            return null;
+        }
+        List<Change> missed = new ArrayList<>();
+        for (Change change : history) {
+            if (change.sequence() > after) {
+                missed.add(change);
+            }
+        }
+        return missed;
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // Una conexión: buffer acotado y a lo sumo un hilo enviando a la vez (el orden de los eventos se conserva)
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(connectionBuffer);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscription(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Change change) {
+            enqueue(SseEmitter.event().id(eventId(change.sequence())).name(CHANGE_EVENT).data(change.availability()));
+        }
+
+        private void reset(long sequence) {
+            enqueue(SseEmitter.event().id(eventId(sequence)).name(RESET_EVENT).data("resync"));
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                // Buffer lleno: se corta la conexión y el cliente recupera lo perdido al reconectar
+                overflowCounter.increment();
+                close();
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = buffer.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado o emisor ya completado (timeout): el contenedor cierra la petición
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // Un evento que llegó justo después del último poll
+            if (!closed && !buffer.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscriptions.remove(this);
+            buffer.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+            subscription.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+}
@@ -0,0 +1,48 @@
+package services;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import repositories.ToolLoanDailyRepository;
+
+import java.time.LocalDate;
+
+// Mantiene el agregado diario de préstamos por herramienta (tool_loan_daily) usado por el ranking
+@Service
+public class ToolLoanRollupService {
+
+    private final ToolLoanDailyRepository toolLoanDailyRepository;
+
+    public ToolLoanRollupService(ToolLoanDailyRepository toolLoanDailyRepository) {
+        this.toolLoanDailyRepository = toolLoanDailyRepository;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Se invoca dentro de la transacción que crea el préstamo: si el préstamo se revierte, el contador también.
+    // Primer préstamo del día: INSERT de la fila. Si otra transacción la crea a la vez y ya confirmó, se repite el
+    // UPDATE; si aún no confirmó, el INSERT falla por clave duplicada y OptimisticRetry repite el préstamo completo
+    @Transactional
+    public void recordLoans(Long toolId, LocalDate startDate, long count) {
+        if (toolId == null || startDate == null || count <= 0) {
+            throw new IllegalArgumentException("Tool, start date and a positive count are required.");
+        }
+        if (toolLoanDailyRepository.addLoans(toolId, startDate, count) == 0
+                && toolLoanDailyRepository.insertDay(toolId, startDate, count) == 0) {
+            toolLoanDailyRepository.addLoans(toolId, startDate, count);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Recalcula el rango desde la tabla de préstamos (carga inicial o corrección); devuelve las filas generadas
+    @Transactional
+    public int backfill(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Date range is required for backfill.");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date cannot be after end date.");
+        }
+        // 1. Borrar el rango y 2. reinsertarlo agregado, en la misma transacción
+        toolLoanDailyRepository.deleteRange(from, to);
+        return toolLoanDailyRepository.rebuildRange(from, to);
+    }
+}
@@ -1,11 +1,21 @@
 package services;
 
+import app.utils.PageRequests;
+import app.utils.TableVersions;
+import dtos.PageResponse;
+import dtos.ScrollResponse;
+import dtos.ToolAvailability;
 import dtos.UpdateToolRequest;
 import entities.ToolEntity;
 import entities.UserEntity;
 import entities.enums.MovementType;
 import entities.enums.ToolStatus;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.Valid;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
@@ -13,7 +23,10 @@ import repositories.ToolRepository;
 import app.exceptions.ResourceNotFoundException;
 import app.exceptions.InvalidOperationException;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Validated
@@ -21,10 +34,17 @@ public class ToolService {
 
     private final ToolRepository toolRepository;
     private final KardexService kardexService;
+    private final EntityManager entityManager;
+    private final ToolAvailabilityFeed availabilityFeed;
+    private final TableVersions tableVersions;
 
-    public ToolService(ToolRepository toolRepository, KardexService kardexService) {
+    public ToolService(ToolRepository toolRepository, KardexService kardexService, EntityManager entityManager,
+                       ToolAvailabilityFeed availabilityFeed, TableVersions tableVersions) {
         this.toolRepository = toolRepository;
         this.kardexService = kardexService;
+        this.entityManager = entityManager;
+        this.availabilityFeed = availabilityFeed;
+        this.tableVersions = tableVersions;
     }
 
     // --- MÉTODOS DE CONSULTA ---
@@ -33,6 +53,16 @@ public class ToolService {
         return toolRepository.findAll();
     }
 
+    public PageResponse<ToolEntity> getToolsPage(int page, int size) {
+        return PageResponse.of(toolRepository.findAll(PageRequests.byId(page, size)));
+    }
+
+    public ScrollResponse<ToolEntity> getToolsAfter(Long afterId, int size) {
+        return ScrollResponse.of(
+                toolRepository.findByIdGreaterThanOrderByIdAsc(PageRequests.after(afterId), PageRequests.firstSlice(size)),
+                ToolEntity::getId);
+    }
+
     public ToolEntity getToolById(Long id) {
         return toolRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Tool not found with id: " + id));
@@ -61,8 +91,9 @@ public class ToolService {
         ToolEntity saved = toolRepository.save(tool);
         // Registrar movimiento en Kardex solo si el stock inicial es mayor que 0
         if (saved.getStock() > 0) {
-            kardexService.registerMovement(saved, MovementType.INCOME, saved.getStock(), user);
+            kardexService.registerManagedMovement(saved, MovementType.INCOME, saved.getStock(), user);
         }
+        availabilityChanged(ToolAvailability.of(saved));
         return saved;
     }
 
@@ -77,7 +108,9 @@ public class ToolService {
         existingTool.setName(updateRequest.name());
         existingTool.setCategory(updateRequest.category());
         existingTool.setReplacementValue(updateRequest.replacementValue()); // @Min(1000) se valida en el DTO/Controller
-        return toolRepository.save(existingTool);
+        ToolEntity saved = toolRepository.save(existingTool);
+        tableVersions.touch(TableVersions.Table.TOOLS); // Sin cambio de disponibilidad: solo invalida el ETag del catálogo
+        return saved;
     }
 
     @Transactional
@@ -96,7 +129,8 @@ public class ToolService {
         tool.setStock(0);
         ToolEntity saved = toolRepository.save(tool);
 
-        kardexService.registerMovement(saved, MovementType.DECOMMISSION, quantityToDecommission, user);
+        kardexService.registerManagedMovement(saved, MovementType.DECOMMISSION, quantityToDecommission, user);
+        availabilityChanged(ToolAvailability.of(saved));
         return saved;
     }
 
@@ -111,18 +145,31 @@ public class ToolService {
         }
         tool.setStock(newStock);
         toolRepository.save(tool);
-        kardexService.registerMovement(tool, MovementType.RETURN, 1, user);
+        kardexService.registerManagedMovement(tool, MovementType.RETURN, 1, user);
+        availabilityChanged(ToolAvailability.of(tool));
     }
 
     @Transactional
     public void decrementStockForLoan(ToolEntity tool, UserEntity user) {
-        tool.setStock(tool.getStock() - 1);
+        // Si otro préstamo concurrente se llevó la última unidad, la reserva falla
+        if (!reserveForLoan(tool)) {
+            throw new InvalidOperationException("Tool is not available or out of stock.");
+        }
+        kardexService.registerManagedMovement(tool, MovementType.LOAN, 1, user);
+    }
 
-        if (tool.getStock() == 0) {
-            tool.setStatus(ToolStatus.LOANED);
+    // Descuenta 1 unidad con un UPDATE condicional (stock > 0) y devuelve si ganó la reserva
+    @Transactional
+    public boolean reserveForLoan(ToolEntity tool) {
+        if (toolRepository.reserveUnit(tool.getId()) == 0) {
+            return false;
         }
-        toolRepository.save(tool);
-        kardexService.registerMovement(tool, MovementType.LOAN, 1, user);
+        // La fila queda bloqueada hasta el commit: recargar la entidad (stock, estado y versión) desde la BD.
+        // Copiar el stock a mano dejaría la versión anterior en la entidad y su siguiente flush fallaría por conflicto.
+        // refresh() además invalida solo la entrada de esta herramienta en la región "tools"
+        entityManager.refresh(tool);
+        availabilityChanged(ToolAvailability.of(tool));
+        return true;
     }
 
     @Transactional
@@ -132,7 +179,39 @@ public class ToolService {
         }
         //Aumento unidades en reparación y no toco stock disponible
         tool.setInRepair(tool.getInRepair() + 1);
-        kardexService.registerMovement(tool, MovementType.REPAIR, 1, user); // Registra que 1 unidad entró a reparación
+        kardexService.registerManagedMovement(tool, MovementType.REPAIR, 1, user); // Registra que 1 unidad entró a reparación
+        availabilityChanged(ToolAvailability.of(tool));
+    }
+
+    // Devolución en lote: un UPDATE por herramienta (repuestas y a reparación) y una sola lectura de la disponibilidad
+    // resultante para el feed (las entidades en memoria no ven los UPDATE masivos)
+    @Transactional
+    public void applyBatchReturn(Map<Long, Integer> restockByTool, Map<Long, Integer> repairByTool) {
+        restockByTool.forEach(toolRepository::restockUnits);
+        repairByTool.forEach(toolRepository::addInRepair);
+
+        Set<Long> changed = new HashSet<>(restockByTool.keySet());
+        changed.addAll(repairByTool.keySet());
+        if (!changed.isEmpty()) {
+            changed.forEach(this::invalidateCachedTool);
+            toolRepository.findAvailabilityByIdIn(changed).forEach(this::availabilityChanged);
+        }
+    }
+
+    // Los UPDATE nativos de stock no pasan por la caché de segundo nivel: se invalida solo la entrada de la herramienta,
+    // igual que hace refresh(). El bloqueo suave dura hasta el fin de la transacción, así ninguna lectura concurrente
+    // vuelve a cachear la fila anterior al UPDATE
+    private void invalidateCachedTool(Long toolId) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(ToolEntity.class);
+        EntityDataAccess cache = persister.getCacheAccessStrategy();
+        if (cache == null) {
+            return;
+        }
+        Object key = cache.generateCacheKey(toolId, persister, session.getFactory(), session.getTenantIdentifier());
+        SoftLock lock = cache.lockItem(session, key, null);
+        cache.remove(session, key);
+        session.getActionQueue().registerProcess((success, s) -> cache.unlockItem(s, key, lock));
     }
 
     @Transactional
@@ -141,7 +220,7 @@ public class ToolService {
         if (tool.getStatus() == ToolStatus.DECOMMISSIONED) {
             throw new InvalidOperationException("Tool is already decommissioned.");
         }
-        kardexService.registerMovement(tool, MovementType.DECOMMISSION, 1, user);
+        kardexService.registerManagedMovement(tool, MovementType.DECOMMISSION, 1, user);
     }
 
 
@@ -179,8 +258,15 @@ public class ToolService {
         }
 
         ToolEntity saved = toolRepository.save(tool);
-        kardexService.registerMovement(saved, movementType, Math.abs(quantityChange), user);
+        kardexService.registerManagedMovement(saved, movementType, Math.abs(quantityChange), user);
+        availabilityChanged(ToolAvailability.of(saved));
 
         return saved;
     }
-}
\ No newline at end of file
+
+    // Cambio de stock/estado: delta para el feed SSE y nueva versión del catálogo (ETag de GET /tools)
+    private void availabilityChanged(ToolAvailability availability) {
+        availabilityFeed.publish(availability);
+        tableVersions.touch(TableVersions.Table.TOOLS);
+    }
+}
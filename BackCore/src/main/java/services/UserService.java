@@ -1,5 +1,6 @@
 package services;
 
+import app.utils.UserLookupCache;
 import entities.UserEntity;
 import repositories.UserRepository;
 import org.springframework.stereotype.Service;
@@ -10,13 +11,24 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserLookupCache userCache;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserLookupCache userCache) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
     }
 
+    // Único camino de escritura de usuarios: aquí se invalida UserLookupCache, la única caché de usuarios
     public UserEntity createUser(UserEntity user) {
-        return userRepository.save(user);
+        boolean replacing = user.getId() != null;
+        UserEntity saved = userRepository.save(user);
+        if (replacing) {
+            // Reemplazo (cambio de rol o de username): la entrada vieja puede estar bajo otro username; hay pocos usuarios
+            userCache.invalidateAll();
+        } else {
+            userCache.invalidate(saved.getUsername());
+        }
+        return saved;
     }
 
     public Optional<UserEntity> findByUsername(String username) {
@@ -0,0 +1,59 @@
+-- ==============================================================================================================
+-- V1: esquema base (equivalente al que generaba Hibernate con ddl-auto, ahora versionado)
+-- ==============================================================================================================
+CREATE TABLE users (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username    VARCHAR(255),
+    password    VARCHAR(255),
+    role        VARCHAR(255)
+);
+
+CREATE TABLE tariffs (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    daily_rent_fee  INTEGER,
+    daily_late_fee  INTEGER,
+    repair_fee      INTEGER
+);
+
+CREATE TABLE clients (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name    VARCHAR(255),
+    rut     VARCHAR(255),
+    phone   VARCHAR(255),
+    email   VARCHAR(255),
+    status  VARCHAR(255)
+);
+
+CREATE TABLE tools (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name                VARCHAR(255),
+    category            VARCHAR(255),
+    status              VARCHAR(255),
+    stock               INTEGER,
+    in_repair           INTEGER,
+    replacement_value   INTEGER
+);
+
+-- Préstamos y Kardex usan secuencias con asignación por bloques de 50 (ver @SequenceGenerator)
+CREATE SEQUENCE loans_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE kardex_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE loans (
+    id              BIGINT PRIMARY KEY,
+    client_id       BIGINT NOT NULL REFERENCES clients (id),
+    tool_id         BIGINT NOT NULL REFERENCES tools (id),
+    start_date      DATE,
+    due_date        DATE,
+    return_date     DATE,
+    status          VARCHAR(255),
+    total_penalty   DOUBLE PRECISION NOT NULL
+);
+
+CREATE TABLE kardex (
+    id              BIGINT PRIMARY KEY,
+    tool_id         BIGINT NOT NULL REFERENCES tools (id),
+    user_id         BIGINT NOT NULL REFERENCES users (id),
+    type            VARCHAR(255),
+    movement_date   TIMESTAMP(6),
+    quantity        INTEGER
+);
@@ -0,0 +1,27 @@
+-- ==============================================================================================================
+-- V2: índices para los predicados de las consultas más frecuentes
+-- ==============================================================================================================
+
+-- client_id = ? AND status ...: ¿ya tiene esta herramienta? en cada préstamo (existsByClient_IdAndTool_IdAndStatusIn,
+-- countByClient_IdAndTool_IdInAndStatusIn), préstamos impagos del cliente (findByClientAndStatusAndTotalPenaltyGreaterThan)
+-- y ClientLoanSummaryRepository.rebuildClient. Los contadores de elegibilidad salen de client_loan_summary, pero estas
+-- consultas siguen filtrando loans por cliente
+CREATE INDEX idx_loans_client_status ON loans (client_id, status);
+
+-- LoanRepository.findByStatusAndStartDateBetween / findTopToolsByDateRange (reportes por estado y fecha de inicio)
+CREATE INDEX idx_loans_status_start_date ON loans (status, start_date);
+
+-- Barrido de atrasados: status = 'ACTIVE' AND due_date < hoy (findMin/MaxOverdueId, markOverdueAsLate)
+CREATE INDEX idx_loans_status_due_date ON loans (status, due_date);
+
+-- LoanRepository.findByTool (clave foránea sin índice)
+CREATE INDEX idx_loans_tool ON loans (tool_id);
+
+-- KardexRepository.findByTool_Id / findByTool_IdAndType / findMovementsByToolId
+CREATE INDEX idx_kardex_tool_movement_date ON kardex (tool_id, movement_date);
+
+-- KardexRepository: listados y exportación por rango de fechas
+CREATE INDEX idx_kardex_movement_date ON kardex (movement_date);
+
+-- ClientRepository.existsByRut: el RUT es único (ClientService rechaza duplicados)
+CREATE UNIQUE INDEX ux_clients_rut ON clients (rut);
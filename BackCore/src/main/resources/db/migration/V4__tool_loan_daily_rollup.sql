@@ -0,0 +1,17 @@
+-- ==============================================================================================================
+-- V4: agregado diario de préstamos por herramienta para el ranking (RF6.3)
+-- ==============================================================================================================
+CREATE TABLE tool_loan_daily (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tool_id     BIGINT NOT NULL REFERENCES tools (id),
+    loan_day    DATE NOT NULL,
+    loan_count  BIGINT NOT NULL,
+    CONSTRAINT ux_tool_loan_daily_tool_day UNIQUE (tool_id, loan_day)
+);
+
+-- El ranking filtra por rango de días
+CREATE INDEX idx_tool_loan_daily_day ON tool_loan_daily (loan_day);
+
+-- Carga inicial con los préstamos existentes
+INSERT INTO tool_loan_daily (tool_id, loan_day, loan_count)
+SELECT tool_id, start_date, COUNT(*) FROM loans WHERE start_date IS NOT NULL GROUP BY tool_id, start_date;
@@ -0,0 +1,22 @@
+-- ==============================================================================================================
+-- V5: modelo de lectura por cliente (contadores de préstamos y deuda) para elegibilidad y reactivación
+-- ==============================================================================================================
+CREATE TABLE client_loan_summary (
+    client_id           BIGINT PRIMARY KEY REFERENCES clients (id),
+    open_loans          INTEGER NOT NULL,
+    late_loans          INTEGER NOT NULL,
+    unpaid_loans        INTEGER NOT NULL,
+    outstanding_balance DOUBLE PRECISION NOT NULL,
+    last_activity       TIMESTAMP(6)
+);
+
+-- Carga inicial desde los préstamos existentes (misma fórmula que ClientLoanSummaryRepository.rebuildAll)
+INSERT INTO client_loan_summary (client_id, open_loans, late_loans, unpaid_loans, outstanding_balance, last_activity)
+SELECT c.id,
+       COALESCE(SUM(CASE WHEN l.status IN ('ACTIVE', 'LATE') THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN l.status = 'LATE' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN l.status = 'RECEIVED' AND l.total_penalty > 0 THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN l.status = 'RECEIVED' THEN l.total_penalty ELSE 0 END), 0),
+       CAST(MAX(COALESCE(l.return_date, l.start_date)) AS TIMESTAMP)
+FROM clients c LEFT JOIN loans l ON l.client_id = c.id
+GROUP BY c.id;
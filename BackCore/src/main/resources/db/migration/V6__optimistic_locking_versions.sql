@@ -0,0 +1,4 @@
+-- Columnas de versión para bloqueo optimista (@Version en ToolEntity y LoanEntity).
+-- Las filas existentes parten en 0; cada UPDATE (por entidad o masivo) incrementa la versión.
+ALTER TABLE tools ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE loans ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -1,4 +1,7 @@
 -- ==============================================================================================================
+-- V3: datos de demostración (solo se cargan si db/seed está en spring.flyway.locations)
+-- ==============================================================================================================
+-- ==============================================================================================================
 -- USERS (EP. 7)
 -- ==============================================================================================================
 INSERT INTO users (username, password, role) VALUES 
@@ -84,27 +87,31 @@ INSERT INTO tools (name, category, status, stock, in_repair, replacement_value)
 --        Los préstamos cerrados con multa utilizan CLIENTES RESTRINGIDOS (IDs 1-7, 18-20).
 -- ==============================================================================================================
 -- 5 ACTIVE LOANS (Vigentes - Reporte Activo)
-INSERT INTO loans (client_id, tool_id, start_date, due_date, status, total_penalty) VALUES
-(1, 1,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0),
-(2, 2,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0),
-(3, 3,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0),
-(4, 7,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0),
-(5, 8,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0);
+INSERT INTO loans (id, client_id, tool_id, start_date, due_date, status, total_penalty) VALUES
+(1, 1, 1,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0),
+(2, 2, 2,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0),
+(3, 3, 3,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0),
+(4, 4, 7,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0),
+(5, 5, 8,  CURRENT_DATE - INTERVAL '5 days',  CURRENT_DATE + INTERVAL '5 days',  'ACTIVE', 0);
 
 -- ==============================================================================================================
 -- 3 LATE LOANS (Atrasados - Reporte Atrasado/Clientes Atrasados)
-INSERT INTO loans (client_id, tool_id, start_date, due_date, status, total_penalty) VALUES
-(15, 1,  CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '7 days', 'LATE', 0),
-(16, 2,  CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '7 days', 'LATE', 0),
-(17, 3,  CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '7 days', 'LATE', 0);
+INSERT INTO loans (id, client_id, tool_id, start_date, due_date, status, total_penalty) VALUES
+(6, 15, 1,  CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '7 days', 'LATE', 0),
+(7, 16, 2,  CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '7 days', 'LATE', 0),
+(8, 17, 3,  CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '7 days', 'LATE', 0);
 
 -- ==============================================================================================================
 -- 3 RECEIVED LOANS (RECEIVED - Usados para historial de multas y Kardex)
-INSERT INTO loans (client_id, tool_id, start_date, due_date, return_date, status, total_penalty) VALUES
+INSERT INTO loans (id, client_id, tool_id, start_date, due_date, return_date, status, total_penalty) VALUES
 -- Cliente 18 (Miguel Lagos - RESTRICTED): Devuelto 1 día tarde. Multa = (1 * 5000) + (10 * 1000).
-(18, 13, CURRENT_DATE - INTERVAL '30 days', CURRENT_DATE - INTERVAL '20 days', CURRENT_DATE - INTERVAL '19 days', 'RECEIVED', 15000), 
+(9, 18, 13, CURRENT_DATE - INTERVAL '30 days', CURRENT_DATE - INTERVAL '20 days', CURRENT_DATE - INTERVAL '19 days', 'RECEIVED', 15000), 
 -- Cliente 19 (Miguel Cárcamo - RESTRICTED): Devuelto 3 días tarde. Multa = (3 * 5000) + (10 * 1000).
-(19, 14, CURRENT_DATE - INTERVAL '25 days', CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '12 days', 'RECEIVED', 25000),
+(10, 19, 14, CURRENT_DATE - INTERVAL '25 days', CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '12 days', 'RECEIVED', 25000),
 -- Cliente 20 (Loreto Núñez - RESTRICTED): Devuelto a tiempo, con cargo por reparación. Cargo = 10000 + (10 * 1000).
-(20, 15, CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '5 days', CURRENT_DATE - INTERVAL '5 days', 'RECEIVED', 20000);
+(11, 20, 15, CURRENT_DATE - INTERVAL '15 days', CURRENT_DATE - INTERVAL '5 days', CURRENT_DATE - INTERVAL '5 days', 'RECEIVED', 20000);
 
+-- ==============================================================================================================
+-- Los préstamos usan secuencia (allocationSize 50): avanzar la secuencia por sobre los ids cargados arriba
+-- ==============================================================================================================
+SELECT setval('loans_seq', 100);
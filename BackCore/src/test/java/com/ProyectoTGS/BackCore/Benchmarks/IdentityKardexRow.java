@@ -0,0 +1,40 @@
+package com.ProyectoTGS.BackCore.Benchmarks;
+
+import entities.ToolEntity;
+import entities.UserEntity;
+import entities.enums.MovementType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Réplica de KardexEntity con el mapeo anterior (IDENTITY) para comparar en el benchmark
+@Entity
+@Table(name = "kardex_identity_bench")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdentityKardexRow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "tool_id", nullable = false)
+    private ToolEntity tool;
+
+    @Enumerated(EnumType.STRING)
+    private MovementType type;
+
+    @Column(name = "movement_date")
+    private LocalDateTime movementDate;
+
+    private Integer quantity;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private UserEntity user;
+}
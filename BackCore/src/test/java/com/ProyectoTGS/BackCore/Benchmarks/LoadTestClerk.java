@@ -0,0 +1,139 @@
+package com.ProyectoTGS.BackCore.Benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Un empleado de mesón simulado: repite un guion de peticiones contra la aplicación hasta que vence la fase.
+// Cada empleado atiende su propio subconjunto de clientes del "mostrador" (ver LoadTestDataSeeder), así dos empleados
+// nunca prestan al mismo cliente a la vez; las herramientas sí se comparten (contención real sobre el stock).
+public final class LoadTestClerk {
+
+    public enum Script {
+        // Préstamo -> devolución -> pago -> reactivación del cliente, y cada REPORT_EVERY vueltas un reporte
+        COUNTER,
+        // Solo lecturas: ranking, listado de préstamos abiertos, resumen de cliente y ficha de herramienta
+        REPORTS
+    }
+
+    private static final int REPORT_EVERY = 5;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final String bearer;
+    private final LoadTestDataSeeder.Dataset dataset;
+    private final int clerk;
+    private final int clerks;
+    private final Random random;
+
+    public LoadTestClerk(HttpClient http, String baseUrl, String token, LoadTestDataSeeder.Dataset dataset,
+                         int clerk, int clerks) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.bearer = "Bearer " + token;
+        this.dataset = dataset;
+        this.clerk = clerk;
+        this.clerks = clerks;
+        this.random = new Random(clerk);
+    }
+
+    public void run(Script script, Instant end, LoadTestRecorder recorder) {
+        for (int round = 1; Instant.now().isBefore(end); round++) {
+            if (script == Script.COUNTER) {
+                counterRound(recorder);
+                if (round % REPORT_EVERY == 0) {
+                    reportRound(recorder);
+                }
+            } else {
+                reportRound(recorder);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    private void counterRound(LoadTestRecorder recorder) {
+        long clientId = counterClient();
+        long toolId = randomTool();
+        LocalDate today = LocalDate.now();
+
+        // 1. Préstamo (si falla no hay nada que devolver en esta vuelta)
+        JsonNode loan = send(recorder, "POST /loans", post("/loans", String.format(
+                "{\"clientId\":%d,\"toolId\":%d,\"startDate\":\"%s\",\"dueDate\":\"%s\"}",
+                clientId, toolId, today, today.plusDays(7))));
+        if (loan == null) {
+            return;
+        }
+        long loanId = loan.get("id").asLong();
+
+        // 2. Devolución en buen estado, 3. pago y 4. reactivación del cliente (la devolución lo deja RESTRICTED)
+        JsonNode returned = send(recorder, "PUT /loans/{id}/return", request("/loans/" + loanId + "/return")
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(String.format(
+                        "{\"toolId\":%d,\"damaged\":false,\"irreparable\":false}", toolId))));
+        if (returned == null) {
+            return;
+        }
+        send(recorder, "PATCH /loans/{id}/pay", request("/loans/" + loanId + "/pay")
+                .method("PATCH", HttpRequest.BodyPublishers.noBody()));
+        send(recorder, "PATCH /clients/{id}/activate", request("/clients/" + clientId + "/activate")
+                .method("PATCH", HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private void reportRound(LoadTestRecorder recorder) {
+        LocalDate today = LocalDate.now();
+        send(recorder, "GET /reports/tools/top", request(String.format(
+                "/reports/tools/top?from=%s&to=%s&limit=10", today.minusDays(30), today)).GET());
+        send(recorder, "GET /loans/page", request("/loans/page?page=" + random.nextInt(5) + "&size=20").GET());
+        send(recorder, "GET /clients/{id}/summary", request("/clients/" + anyClient() + "/summary").GET());
+        send(recorder, "GET /tools/{id}", request("/tools/" + randomTool()).GET());
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Mide la petición completa (incluida la lectura del cuerpo); devuelve el JSON si respondió 2xx, si no null
+    private JsonNode send(LoadTestRecorder recorder, String endpoint, HttpRequest.Builder builder) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = http.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            boolean ok = response.statusCode() / 100 == 2;
+            recorder.record(endpoint, System.nanoTime() - start, ok);
+            return ok && response.body().length > 0 ? JSON.readTree(response.body()) : null;
+        } catch (IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, false);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Load test interrupted", e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Authorization", bearer);
+    }
+
+    private HttpRequest.Builder post(String path, String body) {
+        return request(path).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    // Clientes del mostrador que le tocan a este empleado: índices clerk, clerk + clerks, clerk + 2*clerks, ...
+    private long counterClient() {
+        int perClerk = Math.max(1, (dataset.counterClients() - clerk + clerks - 1) / clerks);
+        return dataset.firstClientId() + clerk + (long) random.nextInt(perClerk) * clerks;
+    }
+
+    private long anyClient() {
+        return dataset.firstClientId() + random.nextInt(dataset.clients());
+    }
+
+    private long randomTool() {
+        return dataset.firstToolId() + random.nextInt(dataset.tools());
+    }
+}
@@ -0,0 +1,214 @@
+package com.ProyectoTGS.BackCore.Benchmarks;
+
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import services.ClientLoanSummaryService;
+import services.ToolLoanRollupService;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+// Carga de datos para la prueba de carga con volúmenes realistas (por defecto 100k clientes, 10k herramientas,
+// 2M préstamos y 4M movimientos de Kardex; cada perfil ajusta los volúmenes). Inserta con JDBC en lotes y luego
+// reconstruye los modelos de lectura (client_loan_summary, tool_loan_daily) con los mismos servicios de la aplicación.
+//
+// Los clientes se dividen en dos mitades:
+//   - "mostrador": solo historial cerrado, siempre elegibles; los usa el guion de préstamo/devolución/pago
+//   - "ocupados": préstamos recientes ACTIVE/LATE/RECEIVED, dan volumen realista a los reportes
+// Generador con semilla fija: dos corridas con los mismos volúmenes producen los mismos datos.
+public final class LoadTestDataSeeder {
+
+    public static final String USERNAME = "loadtest";
+
+    public record Volumes(int clients, int tools, long loans, long kardex) {
+        static Volumes from(Environment env) {
+            return new Volumes(
+                    env.getProperty("loadtest.seed.clients", Integer.class, 100_000),
+                    env.getProperty("loadtest.seed.tools", Integer.class, 10_000),
+                    env.getProperty("loadtest.seed.loans", Long.class, 2_000_000L),
+                    env.getProperty("loadtest.seed.kardex", Long.class, 4_000_000L));
+        }
+    }
+
+    // Rangos de ids que usan los guiones (los ids IDENTITY de una base nueva son contiguos)
+    public record Dataset(long firstClientId, int counterClients, int clients, long firstToolId, int tools) {}
+
+    private static final int BATCH = 5_000;
+    private static final int HISTORY_DAYS = 730;
+    private static final int RECENT_DAYS = 30;
+    private static final int STOCK_PER_TOOL = 1_000; // Los préstamos del guion nunca agotan el stock
+    private static final String[] CATEGORIES = {
+            "Hand Tools", "Electric Tools", "Garden", "Construction", "Plumbing", "Painting", "Measuring", "Safety" };
+
+    private final JdbcTemplate jdbc;
+    private final ClientLoanSummaryService clientLoanSummaryService;
+    private final ToolLoanRollupService toolLoanRollupService;
+    private final Random random = new Random(42);
+    private final LocalDate today = LocalDate.now();
+
+    public LoadTestDataSeeder(JdbcTemplate jdbc, ClientLoanSummaryService clientLoanSummaryService,
+                              ToolLoanRollupService toolLoanRollupService) {
+        this.jdbc = jdbc;
+        this.clientLoanSummaryService = clientLoanSummaryService;
+        this.toolLoanRollupService = toolLoanRollupService;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Siembra una base vacía; si ya tiene exactamente estos volúmenes (corrida anterior en PostgreSQL) la reutiliza
+    public Dataset seed(Volumes volumes) {
+        long existingClients = count("clients");
+        if (existingClients == volumes.clients() && count("loans") >= volumes.loans()) {
+            System.out.printf("Datos de carga existentes reutilizados (%d clientes, %d préstamos)%n", existingClients, count("loans"));
+            return dataset();
+        }
+        if (existingClients > 0) {
+            throw new IllegalStateException("Load-test database already has " + existingClients
+                    + " clients but " + volumes.clients() + " were requested; use an empty database.");
+        }
+
+        // 1. Usuario de la prueba y tarifa
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, ?, 'ADMIN')", USERNAME, USERNAME);
+        if (count("tariffs") == 0) {
+            jdbc.update("INSERT INTO tariffs (daily_rent_fee, daily_late_fee, repair_fee) VALUES (1000, 5000, 10000)");
+        }
+
+        // 2. Clientes y herramientas
+        timed("clients", volumes.clients(), () -> insertRows(
+                "INSERT INTO clients (name, rut, phone, email, status) VALUES (?, ?, ?, ?, 'ACTIVE')",
+                volumes.clients(), i -> new Object[] {
+                        String.format("Cliente Carga %06d", i),
+                        String.format("%02d.%03d.%03d-%d", 10 + i / 1_000_000 % 90, i / 1_000 % 1_000, i % 1_000, i % 10),
+                        String.format("9%08d", i),
+                        String.format("cliente%06d@carga.test", i) }));
+        timed("tools", volumes.tools(), () -> insertRows(
+                "INSERT INTO tools (name, category, status, stock, in_repair, replacement_value, version) " +
+                "VALUES (?, ?, 'AVAILABLE', ?, 0, ?, 0)",
+                volumes.tools(), i -> new Object[] {
+                        String.format("Herramienta %05d", i),
+                        CATEGORIES[(int) (i % CATEGORIES.length)],
+                        STOCK_PER_TOOL,
+                        5_000 + random.nextInt(146) * 1_000 }));
+
+        Dataset dataset = dataset();
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, USERNAME);
+
+        // 3. Préstamos y Kardex (ids explícitos; luego se adelantan las secuencias que usa Hibernate)
+        timed("loans", volumes.loans(), () -> insertRows(
+                "INSERT INTO loans (id, client_id, tool_id, start_date, due_date, return_date, status, total_penalty, version) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                volumes.loans(), i -> loanRow(i + 1, dataset)));
+        timed("kardex", volumes.kardex(), () -> insertRows(
+                "INSERT INTO kardex (id, tool_id, user_id, type, movement_date, quantity) VALUES (?, ?, ?, ?, ?, 1)",
+                volumes.kardex(), i -> new Object[] {
+                        i + 1,
+                        dataset.firstToolId() + random.nextInt(dataset.tools()),
+                        userId,
+                        kardexType(),
+                        Timestamp.valueOf(today.minusDays(random.nextInt(HISTORY_DAYS)).atTime(8 + random.nextInt(10), random.nextInt(60))) }));
+        restartSequence("loans_seq", volumes.loans());
+        restartSequence("kardex_seq", volumes.kardex());
+
+        // 4. Clientes con deuda quedan restringidos, como tras una devolución real
+        jdbc.update("UPDATE clients SET status = 'RESTRICTED' WHERE id IN " +
+                    "(SELECT client_id FROM loans WHERE status = 'RECEIVED' AND total_penalty > 0)");
+
+        // 5. Modelos de lectura desde la tabla de préstamos
+        timed("client_loan_summary", volumes.clients(), clientLoanSummaryService::rebuildAll);
+        timed("tool_loan_daily", volumes.loans(), () ->
+                toolLoanRollupService.backfill(today.minusDays(HISTORY_DAYS + 15L), today));
+        return dataset;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------------
+    // Mostrador: historial antiguo y cerrado. Ocupados: además préstamos recientes en todos los estados
+    private Object[] loanRow(long id, Dataset dataset) {
+        int clientIndex = random.nextInt(dataset.clients());
+        boolean counterClient = clientIndex < dataset.counterClients();
+        boolean recent = !counterClient && random.nextInt(10) == 0;
+
+        LocalDate start = recent
+                ? today.minusDays(random.nextInt(RECENT_DAYS))
+                : today.minusDays(RECENT_DAYS + 1 + random.nextInt(HISTORY_DAYS - RECENT_DAYS));
+        LocalDate due = start.plusDays(1 + random.nextInt(14));
+        LocalDate returnDate = null;
+        double penalty = 0.0;
+        String status;
+
+        if (!recent) {
+            status = "CLOSED";
+            returnDate = random.nextInt(10) == 0 ? due.plusDays(1 + random.nextInt(5)) : due;
+        } else {
+            int roll = random.nextInt(100);
+            if (roll < 60) {
+                status = due.isBefore(today) ? "LATE" : "ACTIVE";
+            } else if (roll < 80) {
+                status = "RECEIVED";
+                returnDate = due.isBefore(today) ? due : today;
+                penalty = 1_000.0 * (due.toEpochDay() - start.toEpochDay());
+            } else {
+                status = "CLOSED";
+                returnDate = due.isBefore(today) ? due : today;
+            }
+        }
+        return new Object[] {
+                id,
+                dataset.firstClientId() + clientIndex,
+                dataset.firstToolId() + random.nextInt(dataset.tools()),
+                Date.valueOf(start),
+                Date.valueOf(due),
+                returnDate == null ? null : Date.valueOf(returnDate),
+                status,
+                penalty };
+    }
+
+    // Proporción típica del mostrador: casi todo son préstamos y devoluciones
+    private String kardexType() {
+        int roll = random.nextInt(100);
+        if (roll < 45) return "LOAN";
+        if (roll < 90) return "RETURN";
+        if (roll < 95) return "REPAIR";
+        return "INCOME";
+    }
+
+    private Dataset dataset() {
+        long firstClientId = jdbc.queryForObject("SELECT MIN(id) FROM clients", Long.class);
+        long firstToolId = jdbc.queryForObject("SELECT MIN(id) FROM tools", Long.class);
+        int clients = (int) count("clients");
+        return new Dataset(firstClientId, clients / 2, clients, firstToolId, (int) count("tools"));
+    }
+
+    private void insertRows(String sql, long rows, LongFunction<Object[]> row) {
+        List<Object[]> batch = new ArrayList<>(BATCH);
+        for (long i = 0; i < rows; i++) {
+            batch.add(row.apply(i));
+            if (batch.size() == BATCH) {
+                jdbc.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate(sql, batch);
+        }
+    }
+
+    // Hibernate reserva bloques de 50 ids (allocationSize): se deja margen sobre el último id insertado
+    private void restartSequence(String sequence, long lastId) {
+        jdbc.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (lastId + 100));
+    }
+
+    private long count(String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static void timed(String table, long rows, Runnable step) {
+        long start = System.nanoTime();
+        step.run();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("  %-20s %,12d filas en %6.1f s%n", table, rows, seconds);
+    }
+}
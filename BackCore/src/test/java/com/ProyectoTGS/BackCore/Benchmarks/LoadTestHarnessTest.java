@@ -0,0 +1,114 @@
+package com.ProyectoTGS.BackCore.Benchmarks;
+
+import app.BackCoreApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import services.ClientLoanSummaryService;
+import services.ToolLoanRollupService;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Prueba de carga de punta a punta: la aplicación completa (servidor HTTP real, seguridad con JWT firmados por
+// LoadTestJwtIssuer en vez de Keycloak), datos sembrados con LoadTestDataSeeder y N empleados ejecutando un guion.
+// Imprime por endpoint peticiones, errores, req/s y latencias p50/p99/p999, y deja un CSV en target/loadtest/.
+//
+// Ejecutar con:
+//   mvn -Pbenchmark test -Dtest=LoadTestHarnessTest                                   (H2, guion 'reports')
+//   mvn -Pbenchmark test -Dtest=LoadTestHarnessTest -Dloadtest.profile=loadtest-postgres (PostgreSQL, guion 'counter')
+// Cualquier loadtest.* del perfil se puede cambiar con -D (p. ej. -Dloadtest.clerks=200 -Dloadtest.duration=5m)
+@Tag("benchmark")
+public class LoadTestHarnessTest {
+
+    @Test
+    void counterWorkload_ReportsThroughputAndLatencyPerEndpoint() throws Exception {
+        String profile = System.getProperty("loadtest.profile", "loadtest-h2");
+
+        try (LoadTestJwtIssuer issuer = LoadTestJwtIssuer.start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(BackCoreApplication.class)
+                     .profiles(profile)
+                     .run(arguments(issuer))) {
+            Environment env = context.getEnvironment();
+
+            // 1. Datos
+            System.out.printf("Prueba de carga, perfil %s: sembrando datos%n", profile);
+            LoadTestDataSeeder.Dataset dataset = new LoadTestDataSeeder(context.getBean(JdbcTemplate.class),
+                    context.getBean(ClientLoanSummaryService.class), context.getBean(ToolLoanRollupService.class))
+                    .seed(LoadTestDataSeeder.Volumes.from(env));
+
+            // 2. Configuración de la corrida
+            LoadTestClerk.Script script = LoadTestClerk.Script.valueOf(
+                    env.getProperty("loadtest.script", "counter").toUpperCase(Locale.ROOT));
+            int clerks = Math.min(env.getProperty("loadtest.clerks", Integer.class, 50), dataset.counterClients());
+            Duration warmup = env.getProperty("loadtest.warmup", Duration.class, Duration.ofSeconds(10));
+            Duration duration = env.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(30));
+            String baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            String token = issuer.issue(LoadTestDataSeeder.USERNAME, List.of("ADMIN"), warmup.plus(duration).plusMinutes(5));
+
+            // 3. Calentamiento (se descarta) y medición
+            runPhase(baseUrl, token, dataset, script, clerks, warmup);
+            List<LoadTestRecorder.EndpointStats> stats = runPhase(baseUrl, token, dataset, script, clerks, duration).summarize();
+
+            LoadTestRecorder.print(String.format("Guion %s, %d empleados, %d s (perfil %s)",
+                    script, clerks, duration.toSeconds(), profile), stats, System.out);
+            Path csv = Path.of("target", "loadtest", String.format("%s-%s-%s.csv", profile, script.name().toLowerCase(Locale.ROOT),
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))));
+            LoadTestRecorder.writeCsv(csv, stats);
+            System.out.println("  CSV: " + csv.toAbsolutePath());
+
+            // 4. Una corrida con errores no es una medición válida (los conflictos se reintentan en el servidor)
+            long requests = stats.stream().mapToLong(LoadTestRecorder.EndpointStats::requests).sum();
+            long errors = stats.stream().mapToLong(LoadTestRecorder.EndpointStats::errors).sum();
+            assertTrue(requests > 0, "No requests were completed");
+            assertTrue(errors * 100 <= requests, "Error rate above 1%: " + errors + " of " + requests);
+        }
+    }
+
+    // Línea de comandos (prioridad sobre application.properties y el perfil): puerto libre y el emisor local
+    private static String[] arguments(LoadTestJwtIssuer issuer) {
+        List<String> arguments = new ArrayList<>(issuer.applicationArguments());
+        arguments.add("--server.port=0");
+        arguments.add("--management.server.port=0");
+        return arguments.toArray(String[]::new);
+    }
+
+    // Cada empleado en su hilo virtual (el lado cliente no debe ser el límite) con un HttpClient compartido
+    private static LoadTestRecorder runPhase(String baseUrl, String token, LoadTestDataSeeder.Dataset dataset,
+                                             LoadTestClerk.Script script, int clerks, Duration duration) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        LoadTestRecorder recorder = new LoadTestRecorder();
+        Instant end = Instant.now().plus(duration);
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int clerk = 0; clerk < clerks; clerk++) {
+                LoadTestClerk worker = new LoadTestClerk(http, baseUrl, token, dataset, clerk, clerks);
+                futures.add(workers.submit(() -> worker.run(script, end, recorder)));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+        return recorder;
+    }
+}
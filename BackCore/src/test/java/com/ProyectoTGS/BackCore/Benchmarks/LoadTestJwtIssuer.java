@@ -0,0 +1,128 @@
+package com.ProyectoTGS.BackCore.Benchmarks;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Emisor de JWT local que reemplaza a Keycloak en las pruebas de carga: firma tokens RS256 con una clave generada
+// al arrancar y publica la clave pública (JWKS) en un servidor HTTP del mismo proceso. La aplicación valida los
+// tokens con su configuración normal (jwk-set-uri + issuer-uri), es decir, con la verificación de firma real.
+public final class LoadTestJwtIssuer implements AutoCloseable {
+
+    private static final String REALM_PATH = "/realms/loadtest";
+    private static final String JWKS_PATH = REALM_PATH + "/protocol/openid-connect/certs";
+
+    private final HttpServer server;
+    private final NimbusJwtEncoder encoder;
+    private final String keyId;
+    private final String issuerUri;
+    private final AtomicInteger jwksRequests;
+
+    private LoadTestJwtIssuer(HttpServer server, NimbusJwtEncoder encoder, String keyId, String issuerUri,
+                              AtomicInteger jwksRequests) {
+        this.server = server;
+        this.jwksRequests = jwksRequests;
+        this.encoder = encoder;
+        this.keyId = keyId;
+        this.issuerUri = issuerUri;
+    }
+
+    // Genera el par de claves y levanta el endpoint JWKS en un puerto libre de localhost
+    public static LoadTestJwtIssuer start() throws IOException {
+        KeyPair keyPair = generateRsaKeyPair();
+        RSAKey rsaKey = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+                .privateKey((RSAPrivateKey) keyPair.getPrivate())
+                .keyID(UUID.randomUUID().toString())
+                .build();
+        byte[] jwks = new JWKSet(rsaKey).toPublicJWKSet().toString().getBytes(StandardCharsets.UTF_8);
+
+        AtomicInteger jwksRequests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(JWKS_PATH, exchange -> {
+            jwksRequests.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwks.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(jwks);
+            }
+        });
+        server.start();
+
+        String issuerUri = "http://localhost:" + server.getAddress().getPort() + REALM_PATH;
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(rsaKey)));
+        return new LoadTestJwtIssuer(server, encoder, rsaKey.getKeyID(), issuerUri, jwksRequests);
+    }
+
+    public String issuerUri() {
+        return issuerUri;
+    }
+
+    public String jwkSetUri() {
+        return issuerUri + "/protocol/openid-connect/certs";
+    }
+
+    // Veces que se descargó el JWKS (la aplicación debería hacerlo una vez por TTL, no por petición)
+    public int jwksRequests() {
+        return jwksRequests.get();
+    }
+
+    // Argumentos para la aplicación (línea de comandos: tienen prioridad sobre application.properties)
+    public List<String> applicationArguments() {
+        return List.of(
+                "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + issuerUri(),
+                "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + jwkSetUri());
+    }
+
+    // Token con las mismas claims que usa la aplicación de un token de Keycloak (preferred_username, realm_access.roles)
+    public String issue(String username, List<String> roles, Duration ttl) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuerUri)
+                .subject(username)
+                .issuedAt(now)
+                .expiresAt(now.plus(ttl))
+                .claim("preferred_username", username)
+                .claim("realm_access", Map.of("roles", roles))
+                .build();
+        JwsHeader header = JwsHeader.with(SignatureAlgorithm.RS256).keyId(keyId).build();
+        return encoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static KeyPair generateRsaKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("RSA is not available in this JVM", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ProyectoTGS.BackCore.Benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Latencias por endpoint de una fase de la prueba de carga (todas las muestras, percentiles exactos al final)
+public final class LoadTestRecorder {
+
+    public record EndpointStats(String endpoint, long requests, long errors, double throughput,
+                                long p50Micros, long p99Micros, long p999Micros) {}
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    public void record(String endpoint, long elapsedNanos, boolean ok) {
+        Samples s = samples.computeIfAbsent(endpoint, e -> new Samples());
+        s.add(elapsedNanos / 1_000);
+        if (!ok) {
+            s.errors.incrementAndGet();
+        }
+    }
+
+    // Estadísticas por endpoint (orden alfabético) con el tiempo transcurrido desde que se creó el registro
+    public List<EndpointStats> summarize() {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        List<EndpointStats> stats = new ArrayList<>();
+        samples.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    long[] sorted = entry.getValue().sorted();
+                    stats.add(new EndpointStats(entry.getKey(), sorted.length, entry.getValue().errors.get(),
+                            sorted.length / seconds,
+                            percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999)));
+                });
+        return stats;
+    }
+
+    public static void print(String title, List<EndpointStats> stats, PrintStream out) {
+        out.println(title);
+        out.printf("  %-32s %10s %8s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        for (EndpointStats s : stats) {
+            out.printf("  %-32s %10d %8d %10.1f %10.2f %10.2f %10.2f%n", s.endpoint(), s.requests(), s.errors(),
+                    s.throughput(), s.p50Micros() / 1000.0, s.p99Micros() / 1000.0, s.p999Micros() / 1000.0);
+        }
+    }
+
+    // CSV para comparar corridas entre cambios (una fila por endpoint, latencias en microsegundos)
+    public static void writeCsv(Path file, List<EndpointStats> stats) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("endpoint,requests,errors,throughput,p50_us,p99_us,p999_us");
+        for (EndpointStats s : stats) {
+            lines.add(String.format(Locale.ROOT, "%s,%d,%d,%.2f,%d,%d,%d", s.endpoint(), s.requests(),
+                    s.errors(), s.throughput(), s.p50Micros(), s.p99Micros(), s.p999Micros()));
+        }
+        Files.createDirectories(file.getParent());
+        Files.write(file, lines);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.max(0, Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1))];
+    }
+
+    // Arreglo de long que crece por duplicación (sin boxing: una corrida larga acumula millones de muestras)
+    private static final class Samples {
+        private final AtomicLong errors = new AtomicLong();
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void add(long micros) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = micros;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.ProyectoTGS.BackCore.Benchmarks;
+
+import app.BackCoreApplication;
+import entities.ClientEntity;
+import entities.LoanEntity;
+import entities.ToolEntity;
+import entities.enums.ClientStatus;
+import entities.enums.LoanStatus;
+import entities.enums.ToolStatus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import repositories.ClientRepository;
+import repositories.LoanRepository;
+import repositories.ToolRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Prueba de carga: GET /loans/page con hilos de plataforma (pool de Tomcat) vs hilos virtuales, servidor HTTP real.
+// Cada sentencia JDBC espera LATENCY (simula el viaje de red a PostgreSQL), así el tiempo de la petición es
+// principalmente espera de E/S como en producción. Misma configuración en ambos modos salvo spring.threads.virtual.
+// Ejecutar con: mvn -Pbenchmark test -Dtest=LoanEndpointsThreadModelBenchmarkTest [-Dbenchmark.clients=400]
+@Tag("benchmark")
+public class LoanEndpointsThreadModelBenchmarkTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(5);
+    // En máquinas con pocos núcleos 400 clientes saturan la CPU antes que el pool: bajar con -Dbenchmark.clients
+    private static final int CONCURRENT_CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASURE = Duration.ofSeconds(15);
+    private static final int OPEN_LOANS = 200;
+
+    private record Result(String mode, long requests, long errors, double throughput, long p50Micros, long p99Micros) {}
+
+    @Test
+    void loansPage_PlatformVsVirtualThreads() throws Exception {
+        Result platform = runLoad("platform", false);
+        Result virtual = runLoad("virtual", true);
+
+        System.out.printf("GET /loans/page (%d clientes concurrentes, latencia JDBC %d ms, pool Hikari 20)%n",
+                CONCURRENT_CLIENTS, LATENCY.toMillis());
+        for (Result r : List.of(platform, virtual)) {
+            System.out.printf("  %-8s %8.0f req/s  p50 = %6.1f ms  p99 = %7.1f ms  (%d peticiones, %d errores)%n",
+                    r.mode(), r.throughput(), r.p50Micros() / 1000.0, r.p99Micros() / 1000.0, r.requests(), r.errors());
+        }
+        System.out.printf("  virtual/platform: x%.2f throughput%n", virtual.throughput() / platform.throughput());
+
+        assertEquals(0, platform.errors());
+        assertEquals(0, virtual.errors());
+    }
+
+    // Arranca la aplicación completa en un puerto libre, siembra datos, mide y la detiene
+    private Result runLoad(String mode, boolean virtualThreads) throws Exception {
+        // Como argumentos de línea de comandos: las propiedades por defecto del builder no pisan application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackCoreApplication.class, BenchmarkConfig.class)
+                .run(
+                        "--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:threadbench-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.flyway.enabled=false",
+                        "--spring.sql.init.mode=never",
+                        "--spring.threads.virtual.enabled=" + virtualThreads)) {
+            seed(context);
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/loans/page?page=0&size=20");
+
+            drive(mode, uri, WARMUP);
+            return drive(mode, uri, MEASURE);
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        ClientEntity client = context.getBean(ClientRepository.class).save(ClientEntity.builder()
+                .name("Constructora Benchmark").rut("11.111.111-1").phone("+56911111111")
+                .email("bench@example.com").status(ClientStatus.ACTIVE).build());
+        List<LoanEntity> loans = new ArrayList<>(OPEN_LOANS);
+        for (int i = 0; i < OPEN_LOANS; i++) {
+            ToolEntity tool = context.getBean(ToolRepository.class).save(ToolEntity.builder()
+                    .name("Herramienta " + i).category("Bench").status(ToolStatus.AVAILABLE)
+                    .stock(10).inRepair(0).replacementValue(10000).build());
+            loans.add(LoanEntity.builder().client(client).tool(tool)
+                    .startDate(LocalDate.now()).dueDate(LocalDate.now().plusDays(7))
+                    .status(LoanStatus.ACTIVE).totalPenalty(0.0).build());
+        }
+        context.getBean(LoanRepository.class).saveAll(loans);
+    }
+
+    // Cada cliente repite la petición hasta que vence 'duration'; el lado cliente usa hilos virtuales para no ser el límite
+    private Result drive(String mode, URI uri, Duration duration) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Authorization", "Bearer benchmark").GET().build();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong errors = new AtomicLong();
+        AtomicInteger running = new AtomicInteger();
+        Instant end = Instant.now().plus(duration);
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CONCURRENT_CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    running.incrementAndGet();
+                    while (Instant.now().isBefore(end)) {
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add((System.nanoTime() - t0) / 1_000);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new Result(mode, sorted.size(), errors.get(), sorted.size() / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+
+    // --- Configuración solo para el benchmark ---
+    @Configuration
+    static class BenchmarkConfig {
+
+        // JWT fijo con rol ADMIN (sin Keycloak): cualquier token Bearer es válido. @Primary sobre el de JwtDecoderConfig
+        @Bean
+        @Primary
+        JwtDecoder benchmarkJwtDecoder() {
+            return token -> Jwt.withTokenValue(token)
+                    .header("alg", "none")
+                    .subject("benchmark")
+                    .claim("preferred_username", "benchmark")
+                    .claim("realm_access", Map.of("roles", List.of("ADMIN")))
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(3600))
+                    .build();
+        }
+
+        // Envuelve el DataSource: cada ejecución de sentencia espera LATENCY antes de llegar a H2
+        @Bean
+        static BeanPostProcessor latencyDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return proxy(DataSource.class, dataSource, Set.of());
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeBatch", "executeLargeUpdate");
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Set<String> delayedMethods) {
+            InvocationHandler handler = (p, method, args) -> {
+                if (delayedMethods.contains(method.getName())) {
+                    Thread.sleep(LATENCY);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                // DataSource -> Connection -> (Prepared|Callable)Statement: se propaga el proxy hasta la sentencia
+                if (result instanceof Connection connection && method.getReturnType() == Connection.class) {
+                    return proxy(Connection.class, connection, Set.of());
+                }
+                if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    return proxy((Class<Object>) method.getReturnType(), result, EXECUTE_METHODS);
+                }
+                return result;
+            };
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+        }
+    }
+}
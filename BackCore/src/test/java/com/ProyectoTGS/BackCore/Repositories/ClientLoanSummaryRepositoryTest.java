@@ -0,0 +1,211 @@
+package com.ProyectoTGS.BackCore.Repositories;
+
+import entities.ClientEntity;
+import entities.ClientLoanSummaryEntity;
+import entities.LoanEntity;
+import entities.ToolEntity;
+import entities.enums.ClientStatus;
+import entities.enums.LoanStatus;
+import entities.enums.ToolStatus;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import repositories.ClientLoanSummaryRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Cada sentencia de ClientLoanSummaryRepository contra el esquema real de las migraciones, en H2 sin modo de
+// compatibilidad: el SQL tiene que ser estándar para correr igual en PostgreSQL
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:clientloansummary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=true",
+        "spring.flyway.locations=classpath:db/migration"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = ClientLoanSummaryRepositoryTest.JpaTestConfig.class)
+public class ClientLoanSummaryRepositoryTest {
+
+    @Configuration
+    @EnableJpaRepositories(basePackages = "repositories")
+    @EntityScan(basePackages = "entities")
+    static class JpaTestConfig {
+    }
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    @Autowired
+    private ClientLoanSummaryRepository summaryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private ToolEntity tool;
+
+    @BeforeEach
+    void setUp() {
+        tool = ToolEntity.builder()
+                .name("Taladro").category("Electric Tools").status(ToolStatus.AVAILABLE)
+                .stock(10).inRepair(0).replacementValue(45000).build();
+        entityManager.persist(tool);
+    }
+
+    private ClientEntity saveClient(String rut) {
+        ClientEntity client = ClientEntity.builder().name("Cliente " + rut).rut(rut).status(ClientStatus.ACTIVE).build();
+        entityManager.persist(client);
+        return client;
+    }
+
+    private LoanEntity saveLoan(ClientEntity client, LoanStatus status, LocalDate dueDate, double penalty) {
+        LoanEntity loan = LoanEntity.builder()
+                .client(client).tool(tool).status(status)
+                .startDate(dueDate.minusDays(7)).dueDate(dueDate)
+                .returnDate(status == LoanStatus.RECEIVED ? dueDate : null)
+                .totalPenalty(penalty).build();
+        entityManager.persist(loan);
+        return loan;
+    }
+
+    // Las sentencias masivas no pasan por el contexto de persistencia: se relee la fila desde la BD
+    private ClientLoanSummaryEntity summaryOf(ClientEntity client) {
+        entityManager.flush();
+        entityManager.clear();
+        return summaryRepository.findById(client.getId()).orElseThrow();
+    }
+
+    @Test
+    void applyDelta_ReturnsZero_WhenClientHasNoRow() {
+        ClientEntity client = saveClient("1-9");
+        entityManager.flush();
+
+        assertEquals(0, summaryRepository.applyDelta(client.getId(), 1, 0, 0, 0.0, LocalDateTime.now()));
+        assertFalse(summaryRepository.existsById(client.getId()));
+    }
+
+    @Test
+    void insertSummary_CreatesRowWithDelta_OnlyOnce() {
+        // ARRANGE
+        ClientEntity client = saveClient("2-7");
+        LocalDateTime at = LocalDateTime.of(2025, 6, 15, 10, 30);
+        entityManager.flush();
+
+        // ACT: el segundo INSERT encuentra la fila y no hace nada
+        int first = summaryRepository.insertSummary(client.getId(), 2, 1, 0, 3500.0, at);
+        int second = summaryRepository.insertSummary(client.getId(), 2, 1, 0, 3500.0, at);
+
+        // ASSERT
+        assertEquals(1, first);
+        assertEquals(0, second);
+        ClientLoanSummaryEntity summary = summaryOf(client);
+        assertEquals(2, summary.getOpenLoans());
+        assertEquals(1, summary.getLateLoans());
+        assertEquals(3500.0, summary.getOutstandingBalance());
+        assertEquals(at, summary.getLastActivity());
+    }
+
+    @Test
+    void applyDelta_AddsToExistingRow() {
+        // ARRANGE
+        ClientEntity client = saveClient("3-5");
+        entityManager.flush();
+        summaryRepository.insertSummary(client.getId(), 2, 1, 0, 0.0, LocalDateTime.now());
+        LocalDateTime returnedAt = LocalDateTime.of(2025, 6, 16, 9, 0);
+
+        // ACT: devolución atrasada con multa
+        int updated = summaryRepository.applyDelta(client.getId(), -1, -1, 1, 12000.0, returnedAt);
+
+        // ASSERT
+        assertEquals(1, updated);
+        ClientLoanSummaryEntity summary = summaryOf(client);
+        assertEquals(1, summary.getOpenLoans());
+        assertEquals(0, summary.getLateLoans());
+        assertEquals(1, summary.getUnpaidLoans());
+        assertEquals(12000.0, summary.getOutstandingBalance());
+        assertEquals(returnedAt, summary.getLastActivity());
+    }
+
+    @Test
+    void addOverdueLoans_CountsOnlyActiveOverdueLoansInIdRange() {
+        // ARRANGE: el cliente A tiene 2 vencidos en el bloque y 1 al día; B uno vencido fuera del bloque; C sin fila
+        ClientEntity a = saveClient("4-3");
+        ClientEntity b = saveClient("5-1");
+        LoanEntity firstOverdue = saveLoan(a, LoanStatus.ACTIVE, TODAY.minusDays(3), 0);
+        saveLoan(a, LoanStatus.ACTIVE, TODAY.minusDays(1), 0);
+        saveLoan(a, LoanStatus.ACTIVE, TODAY.plusDays(2), 0);
+        LoanEntity lastInRange = saveLoan(a, LoanStatus.LATE, TODAY.minusDays(10), 0);
+        saveLoan(b, LoanStatus.ACTIVE, TODAY.minusDays(5), 0);
+        entityManager.flush();
+        summaryRepository.insertSummary(a.getId(), 4, 1, 0, 0.0, LocalDateTime.now());
+        summaryRepository.insertSummary(b.getId(), 1, 0, 0, 0.0, LocalDateTime.now());
+
+        // ACT
+        int updated = summaryRepository.addOverdueLoans(TODAY, firstOverdue.getId(), lastInRange.getId());
+
+        // ASSERT: solo A cambia (1 LATE previo + 2 que pasan a LATE)
+        assertEquals(1, updated);
+        assertEquals(3, summaryOf(a).getLateLoans());
+        assertEquals(0, summaryOf(b).getLateLoans());
+    }
+
+    @Test
+    void rebuildAll_RecomputesEveryClientFromLoans() {
+        // ARRANGE: A con un préstamo abierto, uno atrasado y uno recibido con multa; B sin préstamos
+        ClientEntity a = saveClient("6-K");
+        ClientEntity b = saveClient("7-8");
+        saveLoan(a, LoanStatus.ACTIVE, TODAY.plusDays(3), 0);
+        saveLoan(a, LoanStatus.LATE, TODAY.minusDays(2), 0);
+        saveLoan(a, LoanStatus.RECEIVED, TODAY.minusDays(1), 8000.0);
+        entityManager.flush();
+        summaryRepository.insertSummary(a.getId(), 99, 99, 99, 99.0, LocalDateTime.now()); // Fila desviada
+
+        // ACT
+        summaryRepository.deleteAllSummaries();
+        int rows = summaryRepository.rebuildAll();
+
+        // ASSERT
+        assertEquals(2, rows);
+        ClientLoanSummaryEntity summaryA = summaryOf(a);
+        assertEquals(2, summaryA.getOpenLoans());
+        assertEquals(1, summaryA.getLateLoans());
+        assertEquals(1, summaryA.getUnpaidLoans());
+        assertEquals(8000.0, summaryA.getOutstandingBalance());
+        assertEquals(TODAY.minusDays(1).atStartOfDay(), summaryA.getLastActivity());
+        ClientLoanSummaryEntity summaryB = summaryOf(b);
+        assertEquals(0, summaryB.getOpenLoans());
+        assertNull(summaryB.getLastActivity());
+    }
+
+    @Test
+    void rebuildClient_RecomputesOnlyThatClient() {
+        // ARRANGE
+        ClientEntity a = saveClient("8-6");
+        ClientEntity b = saveClient("9-4");
+        saveLoan(a, LoanStatus.LATE, TODAY.minusDays(4), 0);
+        entityManager.flush();
+        summaryRepository.insertSummary(a.getId(), 5, 5, 5, 5.0, LocalDateTime.now());
+        summaryRepository.insertSummary(b.getId(), 5, 5, 5, 5.0, LocalDateTime.now());
+
+        // ACT
+        summaryRepository.deleteSummary(a.getId());
+        int rows = summaryRepository.rebuildClient(a.getId());
+
+        // ASSERT
+        assertEquals(1, rows);
+        assertEquals(1, summaryOf(a).getLateLoans());
+        assertEquals(5, summaryOf(b).getLateLoans());
+    }
+}
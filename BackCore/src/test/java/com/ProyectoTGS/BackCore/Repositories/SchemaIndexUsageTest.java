@@ -0,0 +1,236 @@
+package com.ProyectoTGS.BackCore.Repositories;
+
+import entities.ClientEntity;
+import entities.ToolEntity;
+import entities.enums.ClientStatus;
+import entities.enums.LoanStatus;
+import entities.enums.MovementType;
+import entities.enums.ToolStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import repositories.ClientRepository;
+import repositories.KardexRepository;
+import repositories.LoanRepository;
+import repositories.ToolRepository;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Esquema creado solo por las migraciones Flyway (sin datos de demostración); ddl-auto=validate comprueba que las
+// entidades coinciden con él. Cada consulta frecuente se ejecuta a través de su repositorio, se captura el SQL que
+// genera Hibernate y ese SQL se pasa por EXPLAIN: el plan debe usar el índice esperado y no un recorrido completo.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schemaindexes;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.ProyectoTGS.BackCore.Repositories.SchemaIndexUsageTest$CapturedStatements",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=true",
+        "spring.flyway.locations=classpath:db/migration"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = SchemaIndexUsageTest.JpaTestConfig.class)
+public class SchemaIndexUsageTest {
+
+    @Configuration
+    @EnableJpaRepositories(basePackages = "repositories")
+    @EntityScan(basePackages = "entities")
+    static class JpaTestConfig {
+    }
+
+    // Igual que QueryCounter, pero guarda el texto de cada sentencia que prepara Hibernate
+    public static class CapturedStatements implements StatementInspector {
+
+        private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
+        static void clear() {
+            STATEMENTS.clear();
+        }
+
+        static List<String> all() {
+            synchronized (STATEMENTS) {
+                return List.copyOf(STATEMENTS);
+            }
+        }
+    }
+
+    @Autowired private DataSource dataSource;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private KardexRepository kardexRepository;
+    @Autowired private ClientRepository clientRepository;
+    @Autowired private ToolRepository toolRepository;
+
+    private JdbcTemplate jdbc;
+    private ClientEntity client;
+    private ToolEntity tool;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        client = clientRepository.saveAndFlush(ClientEntity.builder()
+                .name("Cliente Índices").rut("20.589.189-6").phone("+56911111111").email("indices@test.cl")
+                .status(ClientStatus.ACTIVE).build());
+        tool = toolRepository.saveAndFlush(ToolEntity.builder()
+                .name("Taladro").category("Electric Tools").status(ToolStatus.AVAILABLE)
+                .stock(1).inRepair(0).replacementValue(45000).build());
+        CapturedStatements.clear();
+    }
+
+    // --- LoanRepository ---
+    @Test
+    void findByClientAndStatus_UsesClientStatusIndex() {
+        loanRepository.findByClientAndStatus(client, LoanStatus.ACTIVE);
+        assertUsesIndex("idx_loans_client_status", capturedStatement(), client.getId(), "ACTIVE");
+    }
+
+    @Test
+    void countByClientAndStatus_UsesClientStatusIndex() {
+        loanRepository.countByClientAndStatus(client, LoanStatus.LATE);
+        assertUsesIndex("idx_loans_client_status", capturedStatement(), client.getId(), "LATE");
+    }
+
+    @Test
+    void existsOpenLoanForTool_UsesClientStatusIndex() {
+        loanRepository.existsByClient_IdAndTool_IdAndStatusIn(client.getId(), tool.getId(),
+                Set.of(LoanStatus.ACTIVE, LoanStatus.LATE));
+        assertUsesIndex("idx_loans_client_status", capturedStatement(), client.getId(), tool.getId(), "ACTIVE", "LATE");
+    }
+
+    @Test
+    void countOpenLoansForTools_UsesClientStatusIndex() {
+        loanRepository.countByClient_IdAndTool_IdInAndStatusIn(client.getId(), List.of(tool.getId(), tool.getId() + 1),
+                List.of(LoanStatus.ACTIVE, LoanStatus.LATE));
+        assertUsesIndex("idx_loans_client_status", capturedStatement(),
+                client.getId(), tool.getId(), tool.getId() + 1, "ACTIVE", "LATE");
+    }
+
+    @Test
+    void findUnpaidReceivedLoans_UsesClientStatusIndex() {
+        loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(client, LoanStatus.RECEIVED, 0.0);
+        assertUsesIndex("idx_loans_client_status", capturedStatement(), client.getId(), "RECEIVED", 0.0);
+    }
+
+    @Test
+    void findByStatusAndStartDateBetween_UsesStatusStartDateIndex() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        loanRepository.findByStatusAndStartDateBetween(LoanStatus.RECEIVED, from, to);
+        assertUsesIndex("idx_loans_status_start_date", capturedStatement(), "RECEIVED", from, to);
+    }
+
+    @Test
+    void findMinOverdueId_UsesStatusDueDateIndex() {
+        LocalDate today = LocalDate.of(2025, 3, 10);
+        loanRepository.findMinOverdueId(today);
+        assertUsesIndex("idx_loans_status_due_date", capturedStatement(), today);
+    }
+
+    @Test
+    void markOverdueAsLate_UsesStatusDueDateIndex() {
+        LocalDate today = LocalDate.of(2025, 3, 10);
+        loanRepository.markOverdueAsLate(today, 1L, 5000L);
+        assertUsesIndex("idx_loans_status_due_date", capturedStatement(), today, 1L, 5000L);
+    }
+
+    @Test
+    void findByTool_UsesToolIndex() {
+        loanRepository.findByTool(tool);
+        assertUsesIndex("idx_loans_tool", capturedStatement(), tool.getId());
+    }
+
+    // --- KardexRepository ---
+    @Test
+    void findByToolId_UsesToolMovementDateIndex() {
+        kardexRepository.findByTool_Id(tool.getId());
+        assertUsesIndex("idx_kardex_tool_movement_date", capturedStatement(), tool.getId());
+    }
+
+    @Test
+    void findByToolIdAndType_UsesToolMovementDateIndex() {
+        kardexRepository.findByTool_IdAndType(tool.getId(), MovementType.LOAN);
+        assertUsesIndex("idx_kardex_tool_movement_date", capturedStatement(), tool.getId(), "LOAN");
+    }
+
+    @Test
+    void findMovementsByToolId_UsesToolMovementDateIndex() {
+        kardexRepository.findMovementsByToolId(tool.getId());
+        assertUsesIndex("idx_kardex_tool_movement_date", capturedStatement(), tool.getId());
+    }
+
+    @Test
+    void findMovementsByDateBetween_UsesMovementDateIndex() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 12, 31, 23, 59, 59);
+        kardexRepository.findMovementsByDateBetween(start, end);
+        assertUsesIndex("idx_kardex_movement_date", capturedStatement(), start, end);
+    }
+
+    // --- ClientRepository ---
+    @Test
+    void existsByRut_UsesUniqueRutIndex() {
+        clientRepository.existsByRut("20.589.189-6");
+        assertUsesIndex("ux_clients_rut", capturedStatement(), "20.589.189-6", 1);
+    }
+
+    // La única sentencia que preparó Hibernate para la llamada al repositorio
+    private String capturedStatement() {
+        List<String> statements = CapturedStatements.all();
+        assertEquals(1, statements.size(), "Se esperaba una sola sentencia: " + statements);
+        return statements.get(0);
+    }
+
+    // EXPLAIN del SQL generado, con los mismos valores que enlazó el repositorio (en el orden de los '?')
+    private void assertUsesIndex(String indexName, String sql, Object... parameters) {
+        String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class, parameters);
+        assertNotNull(plan);
+        List<String> accepted = acceptedIndexes(indexName);
+        assertTrue(accepted.stream().anyMatch(plan.toLowerCase()::contains),
+                "El plan debería usar " + indexName + " pero fue:\n" + sql + "\n" + plan);
+        assertFalse(plan.toLowerCase().contains("tablescan"),
+                "El plan no debería recorrer la tabla completa:\n" + sql + "\n" + plan);
+    }
+
+    // H2 (a diferencia de PostgreSQL) crea su propio índice para cada clave foránea, y ante el mismo costo puede elegir
+    // ese duplicado. Cuenta como el índice esperado solo si empieza por la misma columna de la misma tabla
+    private List<String> acceptedIndexes(String indexName) {
+        List<String> accepted = new ArrayList<>(List.of(indexName.toLowerCase()));
+        accepted.addAll(jdbc.queryForList(
+                "SELECT LOWER(fk.INDEX_NAME) FROM INFORMATION_SCHEMA.INDEX_COLUMNS expected " +
+                "JOIN INFORMATION_SCHEMA.INDEX_COLUMNS fk ON fk.TABLE_NAME = expected.TABLE_NAME " +
+                "  AND fk.COLUMN_NAME = expected.COLUMN_NAME AND fk.ORDINAL_POSITION = 1 " +
+                "JOIN INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc ON tc.INDEX_NAME = fk.INDEX_NAME " +
+                "  AND tc.CONSTRAINT_TYPE = 'FOREIGN KEY' " +
+                "WHERE expected.INDEX_NAME = ? AND expected.ORDINAL_POSITION = 1",
+                String.class, indexName.toUpperCase()));
+        // El índice esperado debe existir (lo crean las migraciones)
+        assertEquals(1, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = ?", Integer.class, indexName.toUpperCase()),
+                "Falta el índice " + indexName);
+        return accepted;
+    }
+}
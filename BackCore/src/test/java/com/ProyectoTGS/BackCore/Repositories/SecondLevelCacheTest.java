@@ -0,0 +1,246 @@
+package com.ProyectoTGS.BackCore.Repositories;
+
+import app.utils.TableVersions;
+import entities.ToolEntity;
+import entities.UserEntity;
+import entities.enums.ToolStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import repositories.ToolRepository;
+import repositories.UserRepository;
+import services.KardexService;
+import services.ToolAvailabilityFeed;
+import services.ToolService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Caché de segundo nivel real (Ehcache vía JCache, configuración de application.properties + ehcache.xml)
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:secondlevelcache;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = SecondLevelCacheTest.JpaTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Cada llamada al repositorio abre su propia sesión
+public class SecondLevelCacheTest {
+
+    @Configuration
+    @EnableJpaRepositories(basePackages = "repositories")
+    @EntityScan(basePackages = "entities")
+    static class JpaTestConfig {
+    }
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private ToolAvailabilityFeed availabilityFeed;
+    private ToolService toolService;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        availabilityFeed = new ToolAvailabilityFeed(new SimpleMeterRegistry(), 16, 16, Duration.ofMinutes(1));
+        toolService = new ToolService(toolRepository, mock(KardexService.class), entityManager, availabilityFeed,
+                new TableVersions(new SimpleMeterRegistry()));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        availabilityFeed.shutdown();
+    }
+
+    private ToolEntity saveTool(String name, int stock) {
+        return toolRepository.save(ToolEntity.builder()
+                .name(name)
+                .category("Electric Tools")
+                .status(ToolStatus.AVAILABLE)
+                .stock(stock)
+                .inRepair(0)
+                .replacementValue(45000)
+                .build());
+    }
+
+    // Préstamo como en LoanService: leer la herramienta (findById) y reservar en la misma transacción
+    private boolean loan(Long toolId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                toolService.reserveForLoan(toolRepository.findById(toolId).orElseThrow())));
+    }
+
+    @Test
+    void findById_SecondReadInNewSession_IsServedFromToolsRegion() {
+        // ARRANGE
+        ToolEntity tool = toolRepository.save(ToolEntity.builder()
+                .name("Martillo")
+                .category("Hand Tools")
+                .status(ToolStatus.AVAILABLE)
+                .stock(4)
+                .inRepair(0)
+                .replacementValue(8000)
+                .build());
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        // ACT: dos lecturas en sesiones distintas
+        toolRepository.findById(tool.getId()).orElseThrow();
+        ToolEntity cached = toolRepository.findById(tool.getId()).orElseThrow();
+
+        // ASSERT: la primera va a la BD y llena la región, la segunda es un acierto
+        assertEquals("Martillo", cached.getName());
+        assertEquals(1L, statistics.getDomainDataRegionStatistics("tools").getMissCount());
+        assertEquals(1L, statistics.getDomainDataRegionStatistics("tools").getHitCount());
+        assertEquals(1L, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void reserveForLoan_InvalidatesOnlyTheReservedToolEntry() {
+        // ARRANGE: dos herramientas en caché
+        ToolEntity drill = saveTool("Taladro", 2);
+        ToolEntity saw = saveTool("Sierra", 5);
+        toolRepository.findById(drill.getId()).orElseThrow();
+        toolRepository.findById(saw.getId()).orElseThrow();
+        statistics.clear();
+
+        // ACT: préstamo del taladro (UPDATE nativo condicional)
+        assertTrue(loan(drill.getId()));
+        statistics.clear();
+        ToolEntity drillAfter = toolRepository.findById(drill.getId()).orElseThrow();
+        ToolEntity sawAfter = toolRepository.findById(saw.getId()).orElseThrow();
+
+        // ASSERT: la región no se vació; solo el taladro vuelve a la BD (y trae el stock nuevo)
+        assertEquals(1, drillAfter.getStock());
+        assertEquals(5, sawAfter.getStock());
+        assertEquals(1L, statistics.getDomainDataRegionStatistics("tools").getHitCount());
+        assertEquals(1L, statistics.getDomainDataRegionStatistics("tools").getMissCount());
+    }
+
+    @Test
+    void applyBatchReturn_InvalidatesOnlyTheReturnedToolEntries() {
+        // ARRANGE: tres herramientas en caché
+        ToolEntity drill = saveTool("Taladro", 1);
+        ToolEntity saw = saveTool("Sierra", 5);
+        ToolEntity sander = saveTool("Lijadora", 3);
+        List.of(drill, saw, sander).forEach(tool -> toolRepository.findById(tool.getId()).orElseThrow());
+
+        // ACT: devolución en lote (una unidad repuesta del taladro, una de la sierra a reparación)
+        transactionTemplate.executeWithoutResult(status ->
+                toolService.applyBatchReturn(Map.of(drill.getId(), 1), Map.of(saw.getId(), 1)));
+        statistics.clear();
+        ToolEntity drillAfter = toolRepository.findById(drill.getId()).orElseThrow();
+        ToolEntity sawAfter = toolRepository.findById(saw.getId()).orElseThrow();
+        toolRepository.findById(sander.getId()).orElseThrow();
+
+        // ASSERT: las dos herramientas devueltas se releen con su estado nuevo; la tercera sigue en caché
+        assertEquals(2, drillAfter.getStock());
+        assertEquals(1, sawAfter.getInRepair());
+        assertEquals(2L, statistics.getDomainDataRegionStatistics("tools").getMissCount());
+        assertEquals(1L, statistics.getDomainDataRegionStatistics("tools").getHitCount());
+    }
+
+    @Test
+    void loanWorkload_KeepsCatalogReadsCached() {
+        // ARRANGE: catálogo de 20 herramientas, ninguna en caché
+        List<Long> toolIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            toolIds.add(saveTool("Herramienta " + i, 100).getId());
+        }
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        // ACT: 100 préstamos; tras cada uno se consulta la ficha de todo el catálogo (GET /tools/{id})
+        for (int i = 0; i < 100; i++) {
+            assertTrue(loan(toolIds.get((i * 7) % toolIds.size())));
+            toolIds.forEach(id -> toolRepository.findById(id).orElseThrow());
+        }
+
+        // ASSERT: cada préstamo invalida solo su herramienta. Fallos: la primera vuelta por el catálogo (1 + 20) y
+        // una relectura de la herramienta prestada en cada una de las 99 vueltas siguientes
+        CacheRegionStatistics tools = statistics.getDomainDataRegionStatistics("tools");
+        System.out.printf("tools region: %d hits, %d misses%n", tools.getHitCount(), tools.getMissCount());
+        assertEquals(120L, tools.getMissCount());
+        assertEquals(1980L, tools.getHitCount());
+    }
+
+    @Test
+    void toolsRegion_HoldsTheLoadProfileCatalog() {
+        // ARRANGE: catálogo del perfil de carga (loadtest.seed.tools=10000), cargado en caché por una consulta
+        List<ToolEntity> catalog = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            catalog.add(ToolEntity.builder().name("Herramienta " + i).category("Carga").status(ToolStatus.AVAILABLE)
+                    .stock(5).inRepair(0).replacementValue(45000).build());
+        }
+        List<Long> toolIds = toolRepository.saveAll(catalog).stream().map(ToolEntity::getId).toList();
+        entityManagerFactory.getCache().evictAll();
+        toolRepository.findAll();
+        statistics.clear();
+
+        // ACT: segunda vuelta por todo el catálogo
+        toolIds.forEach(id -> toolRepository.findById(id).orElseThrow());
+
+        // ASSERT: la región no desaloja ninguna herramienta
+        CacheRegionStatistics tools = statistics.getDomainDataRegionStatistics("tools");
+        assertEquals(10_000L, tools.getHitCount());
+        assertEquals(0L, tools.getMissCount());
+    }
+
+    @Test
+    void findByUsername_AlwaysReadsDatabase_UsersAreOnlyInUserLookupCache() {
+        // ARRANGE
+        UserEntity user = userRepository.save(UserEntity.builder().username("cache_user").build());
+        statistics.clear();
+
+        // ACT
+        userRepository.findByUsername("cache_user").orElseThrow();
+        UserEntity again = userRepository.findByUsername("cache_user").orElseThrow();
+
+        // ASSERT: una consulta por búsqueda y nada en la caché de segundo nivel (no hay dos copias del usuario)
+        assertEquals("cache_user", again.getUsername());
+        assertEquals(2L, statistics.getPrepareStatementCount());
+        assertFalse(entityManagerFactory.getCache().contains(UserEntity.class, user.getId()));
+    }
+}
@@ -0,0 +1,172 @@
+package com.ProyectoTGS.BackCore.Repositories;
+
+import dtos.ToolRanking;
+import entities.ClientEntity;
+import entities.LoanEntity;
+import entities.ToolEntity;
+import entities.ToolLoanDailyEntity;
+import entities.enums.ClientStatus;
+import entities.enums.LoanStatus;
+import entities.enums.ToolStatus;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import repositories.ToolLoanDailyRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Cada sentencia de ToolLoanDailyRepository contra el esquema real de las migraciones, en H2 sin modo de
+// compatibilidad: el SQL tiene que ser estándar para correr igual en PostgreSQL
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:toolloandaily;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=true",
+        "spring.flyway.locations=classpath:db/migration"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = ToolLoanDailyRepositoryTest.JpaTestConfig.class)
+public class ToolLoanDailyRepositoryTest {
+
+    @Configuration
+    @EnableJpaRepositories(basePackages = "repositories")
+    @EntityScan(basePackages = "entities")
+    static class JpaTestConfig {
+    }
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @Autowired
+    private ToolLoanDailyRepository dailyRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private ToolEntity drill;
+    private ToolEntity saw;
+    private ClientEntity client;
+
+    @BeforeEach
+    void setUp() {
+        drill = saveTool("Taladro");
+        saw = saveTool("Sierra");
+        client = ClientEntity.builder().name("Cliente").rut("1-9").status(ClientStatus.ACTIVE).build();
+        entityManager.persist(client);
+        entityManager.flush();
+    }
+
+    private ToolEntity saveTool(String name) {
+        ToolEntity tool = ToolEntity.builder()
+                .name(name).category("Electric Tools").status(ToolStatus.AVAILABLE)
+                .stock(10).inRepair(0).replacementValue(45000).build();
+        entityManager.persist(tool);
+        return tool;
+    }
+
+    private void saveLoan(ToolEntity tool, LocalDate startDate) {
+        entityManager.persist(LoanEntity.builder()
+                .client(client).tool(tool).status(LoanStatus.ACTIVE)
+                .startDate(startDate).dueDate(startDate.plusDays(7)).build());
+    }
+
+    // Las sentencias masivas no pasan por el contexto de persistencia: se relee desde la BD
+    private long loanCount(ToolEntity tool, LocalDate day) {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.createQuery(
+                        "SELECT d FROM ToolLoanDailyEntity d WHERE d.tool.id = :toolId AND d.loanDay = :day",
+                        ToolLoanDailyEntity.class)
+                .setParameter("toolId", tool.getId())
+                .setParameter("day", day)
+                .getResultStream()
+                .mapToLong(ToolLoanDailyEntity::getLoanCount)
+                .sum();
+    }
+
+    @Test
+    void addLoans_ReturnsZero_WhenDayRowDoesNotExist() {
+        assertEquals(0, dailyRepository.addLoans(drill.getId(), DAY, 1));
+        assertEquals(0L, loanCount(drill, DAY));
+    }
+
+    @Test
+    void insertDay_CreatesRowWithDelta_OnlyOnce() {
+        // ACT: el segundo INSERT encuentra la fila y no hace nada
+        int first = dailyRepository.insertDay(drill.getId(), DAY, 2);
+        int second = dailyRepository.insertDay(drill.getId(), DAY, 2);
+
+        // ASSERT
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals(2L, loanCount(drill, DAY));
+    }
+
+    @Test
+    void addLoans_AddsToExistingDayRow() {
+        // ARRANGE
+        dailyRepository.insertDay(drill.getId(), DAY, 1);
+        dailyRepository.insertDay(drill.getId(), DAY.plusDays(1), 1);
+
+        // ACT
+        int updated = dailyRepository.addLoans(drill.getId(), DAY, 3);
+
+        // ASSERT: solo cambia la fila de ese día
+        assertEquals(1, updated);
+        assertEquals(4L, loanCount(drill, DAY));
+        assertEquals(1L, loanCount(drill, DAY.plusDays(1)));
+    }
+
+    @Test
+    void rebuildRange_AggregatesLoansPerToolAndDay_InsideRange() {
+        // ARRANGE: 2 préstamos del taladro y 1 de la sierra el mismo día; uno fuera del rango
+        saveLoan(drill, DAY);
+        saveLoan(drill, DAY);
+        saveLoan(saw, DAY);
+        saveLoan(saw, DAY.plusDays(30));
+        entityManager.flush();
+        dailyRepository.insertDay(drill.getId(), DAY, 99); // Fila desviada dentro del rango
+
+        // ACT
+        dailyRepository.deleteRange(DAY, DAY.plusDays(6));
+        int rows = dailyRepository.rebuildRange(DAY, DAY.plusDays(6));
+
+        // ASSERT
+        assertEquals(2, rows);
+        assertEquals(2L, loanCount(drill, DAY));
+        assertEquals(1L, loanCount(saw, DAY));
+        assertEquals(0L, loanCount(saw, DAY.plusDays(30)));
+    }
+
+    @Test
+    void findRanking_SumsDailyRowsInRange() {
+        // ARRANGE
+        dailyRepository.insertDay(drill.getId(), DAY, 2);
+        dailyRepository.insertDay(drill.getId(), DAY.plusDays(1), 2);
+        dailyRepository.insertDay(saw.getId(), DAY, 3);
+        dailyRepository.insertDay(saw.getId(), DAY.plusDays(10), 5); // Fuera del rango
+
+        // ACT
+        List<ToolRanking> ranking = dailyRepository.findRanking(DAY, DAY.plusDays(6), PageRequest.of(0, 10));
+
+        // ASSERT
+        assertEquals(2, ranking.size());
+        assertEquals(drill.getId(), ranking.get(0).toolId());
+        assertEquals(4L, ranking.get(0).totalLoans());
+        assertEquals(saw.getId(), ranking.get(1).toolId());
+        assertEquals(3L, ranking.get(1).totalLoans());
+    }
+}
@@ -0,0 +1,120 @@
+package com.ProyectoTGS.BackCore.Repositories;
+
+import entities.ToolEntity;
+import entities.enums.ToolStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import repositories.ToolRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Prueba de estrés sobre H2 real: muchos hilos compitiendo por las últimas unidades de una herramienta
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stockstress;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = ToolRepositoryConcurrencyTest.JpaTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Cada hilo usa su propia transacción
+public class ToolRepositoryConcurrencyTest {
+
+    @Configuration
+    @EnableJpaRepositories(basePackages = "repositories")
+    @EntityScan(basePackages = "entities")
+    static class JpaTestConfig {
+    }
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS = 200;
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reserveUnit_NeverDrivesStockBelowZero_UnderConcurrentLoans() throws Exception {
+        // ARRANGE: herramienta "popular" con pocas unidades y muchos más intentos que stock
+        int initialStock = 25;
+        ToolEntity tool = toolRepository.save(ToolEntity.builder()
+                .name("Taladro Popular")
+                .category("Electric Tools")
+                .status(ToolStatus.AVAILABLE)
+                .stock(initialStock)
+                .inRepair(0)
+                .replacementValue(45000)
+                .build());
+        Long toolId = tool.getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return toolRepository.reserveUnit(toolId);
+            }));
+        }
+
+        // ACT: liberar todos los hilos a la vez
+        start.countDown();
+        int wins = 0;
+        for (Future<Integer> result : results) {
+            wins += result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // ASSERT: exactamente 'initialStock' reservas ganadas, stock en 0 y estado LOANED (leídos de la BD, no de la caché)
+        assertEquals(initialStock, wins);
+        assertEquals(0, stockInDatabase(toolId));
+        assertEquals(ToolStatus.LOANED.name(),
+                jdbcTemplate.queryForObject("SELECT status FROM tools WHERE id = ?", String.class, toolId));
+    }
+
+    @Test
+    void reserveUnit_ReturnsZero_WhenToolIsNotAvailable() {
+        // ARRANGE: herramienta en reparación con stock (no debe prestarse)
+        ToolEntity repairing = toolRepository.save(ToolEntity.builder()
+                .name("Sierra en Reparación")
+                .category("Electric Tools")
+                .status(ToolStatus.REPAIRING)
+                .stock(3)
+                .inRepair(1)
+                .replacementValue(60000)
+                .build());
+
+        // ACT
+        int updated = toolRepository.reserveUnit(repairing.getId());
+
+        // ASSERT
+        assertEquals(0, updated);
+        assertEquals(3, stockInDatabase(repairing.getId()));
+    }
+
+    private int stockInDatabase(Long toolId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM tools WHERE id = ?", Integer.class, toolId);
+    }
+}
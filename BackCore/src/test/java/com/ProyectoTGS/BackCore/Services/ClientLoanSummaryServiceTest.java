@@ -0,0 +1,133 @@
+package com.ProyectoTGS.BackCore.Services;
+
+import dtos.LoanEligibility;
+import entities.ClientLoanSummaryEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import repositories.ClientLoanSummaryRepository;
+import repositories.LoanRepository;
+import services.ClientLoanSummaryService;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ClientLoanSummaryServiceTest {
+
+    @Mock
+    private ClientLoanSummaryRepository summaryRepository;
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @InjectMocks
+    private ClientLoanSummaryService clientLoanSummaryService;
+
+    @Test
+    void getSummary_ReturnsEmptySummary_WhenClientHasNoRow() {
+        when(summaryRepository.findById(7L)).thenReturn(Optional.empty());
+
+        ClientLoanSummaryEntity summary = clientLoanSummaryService.getSummary(7L);
+
+        assertEquals(7L, summary.getClientId());
+        assertEquals(0, summary.getOpenLoans());
+        assertEquals(0.0, summary.getOutstandingBalance());
+    }
+
+    @Test
+    void getEligibility_SkipsToolCheck_WhenClientHasNoOpenLoans() {
+        // ARRANGE: cliente sin préstamos abiertos
+        when(summaryRepository.findById(1L)).thenReturn(Optional.of(ClientLoanSummaryEntity.empty(1L)));
+
+        // ACT
+        LoanEligibility eligibility = clientLoanSummaryService.getEligibility(1L, 10L);
+
+        // ASSERT: una sola lectura por clave primaria
+        assertEquals(0L, eligibility.openLoans());
+        assertEquals(0L, eligibility.sameToolLoans());
+        verify(loanRepository, never()).existsByClient_IdAndTool_IdAndStatusIn(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void getEligibility_ChecksSameTool_WhenClientHasOpenLoans() {
+        // ARRANGE: 2 préstamos abiertos, uno atrasado, y ya tiene la herramienta 10
+        when(summaryRepository.findById(1L)).thenReturn(Optional.of(ClientLoanSummaryEntity.builder()
+                .clientId(1L).openLoans(2).lateLoans(1).unpaidLoans(1).build()));
+        when(loanRepository.existsByClient_IdAndTool_IdAndStatusIn(eq(1L), eq(10L), any())).thenReturn(true);
+
+        // ACT
+        LoanEligibility eligibility = clientLoanSummaryService.getEligibility(1L, 10L);
+
+        // ASSERT
+        assertEquals(1L, eligibility.lateLoans());
+        assertEquals(1L, eligibility.unpaidLoans());
+        assertEquals(2L, eligibility.openLoans());
+        assertEquals(1L, eligibility.sameToolLoans());
+    }
+
+    @Test
+    void recordLoanReturned_MovesLoanFromOpenToUnpaid_WhenAmountIsDue() {
+        when(summaryRepository.applyDelta(eq(1L), eq(-1), eq(-1), eq(1), eq(15000.0), any())).thenReturn(1);
+
+        clientLoanSummaryService.recordLoanReturned(1L, true, 15000.0);
+
+        verify(summaryRepository, never()).insertSummary(anyLong(), anyInt(), anyInt(), anyInt(), anyDouble(), any());
+    }
+
+    @Test
+    void recordLoanPaid_ClearsDebt() {
+        when(summaryRepository.applyDelta(eq(1L), eq(0), eq(0), eq(-1), eq(-5000.0), any())).thenReturn(1);
+
+        clientLoanSummaryService.recordLoanPaid(1L, 5000.0);
+
+        verify(summaryRepository).applyDelta(eq(1L), eq(0), eq(0), eq(-1), eq(-5000.0), any());
+    }
+
+    @Test
+    void recordLoanOpened_CreatesRow_WhenClientHasNone() {
+        // ARRANGE: primer préstamo del cliente, todavía sin fila
+        when(summaryRepository.applyDelta(eq(7L), eq(1), eq(0), eq(0), eq(0.0), any())).thenReturn(0);
+        when(summaryRepository.insertSummary(eq(7L), eq(1), eq(0), eq(0), eq(0.0), any())).thenReturn(1);
+
+        // ACT
+        clientLoanSummaryService.recordLoanOpened(7L);
+
+        // ASSERT: el INSERT lleva el delta como valor inicial; no se vuelve a sumar
+        verify(summaryRepository, times(1)).applyDelta(eq(7L), eq(1), eq(0), eq(0), eq(0.0), any());
+    }
+
+    @Test
+    void recordLoanOpened_UpdatesAgain_WhenRowWasCreatedConcurrently() {
+        // ARRANGE: la fila no estaba en el UPDATE, pero otra transacción la creó antes del INSERT
+        when(summaryRepository.applyDelta(eq(7L), eq(1), eq(0), eq(0), eq(0.0), any())).thenReturn(0, 1);
+        when(summaryRepository.insertSummary(eq(7L), eq(1), eq(0), eq(0), eq(0.0), any())).thenReturn(0);
+
+        // ACT
+        clientLoanSummaryService.recordLoanOpened(7L);
+
+        // ASSERT
+        verify(summaryRepository, times(2)).applyDelta(eq(7L), eq(1), eq(0), eq(0), eq(0.0), any());
+    }
+
+    @Test
+    void rebuild_DeletesThenRecomputesClientRow() {
+        when(summaryRepository.findById(1L)).thenReturn(Optional.of(ClientLoanSummaryEntity.empty(1L)));
+
+        clientLoanSummaryService.rebuild(1L);
+
+        InOrder inOrder = inOrder(summaryRepository);
+        inOrder.verify(summaryRepository).deleteSummary(1L);
+        inOrder.verify(summaryRepository).rebuildClient(1L);
+    }
+}
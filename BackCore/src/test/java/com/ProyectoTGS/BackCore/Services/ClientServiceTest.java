@@ -1,9 +1,9 @@
 package com.ProyectoTGS.BackCore.Services;
 
+import app.utils.TableVersions;
 import entities.ClientEntity;
-import entities.LoanEntity;
+import entities.ClientLoanSummaryEntity;
 import entities.enums.ClientStatus;
-import entities.enums.LoanStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,7 +11,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import repositories.ClientRepository;
-import repositories.LoanRepository;
+import services.ClientLoanSummaryService;
 import services.ClientService;
 import dtos.UpdateClientRequest;
 import app.exceptions.InvalidOperationException;
@@ -24,7 +24,6 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
@@ -34,6 +33,9 @@ public class ClientServiceTest {
     @Mock
     private ClientRepository clientRepository;
 
+    @Mock
+    private TableVersions tableVersions;
+
     @InjectMocks
     private ClientService clientService;
 
@@ -87,6 +89,7 @@ public class ClientServiceTest {
         assertNotNull(created);
         assertEquals(ClientStatus.ACTIVE, created.getStatus());
         verify(clientRepository, times(1)).save(newClient);
+        verify(tableVersions, times(1)).touch(TableVersions.Table.CLIENTS); // Nuevo ETag para GET /clients
     }
 
     @Test
@@ -99,6 +102,7 @@ public class ClientServiceTest {
             clientService.createClient(newClient);
         }, "Debe fallar si el RUT ya existe.");
         verify(clientRepository, never()).save(any());
+        verify(tableVersions, never()).touch(any());
     }
 
     @Test
@@ -273,8 +277,8 @@ public class ClientServiceTest {
     // MÉTODO: attemptClientReactivation
     // =======================================================================
 
-    @Mock // Necesitamos mockear LoanRepository también
-    private LoanRepository loanRepository;
+    @Mock // Contadores del cliente (client_loan_summary)
+    private ClientLoanSummaryService clientLoanSummaryService;
 
     @Test
     void attemptClientReactivation_Success_WhenNoDebtsOrLateLoans() {
@@ -289,11 +293,8 @@ public class ClientServiceTest {
         // Mockeo:
         // 1. Encontrar al cliente
         when(clientRepository.findById(clientId)).thenReturn(Optional.of(restrictedClient));
-        // 2. Verificar que no hay préstamos LATE
-        when(loanRepository.countByClientAndStatus(restrictedClient, LoanStatus.LATE)).thenReturn(0L); // 0 préstamos LATE
-        // 3. Verificar que no hay préstamos RECEIVED con deuda
-        when(loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(restrictedClient, LoanStatus.RECEIVED, 0.0))
-                .thenReturn(Collections.emptyList()); // Lista vacía = sin deudas
+        // 2 y 3. Contadores: sin préstamos LATE ni RECEIVED con deuda
+        when(clientLoanSummaryService.getSummary(clientId)).thenReturn(ClientLoanSummaryEntity.empty(clientId));
         // 4. Simular el guardado (cuando se llama a updateStatus internamente)
         //    Devuelve el cliente con el estado ya cambiado a ACTIVE
         when(clientRepository.save(any(ClientEntity.class))).thenAnswer(invocation -> {
@@ -312,8 +313,7 @@ public class ClientServiceTest {
 
         // Verificar que se realizaron las comprobaciones necesarias
         verify(clientRepository, times(2)).findById(clientId);
-        verify(loanRepository, times(1)).countByClientAndStatus(restrictedClient, LoanStatus.LATE);
-        verify(loanRepository, times(1)).findByClientAndStatusAndTotalPenaltyGreaterThan(restrictedClient, LoanStatus.RECEIVED, 0.0);
+        verify(clientLoanSummaryService, times(1)).getSummary(clientId);
         // Verificar que se guardó el cambio de estado
         verify(clientRepository, times(1)).save(argThat(client ->
                 client.getId().equals(clientId) && client.getStatus().equals(ClientStatus.ACTIVE)
@@ -344,8 +344,7 @@ public class ClientServiceTest {
         // Verificar que solo se llamó a findById una vez
         verify(clientRepository, times(1)).findById(clientId);
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO se hicieron chequeos de préstamos
-        verify(loanRepository, never()).countByClientAndStatus(any(ClientEntity.class), any(LoanStatus.class));
-        verify(loanRepository, never()).findByClientAndStatusAndTotalPenaltyGreaterThan(any(ClientEntity.class), any(LoanStatus.class), anyDouble());
+        verify(clientLoanSummaryService, never()).getSummary(any());
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO se intentó guardar nada
         verify(clientRepository, never()).save(any(ClientEntity.class));
     }
@@ -363,8 +362,9 @@ public class ClientServiceTest {
         // Mockeo:
         // 1. Encontrar al cliente
         when(clientRepository.findById(clientId)).thenReturn(Optional.of(restrictedClientWithLateLoan));
-        // 2. SIMULAR QUE TIENE PRÉSTAMOS LATE (devolver > 0)
-        when(loanRepository.countByClientAndStatus(restrictedClientWithLateLoan, LoanStatus.LATE)).thenReturn(1L); // Tiene 1 préstamo LATE
+        // 2. SIMULAR QUE TIENE PRÉSTAMOS LATE (contador > 0)
+        when(clientLoanSummaryService.getSummary(clientId)).thenReturn(ClientLoanSummaryEntity.builder()
+                .clientId(clientId).openLoans(1).lateLoans(1).build()); // Tiene 1 préstamo LATE
 
         // ACT & ASSERT: Esperamos que lance InvalidOperationException
         assertThrows(InvalidOperationException.class, () -> {
@@ -373,9 +373,7 @@ public class ClientServiceTest {
 
         // Verificar que se hicieron las comprobaciones hasta el punto de fallo
         verify(clientRepository, times(1)).findById(clientId);
-        verify(loanRepository, times(1)).countByClientAndStatus(restrictedClientWithLateLoan, LoanStatus.LATE);
-        // VERIFICACIÓN CRÍTICA: Asegurarse de que NO continuó verificando deudas RECEIVED
-        verify(loanRepository, never()).findByClientAndStatusAndTotalPenaltyGreaterThan(any(ClientEntity.class), any(LoanStatus.class), anyDouble());
+        verify(clientLoanSummaryService, times(1)).getSummary(clientId);
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO se intentó guardar (cambiar estado)
         verify(clientRepository, never()).save(any(ClientEntity.class));
     }
@@ -390,22 +388,18 @@ public class ClientServiceTest {
                 .status(ClientStatus.RESTRICTED)
                 .build();
 
-        // Simular un préstamo RECEIVED con penalidad pendiente
-        LoanEntity unpaidLoan = LoanEntity.builder()
-                .id(101L)
-                .client(restrictedClientWithDebt)
-                .status(LoanStatus.RECEIVED)
-                .totalPenalty(5000.0) // Tiene deuda pendiente
+        // Simular un préstamo RECEIVED con penalidad pendiente (1 préstamo impago, saldo 5000)
+        ClientLoanSummaryEntity summaryWithDebt = ClientLoanSummaryEntity.builder()
+                .clientId(clientId)
+                .unpaidLoans(1)
+                .outstandingBalance(5000.0) // Tiene deuda pendiente
                 .build();
 
         // Mockeo:
         // 1. Encontrar al cliente
         when(clientRepository.findById(clientId)).thenReturn(Optional.of(restrictedClientWithDebt));
-        // 2. No tiene préstamos LATE
-        when(loanRepository.countByClientAndStatus(restrictedClientWithDebt, LoanStatus.LATE)).thenReturn(0L);
-        // 3. SIMULAR QUE TIENE DEUDAS PENDIENTES (lista NO vacía)
-        when(loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(restrictedClientWithDebt, LoanStatus.RECEIVED, 0.0))
-                .thenReturn(List.of(unpaidLoan)); // Devuelve una lista con el préstamo pendiente
+        // 2 y 3. No tiene préstamos LATE pero SÍ deudas pendientes
+        when(clientLoanSummaryService.getSummary(clientId)).thenReturn(summaryWithDebt);
 
         // ACT & ASSERT: Esperamos que lance InvalidOperationException
         assertThrows(InvalidOperationException.class, () -> {
@@ -414,8 +408,7 @@ public class ClientServiceTest {
 
         // Verificar que se hicieron las comprobaciones hasta el punto de fallo
         verify(clientRepository, times(1)).findById(clientId);
-        verify(loanRepository, times(1)).countByClientAndStatus(restrictedClientWithDebt, LoanStatus.LATE);
-        verify(loanRepository, times(1)).findByClientAndStatusAndTotalPenaltyGreaterThan(restrictedClientWithDebt, LoanStatus.RECEIVED, 0.0);
+        verify(clientLoanSummaryService, times(1)).getSummary(clientId);
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO se intentó guardar (cambiar estado)
         verify(clientRepository, never()).save(any(ClientEntity.class));
     }
@@ -436,8 +429,7 @@ public class ClientServiceTest {
         // Verificar que solo se intentó buscar al cliente una vez
         verify(clientRepository, times(1)).findById(nonExistentClientId);
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO se hicieron chequeos de préstamos
-        verify(loanRepository, never()).countByClientAndStatus(any(ClientEntity.class), any(LoanStatus.class));
-        verify(loanRepository, never()).findByClientAndStatusAndTotalPenaltyGreaterThan(any(ClientEntity.class), any(LoanStatus.class), anyDouble());
+        verify(clientLoanSummaryService, never()).getSummary(any());
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO se intentó guardar nada
         verify(clientRepository, never()).save(any(ClientEntity.class));
     }
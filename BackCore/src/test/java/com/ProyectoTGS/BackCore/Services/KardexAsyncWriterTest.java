@@ -0,0 +1,181 @@
+package com.ProyectoTGS.BackCore.Services;
+
+import entities.KardexEntity;
+import entities.ToolEntity;
+import entities.enums.MovementType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import repositories.KardexRepository;
+import repositories.ToolRepository;
+import repositories.UserRepository;
+import services.KardexAsyncWriter;
+import services.KardexAsyncWriter.PendingMovement;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT) // El hilo escritor puede o no llegar a usar algunos stubs
+public class KardexAsyncWriterTest {
+
+    @Mock private KardexRepository kardexRepository;
+    @Mock private ToolRepository toolRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private KardexAsyncWriter writer;
+    private AtomicInteger written;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        written = new AtomicInteger();
+        when(toolRepository.getReferenceById(anyLong())).thenAnswer(inv -> ToolEntity.builder().id(inv.getArgument(0)).build());
+        when(kardexRepository.saveAll(any())).thenAnswer(inv -> {
+            List<KardexEntity> batch = inv.getArgument(0);
+            written.addAndGet(batch.size());
+            return batch;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private KardexAsyncWriter newWriter(boolean enabled, int capacity, Duration offerTimeout) {
+        return new KardexAsyncWriter(kardexRepository, toolRepository, userRepository, transactionManager,
+                meterRegistry, enabled, capacity, 50, offerTimeout, Duration.ofSeconds(10));
+    }
+
+    private static PendingMovement movement(long toolId) {
+        return new PendingMovement(toolId, MovementType.LOAN, 1, null, LocalDateTime.now(), System.nanoTime());
+    }
+
+    @Test
+    void close_FlushesEveryQueuedMovement() {
+        // ARRANGE
+        writer = newWriter(true, 1000, Duration.ofMillis(100));
+        for (int i = 0; i < 120; i++) {
+            writer.enqueue(List.of(movement(i + 1)));
+        }
+
+        // ACT
+        writer.close();
+
+        // ASSERT: nada se pierde al apagar
+        assertEquals(120, written.get());
+        assertEquals(0, writer.queueDepth());
+        assertEquals(120.0, meterRegistry.get("kardex.async.written").counter().count());
+        assertEquals(120L, meterRegistry.get("kardex.async.lag").timer().count());
+    }
+
+    @Test
+    void enqueue_WritesSynchronouslyWhenQueueIsFull() throws Exception {
+        // ARRANGE: el primer lote del hilo escritor queda bloqueado para llenar la cola (capacidad 1)
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        // doAnswer: when(saveAll(...)) ejecutaría el stub de setUp con un argumento null
+        doAnswer(inv -> {
+            if (first.compareAndSet(true, false)) {
+                workerBusy.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            List<KardexEntity> batch = inv.getArgument(0);
+            written.addAndGet(batch.size());
+            return batch;
+        }).when(kardexRepository).saveAll(any());
+        writer = newWriter(true, 1, Duration.ZERO);
+        writer.enqueue(List.of(movement(1)));
+        assertTrue(workerBusy.await(5, TimeUnit.SECONDS));
+        writer.enqueue(List.of(movement(2))); // ocupa la cola
+
+        // ACT: cola llena -> el llamador escribe su movimiento
+        writer.enqueue(List.of(movement(3)));
+
+        // ASSERT
+        assertEquals(1.0, meterRegistry.get("kardex.async.rejected").counter().count());
+        assertEquals(1, written.get());
+        release.countDown();
+        writer.close();
+        assertEquals(3, written.get());
+    }
+
+    @Test
+    void enqueue_AfterCloseWritesSynchronously() {
+        writer = newWriter(true, 10, Duration.ofMillis(10));
+        writer.close();
+
+        writer.enqueue(List.of(movement(1)));
+
+        assertEquals(1, written.get());
+        assertEquals(1.0, meterRegistry.get("kardex.async.rejected").counter().count());
+    }
+
+    @Test
+    void close_LosesNothing_WhileOtherThreadsKeepEnqueueing() throws Exception {
+        // ARRANGE: productores que encolan mientras el servidor se apaga
+        writer = newWriter(true, 64, Duration.ofMillis(5));
+        int producers = 4;
+        int perProducer = 2000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    writer.enqueue(List.of(movement(i + 1)));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        // ACT: cerrar en medio de la carga
+        start.countDown();
+        Thread.sleep(5);
+        writer.close();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+
+        // ASSERT: cada movimiento quedó escrito (por el hilo, por el vaciado final o en forma síncrona)
+        assertEquals(producers * perProducer, written.get());
+        assertEquals(0, writer.queueDepth());
+    }
+
+    @Test
+    void disabledWriter_DoesNotStartBackgroundThread() {
+        writer = newWriter(false, 10, Duration.ofMillis(10));
+
+        assertFalse(writer.isEnabled());
+        assertEquals(0.0, meterRegistry.get("kardex.async.queue.depth").gauge().value());
+    }
+}
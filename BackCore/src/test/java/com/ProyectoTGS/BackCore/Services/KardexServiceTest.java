@@ -12,14 +12,28 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import repositories.KardexRepository;
 import repositories.ToolRepository;
+import services.KardexAsyncWriter;
 import services.KardexService;
+import dtos.KardexEntry;
+import dtos.KardexExportRequest;
+import dtos.KardexMovement;
+import dtos.ScrollResponse;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import app.exceptions.ResourceNotFoundException;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 import java.util.Collections; 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +45,9 @@ public class KardexServiceTest {
     @Mock // Añadir Mock para ToolRepository
     private ToolRepository toolRepository;
 
+    @Mock // Modo asíncrono desactivado salvo que el test lo active
+    private KardexAsyncWriter asyncWriter;
+
     @InjectMocks
     private KardexService kardexService;
 
@@ -100,6 +117,76 @@ public class KardexServiceTest {
         verify(kardexRepository, never()).save(any()); // No debe intentar guardar
     }
 
+    // =======================================================================
+    // MÉTODOS: registerManagedMovement / registerMovements (ruta interna)
+    // =======================================================================
+
+    @Test
+    void registerManagedMovement_SkipsExistenceQuery() {
+        // ACT
+        kardexService.registerManagedMovement(testTool, MovementType.REPAIR, 1, testUser);
+
+        // ASSERT: se guarda sin consultar si la herramienta existe
+        verify(kardexRepository, times(1)).save(argThat(k ->
+                k.getTool().equals(testTool) && k.getType() == MovementType.REPAIR && k.getQuantity() == 1));
+        verifyNoInteractions(toolRepository);
+    }
+
+    @Test
+    void registerManagedMovement_FailsWhenToolIsNotPersisted() {
+        assertThrows(ResourceNotFoundException.class, () ->
+                kardexService.registerManagedMovement(toolWithoutId, MovementType.REPAIR, 1, testUser));
+        verify(kardexRepository, never()).save(any());
+    }
+
+    @Test
+    void registerMovements_SavesAllInOneCall() {
+        // ARRANGE
+        ToolEntity otherTool = ToolEntity.builder().id(2L).name("Other Tool").build();
+        List<KardexEntry> entries = List.of(
+                new KardexEntry(testTool, MovementType.RETURN, 1, testUser),
+                new KardexEntry(otherTool, MovementType.LOAN, 1, testUser));
+
+        // ACT
+        kardexService.registerMovements(entries);
+
+        // ASSERT: un solo saveAll con ambos movimientos y la misma fecha
+        verify(kardexRepository, times(1)).saveAll(argThat((List<KardexEntity> list) ->
+                list.size() == 2
+                        && list.get(0).getType() == MovementType.RETURN
+                        && list.get(1).getTool().equals(otherTool)
+                        && list.get(0).getMovementDate().equals(list.get(1).getMovementDate())));
+        verify(kardexRepository, never()).save(any());
+        verifyNoInteractions(toolRepository);
+    }
+
+    @Test
+    void registerManagedMovement_EnqueuesWhenAsyncModeIsEnabled() {
+        // ARRANGE: sin transacción activa se encola de inmediato
+        when(asyncWriter.isEnabled()).thenReturn(true);
+
+        // ACT
+        kardexService.registerManagedMovement(testTool, MovementType.RETURN, 1, testUser);
+
+        // ASSERT: no hay INSERT en el hilo del llamador, solo ids en la cola
+        verify(asyncWriter, times(1)).enqueue(argThat(list -> list.size() == 1
+                && list.get(0).toolId().equals(1L)
+                && list.get(0).userId().equals(10L)
+                && list.get(0).type() == MovementType.RETURN));
+        verify(kardexRepository, never()).save(any());
+        verify(kardexRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void registerMovements_RejectsBatchWithUnpersistedTool() {
+        List<KardexEntry> entries = List.of(
+                new KardexEntry(testTool, MovementType.RETURN, 1, testUser),
+                new KardexEntry(toolWithoutId, MovementType.LOAN, 1, testUser));
+
+        assertThrows(ResourceNotFoundException.class, () -> kardexService.registerMovements(entries));
+        verify(kardexRepository, never()).saveAll(any());
+    }
+
     // =======================================================================
     // MÉTODO: getMovementsByTool
     // =======================================================================
@@ -266,4 +353,127 @@ public class KardexServiceTest {
         }, "Debe lanzar IllegalArgumentException si endDate es anterior a startDate.");
         verify(kardexRepository, never()).findByMovementDateBetween(any(), any());
     }
-}
\ No newline at end of file
+
+    // =======================================================================
+    // MÉTODO: listMovementsByToolId (proyección)
+    // =======================================================================
+
+    @Test
+    void listMovementsByToolId_ReturnsProjectionWithoutUserPassword() {
+        // ARRANGE
+        KardexMovement movement = new KardexMovement(7L, LocalDateTime.now(), MovementType.LOAN, 1, 1L, "Taladro", 2L, "admin");
+        when(toolRepository.existsById(1L)).thenReturn(true);
+        when(kardexRepository.findMovementsByToolId(1L)).thenReturn(List.of(movement));
+
+        // ACT
+        List<KardexMovement> result = kardexService.listMovementsByToolId(1L);
+
+        // ASSERT: solo id y username del usuario, y nunca se cargan entidades
+        assertEquals(1, result.size());
+        assertEquals("admin", result.get(0).user().username());
+        assertEquals("Taladro", result.get(0).tool().name());
+        verify(kardexRepository, never()).findByTool_Id(any());
+    }
+
+    @Test
+    void listMovementsByToolId_ThrowsWhenToolDoesNotExist() {
+        when(toolRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> kardexService.listMovementsByToolId(99L));
+        verify(kardexRepository, never()).findMovementsByToolId(any());
+    }
+
+    // =======================================================================
+    // MÉTODO: getMovementsByDateAfter (keyset)
+    // =======================================================================
+
+    @Test
+    void getMovementsByDateAfter_ReturnsNextCursorAndCapsPageSize() {
+        // ARRANGE: bloque con 2 movimientos y más datos disponibles
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        LocalDateTime end = LocalDateTime.now();
+        KardexMovement m1 = new KardexMovement(51L, start, MovementType.LOAN, 1, 1L, "Taladro", 1L, "admin");
+        KardexMovement m2 = new KardexMovement(52L, start, MovementType.RETURN, 1, 1L, "Taladro", 1L, "admin");
+        when(kardexRepository.findMovementsByDateBetweenAfter(eq(start), eq(end), eq(50L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(m1, m2), PageRequest.of(0, 100), true));
+
+        // ACT: se pide un tamaño mayor al máximo permitido
+        ScrollResponse<KardexMovement> result = kardexService.getMovementsByDateAfter(start, end, 50L, 10_000);
+
+        // ASSERT
+        assertEquals(2, result.content().size());
+        assertEquals(52L, result.nextAfter());
+        assertTrue(result.hasNext());
+        verify(kardexRepository).findMovementsByDateBetweenAfter(
+                eq(start), eq(end), eq(50L), argThat(pageable -> pageable.getPageSize() == 100));
+    }
+
+    @Test
+    void getMovementsByDateAfter_FailsWhenEndDateIsBeforeStartDate() {
+        LocalDateTime start = LocalDateTime.now();
+        LocalDateTime end = start.minusDays(1);
+
+        assertThrows(IllegalArgumentException.class, () -> kardexService.getMovementsByDateAfter(start, end, null, 20));
+        verifyNoInteractions(kardexRepository);
+    }
+
+    // =======================================================================
+    // MÉTODO: exportMovements (streaming)
+    // =======================================================================
+
+    @Test
+    void exportMovements_WritesCsvRowsAndClosesCursor() {
+        // ARRANGE: nombre con coma y comillas para probar el escapado
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 12, 31, 23, 59);
+        KardexMovement m1 = new KardexMovement(1L, start, MovementType.LOAN, 1, 10L, "Sierra, \"pro\"", 2L, "admin");
+        AtomicBoolean closed = new AtomicBoolean(false);
+        when(kardexRepository.streamMovements(start, end, 10L, MovementType.LOAN))
+                .thenReturn(Stream.of(m1).onClose(() -> closed.set(true)));
+        KardexExportRequest request = new KardexExportRequest(start, end, 10L, MovementType.LOAN, KardexExportRequest.Format.CSV, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // ACT
+        long rows = kardexService.exportMovements(request, out);
+
+        // ASSERT
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1L, rows);
+        assertEquals("id,movement_date,type,quantity,tool_id,tool_name,user_id,username", lines[0]);
+        assertEquals("1,2025-01-01T00:00,LOAN,1,10,\"Sierra, \"\"pro\"\"\",2,admin", lines[1]);
+        assertTrue(closed.get(), "El cursor debe cerrarse al terminar la exportación.");
+    }
+
+    @Test
+    void exportMovements_WritesOneJsonObjectPerLine() {
+        // ARRANGE
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime end = start.plusDays(1);
+        KardexMovement m1 = new KardexMovement(1L, start, MovementType.LOAN, 1, 10L, "Taladro", 2L, "admin");
+        KardexMovement m2 = new KardexMovement(2L, start, MovementType.RETURN, 1, 10L, "Taladro", 2L, "admin");
+        when(kardexRepository.streamMovements(start, end, null, null)).thenReturn(Stream.of(m1, m2));
+        KardexExportRequest request = new KardexExportRequest(start, end, null, null, KardexExportRequest.Format.NDJSON, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // ACT
+        long rows = kardexService.exportMovements(request, out);
+
+        // ASSERT: sin cabecera, una línea por movimiento, sin datos sensibles del usuario
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2L, rows);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[1].contains("\"type\":\"RETURN\""));
+        assertFalse(lines[0].contains("password"));
+    }
+
+    @Test
+    void exportRequest_RejectsInvalidRangeAndFormat() {
+        LocalDateTime start = LocalDateTime.now();
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new KardexExportRequest(start, start.minusDays(1), null, null, KardexExportRequest.Format.CSV, false));
+        assertThrows(IllegalArgumentException.class, () -> KardexExportRequest.parseFormat("xml"));
+        verifyNoInteractions(kardexRepository);
+    }
+}
@@ -5,11 +5,17 @@ import entities.enums.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import app.exceptions.InvalidOperationException;
+import dtos.BatchReturnRequest;
+import dtos.BatchReturnResult;
+import dtos.LoanEligibility;
+import dtos.TariffSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import app.exceptions.ResourceNotFoundException;
 import repositories.*;
 import services.*;
@@ -18,6 +24,7 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,6 +45,8 @@ public class LoanServiceTest {
     @Mock private TariffService tariffService;
     @Mock private ClientService clientService;
     @Mock private KardexService kardexService;
+    @Mock private ToolLoanRollupService toolLoanRollupService;
+    @Mock private ClientLoanSummaryService clientLoanSummaryService;
 
     @InjectMocks
     private LoanService loanService;
@@ -47,6 +56,8 @@ public class LoanServiceTest {
     private ClientEntity clientRestricted;
     private ToolEntity toolAvailable;
     private UserEntity testUser;
+    private TariffSnapshot tariffs;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
@@ -57,9 +68,11 @@ public class LoanServiceTest {
         // La herramienta debe tener stock > 0 para que la mayoría de los préstamos pasen
         toolAvailable = ToolEntity.builder().id(10L).stock(1).status(ToolStatus.AVAILABLE).replacementValue(45000).build();
         testUser = UserEntity.builder().username("test_user").id(1L).build();
+        tariffs = new TariffSnapshot(1L, 1000.0, 2000.0, 1500.0);
         
         // Re-inicializamos el servicio para cada prueba
-        loanService = new LoanService(loanRepository, clientRepository, toolRepository, toolService, kardexService, tariffService, clientService);
+        meterRegistry = new SimpleMeterRegistry();
+        loanService = new LoanService(loanRepository, clientRepository, toolRepository, toolService, kardexService, tariffService, clientService, toolLoanRollupService, clientLoanSummaryService, meterRegistry);
     }
 
     // =========================================================================================================
@@ -76,6 +89,7 @@ public class LoanServiceTest {
         // MOCKEO: Simular que el cliente, herramienta existen, no hay préstamos y la persistencia funciona
         when(clientRepository.findById(1L)).thenReturn(Optional.of(clientActive));
         when(toolRepository.findById(10L)).thenReturn(Optional.of(toolAvailable));
+        when(clientLoanSummaryService.getEligibility(1L, 10L)).thenReturn(new LoanEligibility(0L, 0L, 0L, 0L));
         when(loanRepository.save(any(LoanEntity.class))).thenReturn(newLoan);
 
         // ACT
@@ -86,6 +100,13 @@ public class LoanServiceTest {
         assertNotNull(createdLoan);
         assertEquals(LoanStatus.ACTIVE, createdLoan.getStatus());
         verify(toolService, times(1)).decrementStockForLoan(toolAvailable, testUser);
+        // Elegibilidad desde los contadores del cliente, sin cargar préstamos completos
+        verify(clientLoanSummaryService, times(1)).getEligibility(1L, 10L);
+        verify(loanRepository, never()).findByClientAndStatus(any(), any());
+        // El agregado diario del ranking se actualiza con el préstamo
+        verify(toolLoanRollupService, times(1)).recordLoans(10L, today, 1);
+        // Y los contadores del cliente (+1 préstamo abierto)
+        verify(clientLoanSummaryService, times(1)).recordLoanOpened(1L);
     }
 
     @Test
@@ -111,13 +132,14 @@ public class LoanServiceTest {
         verify(toolRepository, times(1)).findById(toolId);
 
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO continuó con las siguientes validaciones
-        verify(loanRepository, never()).countByClientAndStatus(any(), any());
-        verify(loanRepository, never()).findByClientAndStatusAndTotalPenaltyGreaterThan(any(), any(), anyDouble());
-        verify(loanRepository, never()).findByClientAndStatus(any(), any());
+        verify(clientLoanSummaryService, never()).getEligibility(any(), any());
         
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO guardó
         verify(loanRepository, never()).save(any());
         verify(toolService, never()).decrementStockForLoan(any(), any());
+
+        // MÉTRICA: rechazo contado con su motivo
+        assertEquals(1.0, meterRegistry.get("loan.rejections").tag("reason", "restricted").counter().count());
     }
     
     @Test
@@ -132,6 +154,7 @@ public class LoanServiceTest {
         // ACT & ASSERT: Debe lanzar la excepción de argumento ilegal
         assertThrows(IllegalArgumentException.class, () -> 
             loanService.createLoan(1L, 10L, startDate, dueDate, testUser));
+        verify(clientLoanSummaryService, never()).getEligibility(any(), any()); // Fechas se validan antes de consultar
         verify(loanRepository, never()).save(any());
     }
 
@@ -142,27 +165,12 @@ public class LoanServiceTest {
         LocalDate today = LocalDate.now();
         LocalDate dueDate = today.plusDays(7);
 
-        // Lista simulada de 5 préstamos ACTIVOS
-        List<LoanEntity> fiveActiveLoans = List.of(
-            LoanEntity.builder().build(), // El contenido no importa, solo el tamaño
-            LoanEntity.builder().build(),
-            LoanEntity.builder().build(),
-            LoanEntity.builder().build(),
-            LoanEntity.builder().build()
-        );
-
         // MOCKEO
         when(clientRepository.findById(1L)).thenReturn(Optional.of(clientActive));
         when(toolRepository.findById(10L)).thenReturn(Optional.of(toolAvailable));
         
-        // 1. Simular validaciones previas (LATE y RECEIVED)
-        when(loanRepository.countByClientAndStatus(clientActive, LoanStatus.LATE)).thenReturn(0L); // No tiene LATE
-        when(loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0))
-                .thenReturn(Collections.emptyList()); // No tiene deudas RECEIVED
-
-        // 2. Simular la validación que debe fallar (Límite de 5)
-        // El servicio llama a findByClientAndStatus(client, ACTIVE) y .size()
-        when(loanRepository.findByClientAndStatus(clientActive, LoanStatus.ACTIVE)).thenReturn(fiveActiveLoans); // Devuelve 5 activos
+        // Sin LATE ni deudas, pero con 5 préstamos abiertos (Límite de 5)
+        when(clientLoanSummaryService.getEligibility(1L, 10L)).thenReturn(new LoanEligibility(0L, 0L, 5L, 0L));
 
         // ACT & ASSERT: Intenta crear el sexto préstamo
         assertThrows(InvalidOperationException.class, () -> {
@@ -170,11 +178,10 @@ public class LoanServiceTest {
         }, "Debe fallar al alcanzar el límite de 5 préstamos activos.");
 
         // Verificar que se llamó a los métodos correctos (y no a findAll)
-        verify(loanRepository, times(1)).countByClientAndStatus(clientActive, LoanStatus.LATE);
-        verify(loanRepository, times(1)).findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0);
-        verify(loanRepository, times(1)).findByClientAndStatus(clientActive, LoanStatus.ACTIVE);
+        verify(clientLoanSummaryService, times(1)).getEligibility(1L, 10L);
         verify(loanRepository, never()).save(any()); // No debe guardar
         verify(loanRepository, never()).findAll();
+        assertEquals(1.0, meterRegistry.get("loan.rejections").tag("reason", "limit_reached").counter().count());
     }
 
     @Test
@@ -188,11 +195,8 @@ public class LoanServiceTest {
                 .build();
 
         // Mockeo:
-        // 1. Validaciones previas (Cliente y Deudas) pasan
+        // 1. Cliente activo
         when(clientRepository.findById(1L)).thenReturn(Optional.of(clientActive));
-        when(loanRepository.countByClientAndStatus(clientActive, LoanStatus.LATE)).thenReturn(0L);
-        when(loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0))
-                .thenReturn(Collections.emptyList());
         
         // 2. Mockear la herramienta que fallará la validación
         when(toolRepository.findById(toolId)).thenReturn(Optional.of(toolLoaned));
@@ -202,9 +206,8 @@ public class LoanServiceTest {
             loanService.createLoan(1L, toolId, LocalDate.now(), LocalDate.now().plusDays(1), testUser);
         }, "Debe lanzar InvalidOperationException si el estado no es AVAILABLE.");
 
-        // VERIFY: Verificar que falló después de las validaciones de cliente pero antes de guardar
-        verify(loanRepository, times(1)).countByClientAndStatus(clientActive, LoanStatus.LATE);
-        verify(loanRepository, times(1)).findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0);
+        // VERIFY: Falla con la herramienta, antes de consultar préstamos del cliente y de guardar
+        verify(clientLoanSummaryService, never()).getEligibility(any(), any());
         verify(toolRepository, times(1)).findById(toolId);
         verify(loanRepository, never()).save(any()); // Nunca debe guardar
     }
@@ -220,11 +223,8 @@ public class LoanServiceTest {
                 .build();
 
         // Mockeo:
-        // 1. Validaciones previas (Cliente y Deudas) pasan
+        // 1. Cliente activo
         when(clientRepository.findById(1L)).thenReturn(Optional.of(clientActive));
-        when(loanRepository.countByClientAndStatus(clientActive, LoanStatus.LATE)).thenReturn(0L);
-        when(loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0))
-                .thenReturn(Collections.emptyList());
         
         // 2. Mockear la herramienta que fallará la validación
         when(toolRepository.findById(toolId)).thenReturn(Optional.of(toolOutOfStock));
@@ -234,9 +234,8 @@ public class LoanServiceTest {
             loanService.createLoan(1L, toolId, LocalDate.now(), LocalDate.now().plusDays(1), testUser);
         }, "Debe lanzar InvalidOperationException si el stock es 0.");
 
-        // VERIFY: Verificar que falló después de las validaciones de cliente pero antes de guardar
-        verify(loanRepository, times(1)).countByClientAndStatus(clientActive, LoanStatus.LATE);
-        verify(loanRepository, times(1)).findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0);
+        // VERIFY: Falla con la herramienta, antes de consultar préstamos del cliente y de guardar
+        verify(clientLoanSummaryService, never()).getEligibility(any(), any());
         verify(toolRepository, times(1)).findById(toolId);
         verify(loanRepository, never()).save(any()); // Nunca debe guardar
     }
@@ -248,25 +247,12 @@ public class LoanServiceTest {
         LocalDate today = LocalDate.now();
         LocalDate dueDate = today.plusDays(7);
 
-        // Simular un préstamo ACTIVO existente con la MISMA herramienta (toolAvailable)
-        LoanEntity activeLoanForSameTool = LoanEntity.builder()
-                .client(clientActive)
-                .tool(toolAvailable) // <- La misma herramienta que se intenta pedir
-                .status(LoanStatus.ACTIVE)
-                .build();
-
         // MOCKEO
         when(clientRepository.findById(1L)).thenReturn(Optional.of(clientActive));
         when(toolRepository.findById(10L)).thenReturn(Optional.of(toolAvailable));
         
-        // 1. Simular validaciones previas (LATE y RECEIVED)
-        when(loanRepository.countByClientAndStatus(clientActive, LoanStatus.LATE)).thenReturn(0L); // No tiene LATE (para check de límite)
-        when(loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0))
-                .thenReturn(Collections.emptyList()); // No tiene deudas RECEIVED
-
-        // 2. Simular la validación de límite de 5 (asumimos que tiene < 5 activos)
-        when(loanRepository.findByClientAndStatus(clientActive, LoanStatus.ACTIVE))
-                .thenReturn(List.of(activeLoanForSameTool)); // Devuelve el préstamo duplicado
+        // Sin LATE ni deudas, 1 préstamo abierto y es de la MISMA herramienta (toolAvailable)
+        when(clientLoanSummaryService.getEligibility(1L, 10L)).thenReturn(new LoanEligibility(0L, 0L, 1L, 1L));
 
         // ACT & ASSERT: Intenta crear el préstamo con la misma herramienta
         assertThrows(InvalidOperationException.class, () -> {
@@ -274,14 +260,10 @@ public class LoanServiceTest {
         }, "Debe fallar si el cliente ya tiene esta herramienta activa.");
 
         // Verificar que se llamó a los métodos correctos (y no a findAll)
-        verify(loanRepository, times(1)).countByClientAndStatus(clientActive, LoanStatus.LATE);
-        verify(loanRepository, times(1)).findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0);
-        // Verifica el 'findByClientAndStatus(ACTIVE)' (tanto para límite de 5 como para duplicidad)
-        verify(loanRepository, times(2)).findByClientAndStatus(clientActive, LoanStatus.ACTIVE); 
-        
-        // NO debe llamar a 'findByClientAndStatus(LATE)' para el stream, porque el '||' hace short-circuit
-        verify(loanRepository, never()).findByClientAndStatus(clientActive, LoanStatus.LATE);
-        
+        verify(clientLoanSummaryService, times(1)).getEligibility(1L, 10L);
+        // NO debe cargar listas de préstamos para detectar la duplicidad
+        verify(loanRepository, never()).findByClientAndStatus(any(), any());
+
         verify(loanRepository, never()).save(any()); // No debe guardar
         verify(loanRepository, never()).findAll(); // NUNCA debe llamar a findAll
     }
@@ -292,23 +274,14 @@ public class LoanServiceTest {
         LocalDate today = LocalDate.now();
         LocalDate dueDate = today.plusDays(7);
 
-        // Simular un préstamo anterior en estado RECEIVED con penalidad > 0
-        LoanEntity unpaidReceivedLoan = LoanEntity.builder()
-                .client(clientActive) // Usamos clientActive definido en setUp
-                .status(LoanStatus.RECEIVED)
-                .totalPenalty(5000.0) // Deuda pendiente
-                .build();
-
         // Mockeo:
         // 1. Encontrar al cliente activo
         when(clientRepository.findById(clientActive.getId())).thenReturn(Optional.of(clientActive));
         // 2. Encontrar la herramienta disponible
         when(toolRepository.findById(toolAvailable.getId())).thenReturn(Optional.of(toolAvailable));
-        // 3. No tiene préstamos LATE
-        when(loanRepository.countByClientAndStatus(clientActive, LoanStatus.LATE)).thenReturn(0L);
-        // 4. SIMULAR QUE TIENE DEUDAS PENDIENTES (devuelve lista no vacía)
-        when(loanRepository.findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0))
-                .thenReturn(List.of(unpaidReceivedLoan)); // Lista contiene la deuda
+        // 3. No tiene préstamos LATE, pero SÍ UNA DEUDA PENDIENTE (RECEIVED con penalidad > 0)
+        when(clientLoanSummaryService.getEligibility(clientActive.getId(), toolAvailable.getId()))
+                .thenReturn(new LoanEligibility(0L, 1L, 0L, 0L));
 
         // ACT & ASSERT: Esperamos que lance InvalidOperationException
         assertThrows(InvalidOperationException.class, () -> {
@@ -318,8 +291,7 @@ public class LoanServiceTest {
         // Verificar que se hicieron las comprobaciones hasta el punto de fallo
         verify(clientRepository, times(1)).findById(clientActive.getId());
         verify(toolRepository, times(1)).findById(toolAvailable.getId()); // Verifica la herramienta también
-        verify(loanRepository, times(1)).countByClientAndStatus(clientActive, LoanStatus.LATE);
-        verify(loanRepository, times(1)).findByClientAndStatusAndTotalPenaltyGreaterThan(clientActive, LoanStatus.RECEIVED, 0.0);
+        verify(clientLoanSummaryService, times(1)).getEligibility(clientActive.getId(), toolAvailable.getId());
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO se intentó guardar el nuevo préstamo
         verify(loanRepository, never()).save(any(LoanEntity.class));
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO se intentó decrementar el stock
@@ -338,7 +310,8 @@ public class LoanServiceTest {
         // 2. Encontrar la herramienta disponible
         when(toolRepository.findById(toolAvailable.getId())).thenReturn(Optional.of(toolAvailable));
         // 3. SIMULAR QUE TIENE PRÉSTAMOS LATE (devolver > 0)
-        when(loanRepository.countByClientAndStatus(clientActive, LoanStatus.LATE)).thenReturn(1L); // Tiene 1 préstamo LATE
+        when(clientLoanSummaryService.getEligibility(clientActive.getId(), toolAvailable.getId()))
+                .thenReturn(new LoanEligibility(1L, 0L, 1L, 0L)); // Tiene 1 préstamo LATE
 
         // ACT & ASSERT: Esperamos que lance InvalidOperationException
         assertThrows(InvalidOperationException.class, () -> {
@@ -348,8 +321,9 @@ public class LoanServiceTest {
         // Verificar que se hicieron las comprobaciones hasta el punto de fallo
         verify(clientRepository, times(1)).findById(clientActive.getId());
         verify(toolRepository, times(1)).findById(toolAvailable.getId());
-        verify(loanRepository, times(1)).countByClientAndStatus(clientActive, LoanStatus.LATE);
-        // VERIFICACIÓN CRÍTICA: Asegurarse de que NO continuó verificando deudas RECEIVED
+        verify(clientLoanSummaryService, times(1)).getEligibility(clientActive.getId(), toolAvailable.getId());
+        // VERIFICACIÓN CRÍTICA: No se cargan préstamos completos para contar
+        verify(loanRepository, never()).countByClientAndStatus(any(ClientEntity.class), any(LoanStatus.class));
         verify(loanRepository, never()).findByClientAndStatusAndTotalPenaltyGreaterThan(any(ClientEntity.class), any(LoanStatus.class), anyDouble());
         // VERIFICACIÓN CRÍTICA: Asegurarse de que NO se intentó guardar el nuevo préstamo
         verify(loanRepository, never()).save(any(LoanEntity.class));
@@ -382,7 +356,7 @@ public class LoanServiceTest {
         // MOCKEO:
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
         // Mockear tarifa de arriendo (la única necesaria aquí)
-        when(tariffService.getDailyRentFee()).thenReturn(1000.0);
+        when(tariffService.getSnapshot()).thenReturn(tariffs); // Arriendo 1000, multa 2000, reparación 1500
         when(loanRepository.save(any(LoanEntity.class))).thenAnswer(invocation -> invocation.getArgument(0)); // Devolver la entidad guardada
 
         // ACT (Devuelto hoy, a tiempo)
@@ -402,6 +376,8 @@ public class LoanServiceTest {
         verify(toolService, times(1)).incrementStockForReturn(toolAvailable, testUser);
         // 4. El cliente DEBE ser restringido (porque totalPenalty > 0)
         verify(clientService, times(1)).updateStatus(clientActive.getId(), ClientStatus.RESTRICTED);
+        // 5. Contadores del cliente: -1 abierto, no estaba atrasado, +1 deuda por el monto a pagar
+        verify(clientLoanSummaryService, times(1)).recordLoanReturned(clientActive.getId(), false, expectedRentalCost);
     }
 
     @Test
@@ -423,8 +399,7 @@ public class LoanServiceTest {
                 .build();
 
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(tariffService.getDailyRentFee()).thenReturn(1000.0); // Tarifa arriendo
-        when(tariffService.getDailyLateFee()).thenReturn(2000.0); // Tarifa multa
+        when(tariffService.getSnapshot()).thenReturn(tariffs); // Arriendo 1000, multa 2000, reparación 1500
         when(loanRepository.save(any(LoanEntity.class))).thenReturn(loan);
         
         // ACT (Se devuelve hoy, 2 días tarde)
@@ -467,8 +442,7 @@ public class LoanServiceTest {
             .totalPenalty(0.0).build();
         
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(tariffService.getDailyRentFee()).thenReturn(1000.0); // Tarifa arriendo
-        when(tariffService.getRepairFee()).thenReturn(1500.0);    // Tarifa reparación
+        when(tariffService.getSnapshot()).thenReturn(tariffs); // Arriendo 1000, multa 2000, reparación 1500
         when(loanRepository.save(any(LoanEntity.class))).thenReturn(loan);
         
         // ACT (Devuelto dañado, NO irreparable)
@@ -512,8 +486,7 @@ public class LoanServiceTest {
             .totalPenalty(0.0).build();
         
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(tariffService.getDailyRentFee()).thenReturn(1000.0); // Tarifa arriendo
-        when(tariffService.getDailyLateFee()).thenReturn(2000.0); // Tarifa multa
+        when(tariffService.getSnapshot()).thenReturn(tariffs); // Arriendo 1000, multa 2000, reparación 1500
 
         when(loanRepository.save(any(LoanEntity.class))).thenReturn(loan);
 
@@ -587,7 +560,7 @@ public class LoanServiceTest {
 
         // MOCKEO:
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(tariffService.getDailyRentFee()).thenReturn(1000.0);
+        when(tariffService.getSnapshot()).thenReturn(tariffs); // Arriendo 1000, multa 2000, reparación 1500
         when(loanRepository.save(any(LoanEntity.class))).thenReturn(loan);
 
         // ACT: Devolver la herramienta sin daño y sin atraso
@@ -624,7 +597,7 @@ public class LoanServiceTest {
             .build();
 
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(tariffService.getDailyRentFee()).thenReturn(1000.0); // Tarifa 1000
+        when(tariffService.getSnapshot()).thenReturn(tariffs); // Arriendo 1000, multa 2000, reparación 1500
         when(loanRepository.save(any(LoanEntity.class))).thenReturn(loan);
 
         // ACT: Devolver sin daño/atraso el mismo día
@@ -664,9 +637,7 @@ public class LoanServiceTest {
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
         // Necesitamos toolRepository.findById si returnLoan lo busca, aunque lo obtiene del préstamo
         // when(toolRepository.findById(toolAvailable.getId())).thenReturn(Optional.of(toolAvailable));
-        when(tariffService.getDailyLateFee()).thenReturn(2000.0);    // Multa diaria
-        when(tariffService.getRepairFee()).thenReturn(1500.0);     // Cargo reparación
-        when(tariffService.getDailyRentFee()).thenReturn(1000.0);   // Tarifa arriendo diaria
+        when(tariffService.getSnapshot()).thenReturn(tariffs); // Arriendo 1000, multa 2000, reparación 1500
         when(loanRepository.save(any(LoanEntity.class))).thenReturn(loan); // Simular guardado
 
         // ACT: Devolver con atraso y daño reparable
@@ -722,9 +693,7 @@ public class LoanServiceTest {
         // MOCKEO:
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
         // No necesitamos mockear toolRepository.findById si usamos la herramienta del préstamo
-        when(tariffService.getDailyLateFee()).thenReturn(2000.0);    // Multa diaria
-        when(tariffService.getDailyRentFee()).thenReturn(1000.0);   // Tarifa arriendo diaria
-        // NO necesitamos mockear tariffService.getRepairFee()
+        when(tariffService.getSnapshot()).thenReturn(tariffs); // Arriendo 1000, multa 2000, reparación 1500
         when(loanRepository.save(any(LoanEntity.class))).thenReturn(loan); // Simular guardado
 
         // ACT: Devolver con atraso y daño irreparable
@@ -778,7 +747,7 @@ public class LoanServiceTest {
 
         // MOCKEO:
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(tariffService.getDailyRentFee()).thenReturn(1000.0); // Tarifa arriendo diaria
+        when(tariffService.getSnapshot()).thenReturn(tariffs); // Arriendo 1000, multa 2000, reparación 1500
         // NO necesitamos mockear getDailyLateFee ni getRepairFee
         when(loanRepository.save(any(LoanEntity.class))).thenReturn(loan);
 
@@ -857,6 +826,8 @@ public class LoanServiceTest {
 
         // VERIFICACIÓN IMPORTANTE: Asegurarse de que NO se intentó cambiar el estado del cliente
         verify(clientService, never()).updateStatus(anyLong(), any(ClientStatus.class));
+        // Los contadores del cliente descuentan la deuda pagada
+        verify(clientLoanSummaryService, times(1)).recordLoanPaid(clientActive.getId(), 5000.0);
     }
 
     @Test
@@ -1001,4 +972,157 @@ public class LoanServiceTest {
                 any(ClientEntity.class), any(LoanStatus.class), anyDouble());
     }
 
-}
\ No newline at end of file
+    // =========================================================================================================
+    // DEVOLUCIÓN EN LOTE: returnLoans
+    // =========================================================================================================
+
+    @Test
+    void returnLoans_ReturnsValidItems_AndGroupsWritesPerToolAndClient() {
+        // ARRANGE: dos préstamos de la misma herramienta en buen estado, uno dañado reparable y uno inexistente
+        LocalDate start = LocalDate.now().minusDays(5);
+        LocalDate due = LocalDate.now().plusDays(2); // 7 días de arriendo, sin atraso
+        ToolEntity otherTool = ToolEntity.builder().id(11L).stock(0).status(ToolStatus.LOANED).replacementValue(30000).build();
+        ClientEntity otherClient = ClientEntity.builder().id(3L).status(ClientStatus.ACTIVE).build();
+        LoanEntity loan1 = LoanEntity.builder().id(101L).client(clientActive).tool(toolAvailable).startDate(start).dueDate(due).status(LoanStatus.ACTIVE).totalPenalty(0.0).build();
+        LoanEntity loan2 = LoanEntity.builder().id(102L).client(otherClient).tool(toolAvailable).startDate(start).dueDate(due).status(LoanStatus.LATE).totalPenalty(0.0).build();
+        LoanEntity loan3 = LoanEntity.builder().id(103L).client(clientActive).tool(otherTool).startDate(start).dueDate(due).status(LoanStatus.ACTIVE).totalPenalty(0.0).build();
+
+        when(loanRepository.findAllWithToolAndClientByIdIn(any())).thenReturn(List.of(loan1, loan2, loan3));
+        when(tariffService.getSnapshot()).thenReturn(tariffs);
+
+        BatchReturnRequest request = new BatchReturnRequest(List.of(
+                new BatchReturnRequest.Item(101L, 10L, false, false),
+                new BatchReturnRequest.Item(102L, 10L, false, false),
+                new BatchReturnRequest.Item(103L, 11L, true, false),
+                new BatchReturnRequest.Item(999L, 10L, false, false)), LocalDate.now());
+
+        // ACT
+        BatchReturnResult result = loanService.returnLoans(request, testUser);
+
+        // ASSERT: 3 devueltos, 1 rechazado, resultados en el orden pedido
+        assertEquals(3, result.returned());
+        assertEquals(1, result.rejected());
+        assertEquals(7000.0, result.items().get(0).totalPenalty());
+        assertEquals(7000.0 + 1500.0, result.items().get(2).totalPenalty()); // Arriendo + reparación
+        assertFalse(result.items().get(3).returned());
+        assertEquals(LoanStatus.RECEIVED, loan1.getStatus());
+
+        // Una tarifa para todo el lote y escrituras agrupadas
+        verify(tariffService, times(1)).getSnapshot();
+        verify(loanRepository, times(1)).saveAll(List.of(loan1, loan2, loan3));
+        verify(toolService, times(1)).applyBatchReturn(Map.of(10L, 2), Map.of(11L, 1));
+        verify(kardexService, times(1)).registerMovements(argThat(entries -> entries.size() == 3));
+        verify(clientLoanSummaryService).recordLoansReturned(1L, 2, 0, 2, 7000.0 + 8500.0);
+        verify(clientLoanSummaryService).recordLoansReturned(3L, 1, 1, 1, 7000.0);
+        verify(clientService, times(1)).updateStatuses(argThat(ids -> ids.containsAll(List.of(1L, 3L))), eq(ClientStatus.RESTRICTED));
+        // Sin llamadas por ítem
+        verify(toolService, never()).incrementStockForReturn(any(), any());
+        verify(clientService, never()).updateStatus(anyLong(), any());
+    }
+
+    @Test
+    void returnLoans_RejectsClosedAndDuplicatedLoans_WithoutWriting() {
+        // ARRANGE: préstamo ya recibido, pedido dos veces
+        LoanEntity received = LoanEntity.builder().id(201L).client(clientActive).tool(toolAvailable)
+                .startDate(LocalDate.now().minusDays(3)).dueDate(LocalDate.now()).status(LoanStatus.RECEIVED).totalPenalty(3000.0).build();
+        when(loanRepository.findAllWithToolAndClientByIdIn(any())).thenReturn(List.of(received));
+        when(tariffService.getSnapshot()).thenReturn(tariffs);
+
+        BatchReturnRequest request = new BatchReturnRequest(List.of(
+                new BatchReturnRequest.Item(201L, 10L, false, false),
+                new BatchReturnRequest.Item(201L, 10L, false, false)), null);
+
+        // ACT
+        BatchReturnResult result = loanService.returnLoans(request, testUser);
+
+        // ASSERT
+        assertEquals(0, result.returned());
+        assertEquals("Loan is already closed and cannot be returned again.", result.items().get(0).error());
+        assertEquals("Loan appears more than once in the batch.", result.items().get(1).error());
+        verify(loanRepository, never()).saveAll(any());
+        verify(kardexService, never()).registerMovements(any());
+        verify(clientService, never()).updateStatuses(any(), any());
+    }
+
+    // =========================================================================================================
+    // PRÉSTAMO EN LOTE: createLoans
+    // =========================================================================================================
+
+    @Test
+    void createLoans_ReservesInIdOrder_AndWritesInBatch() {
+        // ARRANGE: canasta pedida en desorden (11, 10)
+        LocalDate today = LocalDate.now();
+        LocalDate dueDate = today.plusDays(7);
+        ToolEntity secondTool = ToolEntity.builder().id(11L).stock(3).status(ToolStatus.AVAILABLE).replacementValue(20000).build();
+        when(clientRepository.findById(1L)).thenReturn(Optional.of(clientActive));
+        when(toolRepository.findAllById(any())).thenReturn(List.of(secondTool, toolAvailable));
+        when(clientLoanSummaryService.getBasketEligibility(eq(1L), any())).thenReturn(new LoanEligibility(0L, 0L, 3L, 0L));
+        when(toolService.reserveForLoan(any(ToolEntity.class))).thenReturn(true);
+        when(loanRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // ACT
+        List<LoanEntity> loans = loanService.createLoans(1L, List.of(11L, 10L), today, dueDate, testUser);
+
+        // ASSERT: reservas en orden de id, un saveAll de préstamos y uno de Kardex
+        assertEquals(2, loans.size());
+        InOrder inOrder = inOrder(toolService);
+        inOrder.verify(toolService).reserveForLoan(toolAvailable);
+        inOrder.verify(toolService).reserveForLoan(secondTool);
+        verify(clientLoanSummaryService, times(1)).getBasketEligibility(eq(1L), any());
+        verify(loanRepository, never()).save(any(LoanEntity.class));
+        verify(kardexService, times(1)).registerMovements(argThat(entries -> entries.size() == 2));
+        verify(clientLoanSummaryService, times(1)).recordLoansOpened(1L, 2);
+    }
+
+    @Test
+    void createLoans_FailsWhenBasketExceedsLoanLimit() {
+        // ARRANGE: ya tiene 4 préstamos abiertos y pide 2 más
+        LocalDate today = LocalDate.now();
+        ToolEntity secondTool = ToolEntity.builder().id(11L).stock(3).status(ToolStatus.AVAILABLE).build();
+        when(clientRepository.findById(1L)).thenReturn(Optional.of(clientActive));
+        when(toolRepository.findAllById(any())).thenReturn(List.of(toolAvailable, secondTool));
+        when(clientLoanSummaryService.getBasketEligibility(eq(1L), any())).thenReturn(new LoanEligibility(0L, 0L, 4L, 0L));
+
+        // ACT & ASSERT
+        assertThrows(InvalidOperationException.class, () ->
+                loanService.createLoans(1L, List.of(10L, 11L), today, today.plusDays(3), testUser));
+        verify(toolService, never()).reserveForLoan(any());
+        verify(loanRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void createLoans_FailsWhenAnyReservationIsLost() {
+        // ARRANGE: la segunda herramienta se agota entre la lectura y la reserva
+        LocalDate today = LocalDate.now();
+        ToolEntity secondTool = ToolEntity.builder().id(11L).stock(1).status(ToolStatus.AVAILABLE).build();
+        when(clientRepository.findById(1L)).thenReturn(Optional.of(clientActive));
+        when(toolRepository.findAllById(any())).thenReturn(List.of(toolAvailable, secondTool));
+        when(clientLoanSummaryService.getBasketEligibility(eq(1L), any())).thenReturn(new LoanEligibility(0L, 0L, 0L, 0L));
+        when(toolService.reserveForLoan(toolAvailable)).thenReturn(true);
+        when(toolService.reserveForLoan(secondTool)).thenReturn(false);
+
+        // ACT & ASSERT: excepción -> la transacción revierte también la primera reserva
+        assertThrows(InvalidOperationException.class, () ->
+                loanService.createLoans(1L, List.of(10L, 11L), today, today.plusDays(3), testUser));
+        verify(loanRepository, never()).saveAll(any());
+        verify(kardexService, never()).registerMovements(any());
+        assertEquals(1.0, meterRegistry.get("loan.rejections").tag("reason", "out_of_stock").counter().count());
+    }
+
+    @Test
+    void createLoan_CountsOutOfStock_WhenConcurrentReservationWins() {
+        // ARRANGE: la lectura ve stock, pero otro préstamo se lleva la última unidad antes de la reserva
+        LocalDate today = LocalDate.now();
+        when(clientRepository.findById(1L)).thenReturn(Optional.of(clientActive));
+        when(toolRepository.findById(10L)).thenReturn(Optional.of(toolAvailable));
+        when(clientLoanSummaryService.getEligibility(1L, 10L)).thenReturn(new LoanEligibility(0L, 0L, 0L, 0L));
+        doThrow(new InvalidOperationException("Tool is not available or out of stock."))
+                .when(toolService).decrementStockForLoan(toolAvailable, testUser);
+
+        // ACT & ASSERT
+        assertThrows(InvalidOperationException.class, () ->
+                loanService.createLoan(1L, 10L, today, today.plusDays(7), testUser));
+        verify(loanRepository, never()).save(any());
+        assertEquals(1.0, meterRegistry.get("loan.rejections").tag("reason", "out_of_stock").counter().count());
+    }
+}
@@ -0,0 +1,114 @@
+package com.ProyectoTGS.BackCore.Services;
+
+import app.utils.TableVersions;
+import dtos.OverdueSweepResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import repositories.ClientLoanSummaryRepository;
+import repositories.ClientRepository;
+import repositories.LoanRepository;
+import services.OverdueLoanService;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OverdueLoanServiceTest {
+
+    @Mock private LoanRepository loanRepository;
+    @Mock private ClientRepository clientRepository;
+    @Mock private ClientLoanSummaryRepository clientLoanSummaryRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OverdueLoanService overdueLoanService;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Bloques de 100 ids para probar el recorrido por rangos
+        overdueLoanService = new OverdueLoanService(loanRepository, clientRepository, clientLoanSummaryRepository, transactionManager, meterRegistry, new TableVersions(meterRegistry), 100);
+        today = LocalDate.of(2025, 3, 10);
+    }
+
+    @Test
+    void markOverdueLoans_DoesNothing_WhenNoOverdueLoans() {
+        // ARRANGE: no hay préstamos ACTIVE vencidos
+        when(loanRepository.findMinOverdueId(today)).thenReturn(null);
+        when(loanRepository.findMaxOverdueId(today)).thenReturn(null);
+
+        // ACT
+        OverdueSweepResult result = overdueLoanService.markOverdueLoans(today);
+
+        // ASSERT
+        assertEquals(0, result.loansMarkedLate());
+        assertEquals(0, result.chunks());
+        verify(loanRepository, never()).markOverdueAsLate(any(), anyLong(), anyLong());
+        verify(clientRepository, never()).restrictClientsWithOverdueLoans(any(), anyLong(), anyLong());
+        verify(clientLoanSummaryRepository, never()).addOverdueLoans(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void markOverdueLoans_UpdatesInChunks_AndRestrictsClientsBeforeMarkingLoans() {
+        // ARRANGE: ids vencidos entre 1 y 250 -> 3 bloques (1-100, 101-200, 201-250)
+        when(loanRepository.findMinOverdueId(today)).thenReturn(1L);
+        when(loanRepository.findMaxOverdueId(today)).thenReturn(250L);
+        when(clientRepository.restrictClientsWithOverdueLoans(eq(today), anyLong(), anyLong())).thenReturn(2);
+        when(loanRepository.markOverdueAsLate(eq(today), anyLong(), anyLong())).thenReturn(40);
+
+        // ACT
+        OverdueSweepResult result = overdueLoanService.markOverdueLoans(today);
+
+        // ASSERT: totales acumulados
+        assertEquals(3, result.chunks());
+        assertEquals(120, result.loansMarkedLate());
+        assertEquals(6, result.clientsRestricted());
+
+        // Cada bloque: primero clientes (ven los préstamos aún ACTIVE), luego préstamos
+        InOrder inOrder = inOrder(clientRepository, clientLoanSummaryRepository, loanRepository);
+        inOrder.verify(clientRepository).restrictClientsWithOverdueLoans(today, 1L, 100L);
+        inOrder.verify(clientLoanSummaryRepository).addOverdueLoans(today, 1L, 100L);
+        inOrder.verify(loanRepository).markOverdueAsLate(today, 1L, 100L);
+        inOrder.verify(clientRepository).restrictClientsWithOverdueLoans(today, 101L, 200L);
+        inOrder.verify(loanRepository).markOverdueAsLate(today, 101L, 200L);
+        inOrder.verify(clientRepository).restrictClientsWithOverdueLoans(today, 201L, 250L);
+        inOrder.verify(loanRepository).markOverdueAsLate(today, 201L, 250L);
+
+        // Una transacción por bloque
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void markOverdueLoans_PublishesRowCountMetrics() {
+        // ARRANGE: un solo bloque
+        when(loanRepository.findMinOverdueId(today)).thenReturn(10L);
+        when(loanRepository.findMaxOverdueId(today)).thenReturn(20L);
+        when(clientRepository.restrictClientsWithOverdueLoans(today, 10L, 20L)).thenReturn(3);
+        when(loanRepository.markOverdueAsLate(today, 10L, 20L)).thenReturn(7);
+
+        // ACT
+        overdueLoanService.markOverdueLoans(today);
+
+        // ASSERT
+        assertEquals(7.0, meterRegistry.get("loans.overdue.marked").counter().count());
+        assertEquals(3.0, meterRegistry.get("loans.overdue.clients.restricted").counter().count());
+        assertEquals(1L, meterRegistry.get("loans.overdue.sweep").timer().count());
+    }
+
+    @Test
+    void constructor_RejectsNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new OverdueLoanService(loanRepository, clientRepository, clientLoanSummaryRepository, transactionManager, meterRegistry, new TableVersions(meterRegistry), 0));
+    }
+}
@@ -1,5 +1,6 @@
 package com.ProyectoTGS.BackCore.Services;
 
+import dtos.ToolRanking;
 import entities.ClientEntity;
 import entities.LoanEntity;
 import entities.ToolEntity;
@@ -13,6 +14,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import repositories.ClientRepository;
 import repositories.LoanRepository;
+import repositories.ToolLoanDailyRepository;
 import repositories.ToolRepository;
 import services.ReportService;
 
@@ -21,6 +23,8 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +36,8 @@ public class ReportServiceTest {
     private ClientRepository clientRepository;
     @Mock 
     private ToolRepository toolRepository; 
+    @Mock
+    private ToolLoanDailyRepository toolLoanDailyRepository;
 
     @InjectMocks
     private ReportService reportService;
@@ -107,26 +113,51 @@ public class ReportServiceTest {
 
     @Test
     void getTopTools_ReturnsRankingFromRepository() {
-        // ARRANGE: Simular el resultado de la consulta SQL (Object[]: ToolEntity, Count)
+        // ARRANGE: Simular el ranking sumado desde los agregados diarios
         LocalDate start = LocalDate.of(2025, 1, 1);
         LocalDate end = LocalDate.of(2025, 1, 31);
         
-        List<Object[]> mockRanking = List.of(
-            new Object[]{toolA, 5L}, // 5 veces prestada
-            new Object[]{toolB, 3L}  // 3 veces prestada
+        List<ToolRanking> mockRanking = List.of(
+            new ToolRanking(toolA.getId(), toolA.getName(), "Hand Tools", 5L), // 5 veces prestada
+            new ToolRanking(toolB.getId(), toolB.getName(), "Electric Tools", 3L)  // 3 veces prestada
         );
 
-        when(loanRepository.findTopToolsByDateRange(start, end)).thenReturn(mockRanking);
+        when(toolLoanDailyRepository.findRanking(eq(start), eq(end), any())).thenReturn(mockRanking);
 
-        // ACT
-        List<Object[]> result = reportService.getTopTools(start, end);
+        // ACT: sin límite
+        List<ToolRanking> result = reportService.getTopTools(start, end, null);
 
         // ASSERT
         assertEquals(2, result.size());
         // Verificar el orden y los datos
-        assertEquals(toolA, result.get(0)[0]);
-        assertEquals(5L, result.get(0)[1]);
-        verify(loanRepository, times(1)).findTopToolsByDateRange(start, end);
+        assertEquals(10L, result.get(0).toolId());
+        assertEquals(5L, result.get(0).totalLoans());
+        verify(toolLoanDailyRepository, times(1)).findRanking(eq(start), eq(end), argThat(p -> p.isUnpaged()));
+        verifyNoInteractions(loanRepository);
+    }
+
+    @Test
+    void getTopTools_AppliesTopNLimit() {
+        // ARRANGE
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+        when(toolLoanDailyRepository.findRanking(eq(start), eq(end), any()))
+                .thenReturn(List.of(new ToolRanking(10L, "Martillo", "Hand Tools", 5L)));
+
+        // ACT
+        List<ToolRanking> result = reportService.getTopTools(start, end, 1);
+
+        // ASSERT: se pide solo la primera posición a la base de datos
+        assertEquals(1, result.size());
+        verify(toolLoanDailyRepository).findRanking(eq(start), eq(end), argThat(p -> p.isPaged() && p.getPageSize() == 1));
+    }
+
+    @Test
+    void getTopTools_FailsIfLimitIsNotPositive() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> reportService.getTopTools(day, day, 0));
+        verifyNoInteractions(toolLoanDailyRepository);
     }
     
     // =======================================================================
@@ -224,18 +255,18 @@ public class ReportServiceTest {
     void getTopTools_FailsIfFromDateIsNull() {
          // ACT & ASSERT
         assertThrows(IllegalArgumentException.class, () -> {
-            reportService.getTopTools(null, LocalDate.now());
+            reportService.getTopTools(null, LocalDate.now(), null);
         });
-        verify(loanRepository, never()).findTopToolsByDateRange(any(), any());
+        verify(toolLoanDailyRepository, never()).findRanking(any(), any(), any());
     }
 
     @Test
     void getTopTools_FailsIfToDateIsNull() {
         // ACT & ASSERT
         assertThrows(IllegalArgumentException.class, () -> {
-            reportService.getTopTools(LocalDate.now(), null);
+            reportService.getTopTools(LocalDate.now(), null, null);
         });
-        verify(loanRepository, never()).findTopToolsByDateRange(any(), any());
+        verify(toolLoanDailyRepository, never()).findRanking(any(), any(), any());
     }
 
     @Test
@@ -246,8 +277,8 @@ public class ReportServiceTest {
 
         // ACT & ASSERT
         assertThrows(IllegalArgumentException.class, () -> {
-            reportService.getTopTools(from, to);
+            reportService.getTopTools(from, to, null);
         });
-        verify(loanRepository, never()).findTopToolsByDateRange(any(), any());
+        verify(toolLoanDailyRepository, never()).findRanking(any(), any(), any());
     }
 }
\ No newline at end of file
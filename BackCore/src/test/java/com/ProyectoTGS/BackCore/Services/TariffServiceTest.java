@@ -1,17 +1,24 @@
 package com.ProyectoTGS.BackCore.Services;
 
+import app.utils.TableVersions;
+import dtos.TariffSnapshot;
 import entities.TariffEntity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import repositories.TariffRepository;
 import services.TariffService;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -22,13 +29,27 @@ public class TariffServiceTest {
     @Mock
     private TariffRepository tariffRepository;
 
-    @InjectMocks
+    @Mock
+    private TableVersions tableVersions;
+
+    // Reloj controlable para probar la recarga del snapshot sin esperas
+    private static class MutableClock extends Clock {
+        private final AtomicLong millis = new AtomicLong(0);
+        void advance(Duration d) { millis.addAndGet(d.toMillis()); }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(millis.get()); }
+    }
+
+    private MutableClock clock;
     private TariffService tariffService;
 
     private TariffEntity currentTariff;
 
     @BeforeEach
     void setUp() {
+        clock = new MutableClock();
+        tariffService = new TariffService(tariffRepository, tableVersions, Duration.ofSeconds(30), clock);
         // Simular la tarifa 
         currentTariff = TariffEntity.builder()
                 .id(1L)
@@ -90,6 +111,7 @@ public class TariffServiceTest {
         assertEquals(6000, result.getDailyRentFee());
         assertEquals(3000, result.getDailyLateFee());
         verify(tariffRepository, times(1)).save(currentTariff);
+        verify(tableVersions, times(1)).touch(TableVersions.Table.TARIFFS); // Nuevo ETag para GET /tariffs
     }
 
 // =======================================================================
@@ -131,4 +153,97 @@ public class TariffServiceTest {
         // ASSERT
         assertEquals(1500, fee); // Valor del setUp
     }
-}
\ No newline at end of file
+
+    // =======================================================================
+    // SNAPSHOT DE TARIFAS EN MEMORIA
+    // =======================================================================
+
+    @Test
+    void getSnapshot_LoadsOnceAndServesFeesFromMemory() {
+        // ARRANGE
+        when(tariffRepository.findAll()).thenReturn(List.of(currentTariff));
+
+        // ACT: varias lecturas de tarifas (como en una devolución)
+        TariffSnapshot snapshot = tariffService.getSnapshot();
+        double rent = tariffService.getDailyRentFee();
+        double late = tariffService.getDailyLateFee();
+        double repair = tariffService.getRepairFee();
+
+        // ASSERT: una sola consulta a BD y valores consistentes
+        assertEquals(1L, snapshot.version());
+        assertEquals(5000, rent);
+        assertEquals(2000, late);
+        assertEquals(1500, repair);
+        verify(tariffRepository, times(1)).findAll();
+    }
+
+    @Test
+    void updateTariff_PublishesNewSnapshotWithNextVersion() {
+        // ARRANGE: snapshot inicial cargado
+        when(tariffRepository.findAll()).thenReturn(List.of(currentTariff));
+        when(tariffRepository.save(any(TariffEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TariffSnapshot before = tariffService.getSnapshot();
+
+        TariffEntity updatedValues = TariffEntity.builder()
+                .dailyRentFee(6000)
+                .dailyLateFee(3000)
+                .repairFee(2500)
+                .build();
+
+        // ACT
+        tariffService.updateTariff(updatedValues);
+        TariffSnapshot after = tariffService.getSnapshot();
+
+        // ASSERT: nueva versión con los tres valores nuevos; el snapshot anterior no cambia
+        assertEquals(before.version() + 1, after.version());
+        assertEquals(6000, after.dailyRentFee());
+        assertEquals(3000, after.dailyLateFee());
+        assertEquals(2500, after.repairFee());
+        assertEquals(5000, before.dailyRentFee());
+        verify(tariffRepository, times(2)).findAll(); // Carga inicial + lectura dentro de updateTariff
+    }
+
+    @Test
+    void getSnapshot_ReloadsFromDatabase_AfterTtl() {
+        // ARRANGE: snapshot cargado; otra instancia cambia la tarifa diaria en la BD
+        TariffEntity changedElsewhere = TariffEntity.builder()
+                .id(1L).dailyRentFee(7000).dailyLateFee(2000).repairFee(1500).build();
+        when(tariffRepository.findAll()).thenReturn(List.of(currentTariff), List.of(changedElsewhere));
+        TariffSnapshot before = tariffService.getSnapshot();
+
+        // ACT: dentro del TTL sigue el snapshot en memoria; al caducar se relee
+        clock.advance(Duration.ofSeconds(29));
+        TariffSnapshot cached = tariffService.getSnapshot();
+        clock.advance(Duration.ofSeconds(1));
+        TariffSnapshot reloaded = tariffService.getSnapshot();
+
+        // ASSERT
+        assertSame(before, cached);
+        assertEquals(7000, reloaded.dailyRentFee());
+        assertEquals(before.version() + 1, reloaded.version());
+        verify(tariffRepository, times(2)).findAll();
+    }
+
+    @Test
+    void getSnapshot_KeepsVersion_WhenReloadFindsSameValues() {
+        // ARRANGE
+        when(tariffRepository.findAll()).thenReturn(List.of(currentTariff));
+        TariffSnapshot before = tariffService.getSnapshot();
+
+        // ACT: dos recargas sin cambios en la BD
+        clock.advance(Duration.ofSeconds(30));
+        tariffService.getSnapshot();
+        clock.advance(Duration.ofSeconds(30));
+        TariffSnapshot after = tariffService.getSnapshot();
+
+        // ASSERT: mismo snapshot; entre recargas no hay consultas
+        assertSame(before, after);
+        verify(tariffRepository, times(3)).findAll();
+    }
+
+    @Test
+    void constructor_RejectsNonPositiveTtl() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new TariffService(tariffRepository, tableVersions, Duration.ZERO, clock));
+    }
+}
@@ -0,0 +1,153 @@
+package com.ProyectoTGS.BackCore.Services;
+
+import app.utils.OptimisticRetry;
+import app.utils.SecurityUtils;
+import app.utils.TableVersions;
+import controllers.ToolController;
+import dtos.ToolAvailability;
+import entities.enums.ToolStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import services.ToolAvailabilityFeed;
+import services.ToolService;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// El feed detrás de GET /tools/availability (MockMvc sin contexto de Spring: solo el controlador y el feed)
+public class ToolAvailabilityFeedTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+    private ToolAvailabilityFeed feed;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        // Historial de 8 cambios, buffer de 2 eventos por conexión
+        feed = new ToolAvailabilityFeed(new SimpleMeterRegistry(), 8, 2, Duration.ofMinutes(5));
+        ToolController controller = new ToolController(mock(ToolService.class), mock(SecurityUtils.class),
+                mock(OptimisticRetry.class), feed, new TableVersions(new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+    }
+
+    @Test
+    void subscribe_FirstConnection_SendsResetThenLiveChanges() throws Exception {
+        MvcResult stream = connect(null);
+        awaitBody(stream, "event:reset");
+
+        feed.publish(new ToolAvailability(7L, 3, 0, ToolStatus.AVAILABLE));
+
+        String body = awaitBody(stream, "\"toolId\":7");
+        assertTrue(body.contains("event:availability"));
+        assertTrue(body.contains("\"stock\":3"));
+        assertEquals(1, feed.subscriberCount());
+    }
+
+    @Test
+    void subscribe_WithLastEventId_ReplaysOnlyMissedChanges() throws Exception {
+        String resetId = firstEventId(awaitBody(connect(null), "event:reset")); // "<arranque>-0"
+        String epoch = resetId.substring(0, resetId.lastIndexOf('-'));
+        feed.publish(new ToolAvailability(1L, 5, 0, ToolStatus.AVAILABLE));
+        feed.publish(new ToolAvailability(2L, 0, 0, ToolStatus.LOANED));
+        feed.publish(new ToolAvailability(3L, 4, 1, ToolStatus.AVAILABLE));
+
+        // El cliente alcanzó a recibir el cambio 1 antes de desconectarse
+        String body = awaitBody(connect(epoch + "-1"), "\"toolId\":3");
+
+        assertFalse(body.contains("event:reset"));
+        assertFalse(body.contains("\"toolId\":1"));
+        assertTrue(body.indexOf("\"toolId\":2") < body.indexOf("\"toolId\":3"));
+        assertTrue(body.contains("id:" + epoch + "-3"));
+    }
+
+    @Test
+    void subscribe_SendsReset_WhenMissedChangesExceedConnectionBuffer() throws Exception {
+        String resetId = firstEventId(awaitBody(connect(null), "event:reset"));
+        for (long toolId = 1; toolId <= 3; toolId++) {
+            feed.publish(new ToolAvailability(toolId, 1, 0, ToolStatus.AVAILABLE));
+        }
+
+        // 3 cambios perdidos no caben en un buffer de 2: recargar el catálogo
+        String body = awaitBody(connect(resetId), "event:reset");
+
+        assertFalse(body.contains("toolId"));
+    }
+
+    @Test
+    void subscribe_SendsReset_ForEventIdFromAnotherServerStart() throws Exception {
+        feed.publish(new ToolAvailability(1L, 5, 0, ToolStatus.AVAILABLE));
+
+        String body = awaitBody(connect("otroarranque-1"), "event:reset");
+
+        assertFalse(body.contains("toolId"));
+    }
+
+    @Test
+    void publish_InsideTransaction_SendsLastValuePerToolAfterCommit() throws Exception {
+        MvcResult stream = connect(null);
+        awaitBody(stream, "event:reset");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            feed.publish(new ToolAvailability(7L, 3, 0, ToolStatus.AVAILABLE));
+            feed.publish(new ToolAvailability(7L, 2, 1, ToolStatus.AVAILABLE));
+            assertFalse(stream.getResponse().getContentAsString().contains("toolId")); // Nada antes del commit
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        String body = awaitBody(stream, "\"toolId\":7");
+        assertTrue(body.contains("\"stock\":2"));
+        assertFalse(body.contains("\"stock\":3"));
+    }
+
+    // --- Soporte ---
+
+    private MvcResult connect(String lastEventId) throws Exception {
+        MockHttpServletRequestBuilder builder = get("/tools/availability");
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    // Los eventos se envían desde otro hilo: esperar (con límite) a que aparezca el texto
+    private static String awaitBody(MvcResult stream, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String body = stream.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            body = stream.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains(expected), "Expected '" + expected + "' in stream: " + body);
+        return body;
+    }
+
+    private static String firstEventId(String body) {
+        Matcher matcher = EVENT_ID.matcher(body);
+        assertTrue(matcher.find(), "No event id in stream: " + body);
+        return matcher.group(1);
+    }
+}
@@ -0,0 +1,98 @@
+package com.ProyectoTGS.BackCore.Services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import repositories.ToolLoanDailyRepository;
+import services.ToolLoanRollupService;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ToolLoanRollupServiceTest {
+
+    @Mock
+    private ToolLoanDailyRepository toolLoanDailyRepository;
+
+    @InjectMocks
+    private ToolLoanRollupService toolLoanRollupService;
+
+    @Test
+    void recordLoans_AddsToDailyRollup() {
+        LocalDate day = LocalDate.of(2025, 3, 10);
+        when(toolLoanDailyRepository.addLoans(10L, day, 2L)).thenReturn(1);
+
+        toolLoanRollupService.recordLoans(10L, day, 2);
+
+        verify(toolLoanDailyRepository, never()).insertDay(any(), any(), anyLong());
+    }
+
+    @Test
+    void recordLoans_CreatesDayRow_OnFirstLoanOfTheDay() {
+        // ARRANGE: todavía no hay fila para la herramienta ese día
+        LocalDate day = LocalDate.of(2025, 3, 10);
+        when(toolLoanDailyRepository.addLoans(10L, day, 1L)).thenReturn(0);
+        when(toolLoanDailyRepository.insertDay(10L, day, 1L)).thenReturn(1);
+
+        // ACT
+        toolLoanRollupService.recordLoans(10L, day, 1);
+
+        // ASSERT: el INSERT lleva el préstamo; no se vuelve a sumar
+        verify(toolLoanDailyRepository, times(1)).addLoans(10L, day, 1L);
+    }
+
+    @Test
+    void recordLoans_UpdatesAgain_WhenDayRowWasCreatedConcurrently() {
+        // ARRANGE: la fila no estaba en el UPDATE, pero otro préstamo la creó antes del INSERT
+        LocalDate day = LocalDate.of(2025, 3, 10);
+        when(toolLoanDailyRepository.addLoans(10L, day, 1L)).thenReturn(0, 1);
+        when(toolLoanDailyRepository.insertDay(10L, day, 1L)).thenReturn(0);
+
+        // ACT
+        toolLoanRollupService.recordLoans(10L, day, 1);
+
+        // ASSERT
+        verify(toolLoanDailyRepository, times(2)).addLoans(10L, day, 1L);
+    }
+
+    @Test
+    void recordLoans_RejectsNonPositiveCount() {
+        assertThrows(IllegalArgumentException.class, () ->
+                toolLoanRollupService.recordLoans(10L, LocalDate.now(), 0));
+        verify(toolLoanDailyRepository, never()).addLoans(any(), any(), anyLong());
+    }
+
+    @Test
+    void backfill_ReplacesRangeFromLoans() {
+        // ARRANGE
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        when(toolLoanDailyRepository.rebuildRange(from, to)).thenReturn(42);
+
+        // ACT
+        int rows = toolLoanRollupService.backfill(from, to);
+
+        // ASSERT: primero se borra el rango y luego se reconstruye
+        assertEquals(42, rows);
+        InOrder inOrder = inOrder(toolLoanDailyRepository);
+        inOrder.verify(toolLoanDailyRepository).deleteRange(from, to);
+        inOrder.verify(toolLoanDailyRepository).rebuildRange(from, to);
+    }
+
+    @Test
+    void backfill_FailsIfFromDateAfterToDate() {
+        LocalDate from = LocalDate.of(2025, 2, 1);
+        LocalDate to = LocalDate.of(2025, 1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> toolLoanRollupService.backfill(from, to));
+        verifyNoInteractions(toolLoanDailyRepository);
+    }
+}
@@ -1,24 +1,36 @@
 package com.ProyectoTGS.BackCore.Services;
 
+import app.utils.TableVersions;
 import entities.ToolEntity;
 import entities.UserEntity;
 import entities.enums.MovementType;
 import entities.enums.ToolStatus;
 import app.exceptions.InvalidOperationException; 
 import app.exceptions.ResourceNotFoundException; 
+import dtos.PageResponse;
+import dtos.ToolAvailability;
 import dtos.UpdateToolRequest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import jakarta.persistence.EntityManager;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import repositories.ToolRepository;
 import services.KardexService;
+import services.ToolAvailabilityFeed;
 import services.ToolService;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,6 +50,15 @@ public class ToolServiceTest {
         @Mock
         private KardexService kardexService;
 
+        @Mock
+        private EntityManager entityManager;
+
+        @Mock
+        private ToolAvailabilityFeed availabilityFeed;
+
+        @Mock
+        private TableVersions tableVersions;
+
         @InjectMocks
         private ToolService toolService;
 
@@ -94,9 +115,9 @@ public class ToolServiceTest {
                 // 3. Mockear el comportamiento del repositorio:
                 // "Cuando se llame a toolRepository.save() con CUALQUIER ToolEntity..."
                 when(toolRepository.save(any(ToolEntity.class))).thenReturn(toolSaved);
-                // "Cuando se llame a kardexService.registerMovement(), no hagas nada (void)"
+                // "Cuando se llame a kardexService.registerManagedMovement(), no hagas nada (void)"
                 // (Usamos doNothing() para métodos void)
-                doNothing().when(kardexService).registerMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
+                doNothing().when(kardexService).registerManagedMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
 
                 // ACT (Actuar)
                 // Llamar al método que queremos probar
@@ -117,8 +138,8 @@ public class ToolServiceTest {
                         toolToSave.getInRepair().equals(0) // inRepair asignado antes de guardar
                 ));
 
-                // 3. Verificar que kardexService.registerMovement() fue llamado 1 vez con los datos correctos
-                verify(kardexService, times(1)).registerMovement(
+                // 3. Verificar que kardexService.registerManagedMovement() fue llamado 1 vez con los datos correctos
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(toolSaved),                 // La herramienta guardada (con ID)
                         eq(MovementType.INCOME),       // El tipo de movimiento
                         eq(5),                   // La cantidad de stock
@@ -178,7 +199,7 @@ public class ToolServiceTest {
                 ));
 
                 // 3. VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se llamó al Kardex
-                verify(kardexService, never()).registerMovement(
+                verify(kardexService, never()).registerManagedMovement(
                         any(ToolEntity.class),
                         any(MovementType.class),
                         anyInt(),
@@ -245,7 +266,7 @@ public class ToolServiceTest {
                 verify(toolRepository, times(1)).save(existingTool); // Debe guardar la misma instancia que actualizó
 
                 // 4. VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se llamó al Kardex
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         @Test
@@ -275,7 +296,7 @@ public class ToolServiceTest {
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se intentó guardar nada
                 verify(toolRepository, never()).save(any(ToolEntity.class));
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se llamó al Kardex
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         /**
@@ -320,7 +341,7 @@ public class ToolServiceTest {
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se intentó guardar nada
                 verify(toolRepository, never()).save(any(ToolEntity.class));
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se llamó al Kardex
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         // =======================================================================
@@ -355,7 +376,7 @@ public class ToolServiceTest {
                 // "Cuando se guarde, devolver la entidad que se le pasó"
                 when(toolRepository.save(any(ToolEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
                 // "Mockear el método void de Kardex"
-                doNothing().when(kardexService).registerMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
+                doNothing().when(kardexService).registerManagedMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
 
                 // ACT (Actuar)
                 ToolEntity decommissionedTool = toolService.decommissionTool(toolId, testUser);
@@ -376,7 +397,7 @@ public class ToolServiceTest {
 
                 // 3. VERIFICACIÓN CRÍTICA (Kardex):
                 // Debe registrar la cantidad que HABÍA en stock (5)
-                verify(kardexService, times(1)).registerMovement(
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(decommissionedTool),          // La entidad guardada
                         eq(MovementType.DECOMMISSION),   // El tipo de movimiento
                         eq(5),                           // La cantidad (el stock original)
@@ -419,7 +440,7 @@ public class ToolServiceTest {
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se intentó guardar
                 verify(toolRepository, never()).save(any(ToolEntity.class));
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se llamó al Kardex
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         /**
@@ -457,7 +478,7 @@ public class ToolServiceTest {
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se intentó guardar
                 verify(toolRepository, never()).save(any(ToolEntity.class));
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se llamó al Kardex
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         /**
@@ -495,7 +516,7 @@ public class ToolServiceTest {
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se intentó guardar
                 verify(toolRepository, never()).save(any(ToolEntity.class));
                 // VERIFICACIÓN CRÍTICA: Asegurarse de que NUNCA se llamó al Kardex
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         // =======================================================================
@@ -530,7 +551,7 @@ public class ToolServiceTest {
                 // "Cuando se guarde, devolver la entidad que se le pasó"
                 when(toolRepository.save(any(ToolEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
                 // "Mockear el método void de Kardex"
-                doNothing().when(kardexService).registerMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
+                doNothing().when(kardexService).registerManagedMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
 
                 // ACT (Actuar)
                 // Llamamos al método directamente
@@ -545,7 +566,7 @@ public class ToolServiceTest {
                 verify(toolRepository, times(1)).save(loanedTool); // Se guarda la entidad modificada
 
                 // 3. Verificar que se llamó al Kardex
-                verify(kardexService, times(1)).registerMovement(
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(loanedTool),                // La entidad
                         eq(MovementType.RETURN),       // El tipo de movimiento
                         eq(1),                         // La cantidad (siempre 1)
@@ -572,7 +593,7 @@ public class ToolServiceTest {
                         .build();
 
                 when(toolRepository.save(any(ToolEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-                doNothing().when(kardexService).registerMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
+                doNothing().when(kardexService).registerManagedMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
 
                 // ACT
                 toolService.incrementStockForReturn(availableTool, testUser);
@@ -581,7 +602,7 @@ public class ToolServiceTest {
                 assertEquals(6, availableTool.getStock()); // Stock aumentó
                 assertEquals(ToolStatus.AVAILABLE, availableTool.getStatus()); // Estado NO cambió
                 verify(toolRepository, times(1)).save(availableTool);
-                verify(kardexService, times(1)).registerMovement(
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(availableTool), eq(MovementType.RETURN), eq(1), eq(testUser)
                 );
         }
@@ -609,8 +630,14 @@ public class ToolServiceTest {
                         .inRepair(0)
                         .build();
 
-                when(toolRepository.save(any(ToolEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-                doNothing().when(kardexService).registerMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
+                when(toolRepository.reserveUnit(10L)).thenReturn(1); // Ganó la reserva
+                // La reserva recarga la entidad desde la BD (stock y versión nuevos)
+                doAnswer(invocation -> {
+                        toolWithStock.setStock(4);
+                        toolWithStock.setVersion(1L);
+                        return null;
+                }).when(entityManager).refresh(toolWithStock);
+                doNothing().when(kardexService).registerManagedMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
 
                 // ACT
                 toolService.decrementStockForLoan(toolWithStock, testUser);
@@ -618,8 +645,10 @@ public class ToolServiceTest {
                 // ASSERT
                 assertEquals(4, toolWithStock.getStock()); // Stock disminuyó
                 assertEquals(ToolStatus.AVAILABLE, toolWithStock.getStatus()); // Estado NO cambió
-                verify(toolRepository, times(1)).save(toolWithStock);
-                verify(kardexService, times(1)).registerMovement(
+                assertEquals(1L, toolWithStock.getVersion()); // Versión sincronizada con la BD
+                verify(toolRepository, times(1)).reserveUnit(10L);
+                verify(toolRepository, never()).save(any(ToolEntity.class)); // Sin read-modify-write
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(toolWithStock), eq(MovementType.LOAN), eq(1), eq(testUser)
                 );
         }
@@ -642,8 +671,13 @@ public class ToolServiceTest {
                         .inRepair(0)
                         .build();
 
-                when(toolRepository.save(any(ToolEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-                doNothing().when(kardexService).registerMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
+                when(toolRepository.reserveUnit(11L)).thenReturn(1);
+                doAnswer(invocation -> {
+                        lastUnitTool.setStock(0);
+                        lastUnitTool.setStatus(ToolStatus.LOANED); // El UPDATE atómico dejó la herramienta en LOANED
+                        return null;
+                }).when(entityManager).refresh(lastUnitTool);
+                doNothing().when(kardexService).registerManagedMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
 
                 // ACT
                 toolService.decrementStockForLoan(lastUnitTool, testUser);
@@ -651,12 +685,39 @@ public class ToolServiceTest {
                 // ASSERT
                 assertEquals(0, lastUnitTool.getStock()); // Stock es CERO
                 assertEquals(ToolStatus.LOANED, lastUnitTool.getStatus()); // Estado cambió a LOANED
-                verify(toolRepository, times(1)).save(lastUnitTool);
-                verify(kardexService, times(1)).registerMovement(
+                verify(toolRepository, times(1)).reserveUnit(11L);
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(lastUnitTool), eq(MovementType.LOAN), eq(1), eq(testUser)
                 );
         }
 
+        /**
+         * Prueba que si otro préstamo concurrente ganó la última unidad:
+         * 1. La reserva atómica no afecta filas y se lanza InvalidOperationException.
+         * 2. No se registra movimiento en Kardex.
+         */
+        @Test
+        void decrementStockForLoan_Fails_WhenReservationIsLost() {
+                // ARRANGE: la entidad en memoria aún cree que hay stock
+                ToolEntity staleTool = ToolEntity.builder()
+                        .id(12L)
+                        .name("Herramienta Disputada")
+                        .status(ToolStatus.AVAILABLE)
+                        .stock(1)
+                        .replacementValue(10000)
+                        .inRepair(0)
+                        .build();
+
+                when(toolRepository.reserveUnit(12L)).thenReturn(0); // Perdió la reserva
+
+                // ACT & ASSERT
+                assertThrows(InvalidOperationException.class, () -> toolService.decrementStockForLoan(staleTool, testUser));
+                assertEquals(1, staleTool.getStock()); // La entidad no se modifica
+                verify(entityManager, never()).refresh(any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
+                verify(availabilityFeed, never()).publish(any());
+        }
+
         // =======================================================================
         // MÉTODO: markAsRepairing
         // Épica 2: Soporte para devolución con daño leve
@@ -681,7 +742,7 @@ public class ToolServiceTest {
                         .build();
                 
                 // (No se llama a save() en este método, solo a Kardex)
-                doNothing().when(kardexService).registerMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
+                doNothing().when(kardexService).registerManagedMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
 
                 // ACT
                 toolService.markAsRepairing(toolToRepair, testUser);
@@ -696,7 +757,7 @@ public class ToolServiceTest {
                 verify(toolRepository, never()).save(any(ToolEntity.class));
                 
                 // Verificar que se llamó al Kardex
-                verify(kardexService, times(1)).registerMovement(
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(toolToRepair), eq(MovementType.REPAIR), eq(1), eq(testUser)
                 );
         }
@@ -720,7 +781,7 @@ public class ToolServiceTest {
                 }, "Debe lanzar InvalidOperationException si la herramienta está DECOMMISSIONED.");
 
                 // Verificar que no se llamó al Kardex
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
                 verify(toolRepository, never()).save(any());
         }
 
@@ -745,7 +806,7 @@ public class ToolServiceTest {
                         .inRepair(1)
                         .build();
                 
-                doNothing().when(kardexService).registerMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
+                doNothing().when(kardexService).registerManagedMovement(any(ToolEntity.class), any(MovementType.class), anyInt(), any(UserEntity.class));
 
                 // ACT
                 toolService.markAsDecommissioned(toolToDecommission, testUser);
@@ -760,7 +821,7 @@ public class ToolServiceTest {
                 verify(toolRepository, never()).save(any(ToolEntity.class));
                 
                 // Verificar que se llamó al Kardex
-                verify(kardexService, times(1)).registerMovement(
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(toolToDecommission), eq(MovementType.DECOMMISSION), eq(1), eq(testUser)
                 );
         }
@@ -782,7 +843,7 @@ public class ToolServiceTest {
                 }, "Debe lanzar InvalidOperationException si la herramienta ya está DECOMMISSIONED.");
 
                 // Verificar que no se llamó al Kardex
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
                 verify(toolRepository, never()).save(any());
         }
 
@@ -809,7 +870,7 @@ public class ToolServiceTest {
                 
                 when(toolRepository.findById(toolId)).thenReturn(Optional.of(tool));
                 when(toolRepository.save(any(ToolEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-                doNothing().when(kardexService).registerMovement(any(), any(), anyInt(), any());
+                doNothing().when(kardexService).registerManagedMovement(any(), any(), anyInt(), any());
 
                 // ACT: Aumentar stock en 5
                 ToolEntity updatedTool = toolService.adjustStock(toolId, 5, MovementType.INCOME, testUser);
@@ -818,9 +879,11 @@ public class ToolServiceTest {
                 assertEquals(5, updatedTool.getStock()); // Stock aumentó
                 assertEquals(ToolStatus.AVAILABLE, updatedTool.getStatus()); // Estado cambió a AVAILABLE
                 verify(toolRepository, times(1)).save(tool);
-                verify(kardexService, times(1)).registerMovement(
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(tool), eq(MovementType.INCOME), eq(5), eq(testUser) // Cantidad 5
                 );
+                // Delta para el feed de disponibilidad
+                verify(availabilityFeed, times(1)).publish(new ToolAvailability(toolId, 5, 0, ToolStatus.AVAILABLE));
         }
 
         /**
@@ -842,7 +905,7 @@ public class ToolServiceTest {
                 
                 when(toolRepository.findById(toolId)).thenReturn(Optional.of(tool));
                 when(toolRepository.save(any(ToolEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-                doNothing().when(kardexService).registerMovement(any(), any(), anyInt(), any());
+                doNothing().when(kardexService).registerManagedMovement(any(), any(), anyInt(), any());
 
                 // ACT: Disminuir stock en 3
                 ToolEntity updatedTool = toolService.adjustStock(toolId, -3, MovementType.MANUAL_DECREASE, testUser);
@@ -851,7 +914,7 @@ public class ToolServiceTest {
                 assertEquals(0, updatedTool.getStock()); // Stock es CERO
                 assertEquals(ToolStatus.LOANED, updatedTool.getStatus()); // Estado cambió a LOANED
                 verify(toolRepository, times(1)).save(tool);
-                verify(kardexService, times(1)).registerMovement(
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(tool), eq(MovementType.MANUAL_DECREASE), eq(3), eq(testUser) // Cantidad 3 (Math.abs)
                 );
         }
@@ -873,7 +936,7 @@ public class ToolServiceTest {
                 
                 when(toolRepository.findById(toolId)).thenReturn(Optional.of(tool));
                 when(toolRepository.save(any(ToolEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-                doNothing().when(kardexService).registerMovement(any(), any(), anyInt(), any());
+                doNothing().when(kardexService).registerManagedMovement(any(), any(), anyInt(), any());
 
                 // ACT: Aumentar stock en 2 (ej. llegaron repuestos)
                 ToolEntity updatedTool = toolService.adjustStock(toolId, 2, MovementType.INCOME, testUser);
@@ -882,7 +945,7 @@ public class ToolServiceTest {
                 assertEquals(2, updatedTool.getStock()); // Stock aumentó
                 assertEquals(ToolStatus.REPAIRING, updatedTool.getStatus()); // Estado NO cambió
                 verify(toolRepository, times(1)).save(tool);
-                verify(kardexService, times(1)).registerMovement(
+                verify(kardexService, times(1)).registerManagedMovement(
                         eq(tool), eq(MovementType.INCOME), eq(2), eq(testUser)
                 );
         }
@@ -899,7 +962,7 @@ public class ToolServiceTest {
                 }, "Debe lanzar InvalidOperationException si quantityChange es 0.");
                 
                 verify(toolRepository, never()).findById(anyLong());
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         @Test
@@ -943,7 +1006,7 @@ public class ToolServiceTest {
                 
                 verify(toolRepository, times(1)).findById(nonExistentToolId);
                 verify(toolRepository, never()).save(any());
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         @Test
@@ -965,7 +1028,7 @@ public class ToolServiceTest {
                 
                 verify(toolRepository, times(1)).findById(toolId);
                 verify(toolRepository, never()).save(any());
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         @Test
@@ -990,7 +1053,7 @@ public class ToolServiceTest {
 
                 verify(toolRepository, times(1)).findById(toolId);
                 verify(toolRepository, never()).save(any());
-                verify(kardexService, never()).registerMovement(any(), any(), anyInt(), any());
+                verify(kardexService, never()).registerManagedMovement(any(), any(), anyInt(), any());
         }
 
         // =======================================================================
@@ -1065,4 +1128,58 @@ public class ToolServiceTest {
                 verify(toolRepository, times(1)).findById(nonExistentToolId);
         }
 
-}
\ No newline at end of file
+        // =======================================================================
+        // MÉTODO: getToolsPage
+        // Listado paginado con orden estable y tamaño acotado
+        // =======================================================================
+
+        @Test
+        void getToolsPage_SortsByIdAndCapsPageSize() {
+                // ARRANGE
+                ToolEntity tool = ToolEntity.builder().id(1L).name("Martillo").build();
+                when(toolRepository.findAll(any(Pageable.class)))
+                        .thenAnswer(invocation -> new PageImpl<>(List.of(tool), invocation.getArgument(0), 1));
+
+                // ACT: página negativa y tamaño excesivo
+                PageResponse<ToolEntity> result = toolService.getToolsPage(-1, 5000);
+
+                // ASSERT
+                assertEquals(1, result.content().size());
+                assertEquals(0, result.page());
+                assertEquals(100, result.size());
+                verify(toolRepository).findAll(argThat((Pageable pageable) ->
+                        pageable.getSort().equals(Sort.by(Sort.Direction.ASC, "id"))));
+        }
+
+        // =======================================================================
+        // MÉTODO: applyBatchReturn
+        // Devolución en lote: UPDATE por herramienta y disponibilidad resultante al feed
+        // =======================================================================
+
+        @Test
+        void applyBatchReturn_UpdatesEachToolOnce_AndPublishesResultingAvailability() {
+                // ARRANGE
+                ToolAvailability restocked = new ToolAvailability(10L, 2, 0, ToolStatus.AVAILABLE);
+                ToolAvailability repairing = new ToolAvailability(11L, 0, 1, ToolStatus.LOANED);
+                when(toolRepository.findAvailabilityByIdIn(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(10L, 11L)))))
+                        .thenReturn(List.of(restocked, repairing));
+
+                SessionImplementor session = mock(SessionImplementor.class, RETURNS_DEEP_STUBS);
+                EntityDataAccess toolsRegion = mock(EntityDataAccess.class);
+                when(entityManager.unwrap(SessionImplementor.class)).thenReturn(session);
+                when(session.getFactory().getMappingMetamodel().getEntityDescriptor(ToolEntity.class).getCacheAccessStrategy())
+                        .thenReturn(toolsRegion);
+                when(toolsRegion.generateCacheKey(any(), any(), any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                // ACT
+                toolService.applyBatchReturn(Map.of(10L, 2), Map.of(11L, 1));
+
+                // ASSERT: un UPDATE por herramienta y solo sus entradas de la caché de segundo nivel se invalidan
+                verify(toolRepository, times(1)).restockUnits(10L, 2);
+                verify(toolRepository, times(1)).addInRepair(11L, 1);
+                verify(toolsRegion).lockItem(session, 10L, null);
+                verify(toolsRegion).lockItem(session, 11L, null);
+                verify(availabilityFeed).publish(restocked);
+                verify(availabilityFeed).publish(repairing);
+        }
+}
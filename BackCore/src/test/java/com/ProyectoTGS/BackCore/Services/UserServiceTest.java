@@ -1,5 +1,6 @@
 package com.ProyectoTGS.BackCore.Services;
 
+import app.utils.UserLookupCache;
 import entities.UserEntity;
 import entities.enums.UserRole;
 import org.junit.jupiter.api.Test;
@@ -22,6 +23,9 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserLookupCache userCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -58,6 +62,26 @@ public class UserServiceTest {
         
         // Verificar que save fue llamado una vez con el objeto correcto
         verify(userRepository, times(1)).save(userToCreate);
+        // La caché de usuarios autenticados se invalida para ese username
+        verify(userCache, times(1)).invalidate("testuser");
+    }
+
+    @Test
+    void createUser_ReplacingExistingUser_InvalidatesWholeCache() {
+        // ARRANGE: el usuario 2 cambia de rol y de username
+        UserEntity replacement = UserEntity.builder()
+                .id(2L)
+                .username("diego.admin")
+                .role(UserRole.ADMIN)
+                .build();
+        when(userRepository.save(replacement)).thenReturn(replacement);
+
+        // ACT
+        userService.createUser(replacement);
+
+        // ASSERT: la entrada vieja ("diego") también desaparece
+        verify(userCache, times(1)).invalidateAll();
+        verify(userCache, never()).invalidate(any());
     }
 
     // =======================================================================
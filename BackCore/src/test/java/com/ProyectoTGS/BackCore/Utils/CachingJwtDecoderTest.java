@@ -0,0 +1,135 @@
+package com.ProyectoTGS.BackCore.Utils;
+
+import app.security.CachingJwkSetSource;
+import app.security.CachingJwtDecoder;
+import com.ProyectoTGS.BackCore.Benchmarks.LoadTestJwtIssuer;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// El emisor local (LoadTestJwtIssuer) hace de Keycloak: cuenta las descargas del JWKS para comprobar que
+// validar un token no sale a la red en cada petición
+public class CachingJwtDecoderTest {
+
+    // Reloj controlable para probar la expiración sin esperas
+    private static class MutableClock extends Clock {
+        private final AtomicLong millis = new AtomicLong(0);
+        void advance(Duration d) { millis.addAndGet(d.toMillis()); }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(millis.get()); }
+    }
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final Duration STALE_IF_ERROR = Duration.ofHours(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private LoadTestJwtIssuer issuer;
+    private CachingJwkSetSource jwkSetSource;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        issuer = LoadTestJwtIssuer.start();
+        jwkSetSource = new CachingJwkSetSource(URI.create(issuer.jwkSetUri()).toURL(),
+                new DefaultResourceRetriever(2000, 2000), meterRegistry,
+                TTL, Duration.ofMinutes(1), STALE_IF_ERROR, clock);
+
+        // Misma composición que JwtDecoderConfig
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSetSource));
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder nimbus = new NimbusJwtDecoder(processor);
+        nimbus.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer.issuerUri()));
+        decoder = new CachingJwtDecoder(nimbus, meterRegistry, 100, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jwkSetSource.close();
+        issuer.close();
+    }
+
+    @Test
+    void decode_FetchesKeySetOnce_ForManyTokens() {
+        for (int i = 0; i < 50; i++) {
+            Jwt jwt = decoder.decode(issuer.issue("empleado" + i, List.of("EMPLOYEE"), Duration.ofMinutes(5)));
+            assertEquals("empleado" + i, jwt.getClaimAsString("preferred_username"));
+        }
+
+        assertEquals(1, issuer.jwksRequests());
+        assertEquals(1.0, meterRegistry.get("jwks.fetch").tag("result", "success").counter().count());
+    }
+
+    @Test
+    void decode_ReturnsCachedJwt_ForRepeatedToken() {
+        String token = issuer.issue("diego", List.of("ADMIN"), Duration.ofMinutes(5));
+
+        Jwt first = decoder.decode(token);
+        Jwt second = decoder.decode(token);
+
+        assertSame(first, second);
+        assertEquals(1, decoder.size());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void decode_KeepsUsingExpiredKeys_WhileIssuerIsUnreachable() {
+        decoder.decode(issuer.issue("diego", List.of("ADMIN"), Duration.ofHours(3)));
+        String later = issuer.issue("ana", List.of("EMPLOYEE"), Duration.ofHours(3));
+        issuer.close();
+
+        // 1. Claves vencidas pero dentro de stale-if-error: el token nuevo se valida igual
+        clock.advance(TTL.plusMinutes(5));
+        assertEquals("ana", decoder.decode(later).getClaimAsString("preferred_username"));
+
+        // 2. Pasado stale-if-error ya no se confía en ellas: sin emisor, el token se rechaza
+        clock.advance(STALE_IF_ERROR);
+        String another = issuer.issue("luis", List.of("EMPLOYEE"), Duration.ofHours(3));
+        assertThrows(JwtException.class, () -> decoder.decode(another));
+    }
+
+    @Test
+    void decode_RejectsTamperedAndForeignTokens_WithoutCachingThem() throws Exception {
+        String token = issuer.issue("diego", List.of("EMPLOYEE"), Duration.ofMinutes(5));
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1].substring(0, parts[1].length() - 2) + "AA." + parts[2];
+
+        String foreign;
+        try (LoadTestJwtIssuer other = LoadTestJwtIssuer.start()) {
+            foreign = other.issue("diego", List.of("ADMIN"), Duration.ofMinutes(5));
+        }
+
+        assertThrows(JwtException.class, () -> decoder.decode(tampered));
+        assertThrows(JwtException.class, () -> decoder.decode(foreign));
+        assertEquals(0, decoder.size());
+        // El 'kid' desconocido no provoca otra descarga mientras las claves son recientes
+        assertEquals(1, issuer.jwksRequests());
+    }
+}
@@ -0,0 +1,68 @@
+package com.ProyectoTGS.BackCore.Utils;
+
+import app.BackCoreApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Actuator solo en el puerto de gestión: Prometheus y salud sin token ahí, nada de /actuator en el puerto público
+@SpringBootTest(classes = BackCoreApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        "spring.datasource.url=jdbc:h2:mem:managementport;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.flyway.enabled=false",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureObservability // En @SpringBootTest la exportación de métricas (y con ella /actuator/prometheus) viene apagada
+public class ManagementPortSecurityTest {
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void prometheus_IsServedWithoutToken_OnlyOnManagementPort() throws Exception {
+        assertNotEquals(serverPort, managementPort);
+
+        HttpResponse<String> scrape = get(managementPort, "/actuator/prometheus");
+        assertEquals(200, scrape.statusCode());
+        assertTrue(scrape.body().contains("application=\"backcore\""));
+
+        // En el puerto público Actuator no existe: sin token la petición ni siquiera se autoriza
+        assertEquals(401, get(serverPort, "/actuator/prometheus").statusCode());
+    }
+
+    @Test
+    void health_IsOpen_OnManagementPort() throws Exception {
+        assertEquals(200, get(managementPort, "/actuator/health").statusCode());
+    }
+
+    @Test
+    void otherActuatorEndpoints_RequireAuthentication_OnManagementPort() throws Exception {
+        assertEquals(401, get(managementPort, "/actuator/metrics").statusCode());
+        assertEquals(401, get(managementPort, "/actuator/info").statusCode());
+    }
+
+    private HttpResponse<String> get(int port, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,105 @@
+package com.ProyectoTGS.BackCore.Utils;
+
+import app.utils.OptimisticRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptimisticRetryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetry retry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 3 intentos con esperas de como mucho 1-2 ms
+        retry = new OptimisticRetry(meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(2));
+    }
+
+    private static ObjectOptimisticLockingFailureException conflict() {
+        return new ObjectOptimisticLockingFailureException("entities.ToolEntity", 10L);
+    }
+
+    @Test
+    void execute_ReturnsResult_AfterTransientConflict() {
+        // ARRANGE: falla una vez y luego funciona
+        AtomicInteger calls = new AtomicInteger();
+
+        // ACT
+        String result = retry.execute("tool.adjust-stock", () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw conflict();
+            }
+            return "ok";
+        });
+
+        // ASSERT
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertEquals(1.0, meterRegistry.get("optimistic.lock.conflicts").tag("operation", "tool.adjust-stock").counter().count());
+        assertEquals(1.0, meterRegistry.get("optimistic.lock.retries").tag("operation", "tool.adjust-stock").counter().count());
+    }
+
+    @Test
+    void execute_Rethrows_WhenAttemptsAreExhausted() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> retry.execute("loan.return", () -> {
+            calls.incrementAndGet();
+            throw conflict();
+        }));
+
+        assertEquals(3, calls.get());
+        assertEquals(3.0, meterRegistry.get("optimistic.lock.conflicts").tag("operation", "loan.return").counter().count());
+        assertEquals(2.0, meterRegistry.get("optimistic.lock.retries").tag("operation", "loan.return").counter().count());
+        assertEquals(1.0, meterRegistry.get("optimistic.lock.exhausted").tag("operation", "loan.return").counter().count());
+    }
+
+    @Test
+    void execute_Retries_WhenReadModelRowIsCreatedConcurrently() {
+        // ARRANGE: el primer intento choca con la fila de client_loan_summary que otro préstamo acaba de crear
+        AtomicInteger calls = new AtomicInteger();
+
+        // ACT
+        String result = retry.execute("loan.create", () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new DuplicateKeyException("duplicate key value violates unique constraint \"client_loan_summary_pkey\"");
+            }
+            return "ok";
+        });
+
+        // ASSERT
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertEquals(1.0, meterRegistry.get("optimistic.lock.retries").tag("operation", "loan.create").counter().count());
+    }
+
+    @Test
+    void execute_DoesNotRetry_OtherExceptions() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IllegalArgumentException.class, () -> retry.execute("loan.create", () -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("Due date cannot be before start date.");
+        }));
+
+        assertEquals(1, calls.get());
+        assertNull(meterRegistry.find("optimistic.lock.conflicts").counter());
+    }
+
+    @Test
+    void constructor_RejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new OptimisticRetry(meterRegistry, 0, Duration.ofMillis(1), Duration.ofMillis(2)));
+        assertThrows(IllegalArgumentException.class, () ->
+                new OptimisticRetry(meterRegistry, 3, Duration.ofMillis(50), Duration.ofMillis(10)));
+    }
+}
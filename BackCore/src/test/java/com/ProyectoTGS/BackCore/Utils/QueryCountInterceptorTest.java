@@ -0,0 +1,60 @@
+package com.ProyectoTGS.BackCore.Utils;
+
+import app.config.QueryCountInterceptor;
+import app.utils.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryCountInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private QueryCountInterceptor interceptor;
+    private final QueryCounter inspector = new QueryCounter();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new QueryCountInterceptor(meterRegistry);
+    }
+
+    @Test
+    void afterCompletion_RecordsStatementsOfTheRequest_ByUriPattern() {
+        // ARRANGE: sentencias de una petición anterior en el mismo hilo no deben contar
+        inspector.inspect("select 1");
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/loans/42/return");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/loans/{id}/return");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ACT: la petición prepara 3 sentencias
+        interceptor.preHandle(request, response, new Object());
+        inspector.inspect("select l from loans l where l.id = ?");
+        inspector.inspect("update tools set stock = stock + 1 where id = ?");
+        inspector.inspect("update loans set status = ? where id = ? and version = ?");
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        // ASSERT: una muestra de 3 en la serie del patrón, y el contador del hilo queda limpio
+        DistributionSummary summary = meterRegistry.get("db.queries.per.request")
+                .tag("method", "PUT").tag("uri", "/loans/{id}/return").summary();
+        assertEquals(1, summary.count());
+        assertEquals(3.0, summary.totalAmount());
+        assertEquals(0, QueryCounter.current());
+    }
+
+    @Test
+    void afterCompletion_UsesUnknownUri_WhenNoHandlerMatched() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/missing");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertEquals(0.0, meterRegistry.get("db.queries.per.request").tag("uri", "UNKNOWN").summary().totalAmount());
+    }
+}
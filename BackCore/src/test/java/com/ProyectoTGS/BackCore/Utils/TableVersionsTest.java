@@ -0,0 +1,132 @@
+package com.ProyectoTGS.BackCore.Utils;
+
+import app.utils.TableVersions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableVersionsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TableVersions tableVersions;
+    private AtomicInteger dbReads;
+    private Supplier<List<String>> catalog;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tableVersions = new TableVersions(meterRegistry);
+        dbReads = new AtomicInteger();
+        catalog = () -> {
+            dbReads.incrementAndGet();
+            return List.of("Martillo", "Taladro");
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void conditionalGet_ReturnsNotModifiedWithoutReading_WhenEtagMatches() {
+        // 1. Primera lectura: cuerpo completo con ETag y revalidación obligatoria
+        ResponseEntity<List<String>> first = tableVersions.conditionalGet(get(null), TableVersions.Table.TOOLS, catalog);
+        String etag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(etag);
+        assertEquals("no-cache, private", first.getHeaders().getCacheControl());
+
+        // 2. Misma versión: 304 sin tocar la "BD"
+        ResponseEntity<List<String>> second = tableVersions.conditionalGet(get(etag), TableVersions.Table.TOOLS, catalog);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNull(second.getBody());
+        assertEquals(etag, second.getHeaders().getETag());
+        assertEquals(1, dbReads.get());
+        assertEquals(1.0, meterRegistry.get("http.conditional.gets")
+                .tag("table", "tools").tag("result", "not_modified").counter().count());
+    }
+
+    @Test
+    void conditionalGet_ReturnsFullBody_AfterTableChanges() {
+        String etag = tableVersions.conditionalGet(get(null), TableVersions.Table.CLIENTS, catalog).getHeaders().getETag();
+
+        tableVersions.touch(TableVersions.Table.CLIENTS);
+        ResponseEntity<List<String>> response = tableVersions.conditionalGet(get(etag), TableVersions.Table.CLIENTS, catalog);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        assertEquals(2, dbReads.get());
+    }
+
+    @Test
+    void touch_InsideTransaction_BumpsOnceAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        tableVersions.touch(TableVersions.Table.TOOLS);
+        tableVersions.touch(TableVersions.Table.TOOLS);
+        tableVersions.touch(TableVersions.Table.TARIFFS);
+
+        // Antes del commit las lecturas siguen viendo la versión anterior
+        assertEquals(0, tableVersions.version(TableVersions.Table.TOOLS));
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, tableVersions.version(TableVersions.Table.TOOLS));
+        assertEquals(1, tableVersions.version(TableVersions.Table.TARIFFS));
+        assertEquals(0, tableVersions.version(TableVersions.Table.CLIENTS));
+    }
+
+    @Test
+    void touch_InsideTransaction_DoesNothingOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        tableVersions.touch(TableVersions.Table.CLIENTS);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(0, tableVersions.version(TableVersions.Table.CLIENTS));
+    }
+
+    @Test
+    void conditionalGet_AlwaysReturnsFullBodyWithoutEtag_WhenEtagsAreDisabled() {
+        // ARRANGE: varias instancias (http.etags.enabled=false)
+        TableVersions multiInstance = new TableVersions(meterRegistry, false);
+        String staleEtag = tableVersions.etag(TableVersions.Table.TOOLS);
+
+        // ACT: aunque el cliente envíe un ETag, no se puede saber si otra instancia cambió la tabla
+        ResponseEntity<List<String>> response = multiInstance.conditionalGet(get(staleEtag), TableVersions.Table.TOOLS, catalog);
+
+        // ASSERT
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getETag());
+        assertEquals(List.of("Martillo", "Taladro"), response.getBody());
+        assertEquals(1, dbReads.get());
+    }
+
+    private static ServletWebRequest get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tools");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,104 @@
+package com.ProyectoTGS.BackCore.Utils;
+
+import app.utils.UserLookupCache;
+import entities.UserEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserLookupCacheTest {
+
+    // Reloj controlable para probar la expiración sin esperas
+    private static class MutableClock extends Clock {
+        private final AtomicLong millis = new AtomicLong(0);
+        void advance(Duration d) { millis.addAndGet(d.toMillis()); }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(millis.get()); }
+    }
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private UserLookupCache cache;
+    private AtomicInteger dbLookups;
+    private Function<String, Optional<UserEntity>> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        cache = new UserLookupCache(meterRegistry, Duration.ofMinutes(5), 2, clock);
+        dbLookups = new AtomicInteger();
+        loader = username -> {
+            dbLookups.incrementAndGet();
+            return username.startsWith("missing")
+                    ? Optional.empty()
+                    : Optional.of(UserEntity.builder().id(1L).username(username).build());
+        };
+    }
+
+    @Test
+    void get_HitsCacheUntilTtlExpires() {
+        cache.get("diego", loader);
+        cache.get("diego", loader);
+        assertEquals(1, dbLookups.get());
+
+        // Tras el TTL se vuelve a consultar la BD
+        clock.advance(Duration.ofMinutes(5));
+        cache.get("diego", loader);
+        assertEquals(2, dbLookups.get());
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void get_DoesNotCacheUnknownUsers() {
+        assertTrue(cache.get("missing", loader).isEmpty());
+        assertTrue(cache.get("missing", loader).isEmpty());
+        assertEquals(2, dbLookups.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidate_ForcesReload() {
+        cache.get("diego", loader);
+        cache.invalidate("diego");
+        cache.get("diego", loader);
+        assertEquals(2, dbLookups.get());
+    }
+
+    @Test
+    void get_NeverExceedsMaxSize() {
+        cache.get("diego", loader);
+        clock.advance(Duration.ofSeconds(1));
+        cache.get("juan", loader);
+        clock.advance(Duration.ofSeconds(1));
+        cache.get("ana", loader);
+
+        // Se descarta la entrada más antigua ("diego")
+        assertEquals(2, cache.size());
+        cache.get("juan", loader);
+        assertEquals(3, dbLookups.get());
+        cache.get("diego", loader);
+        assertEquals(4, dbLookups.get());
+    }
+
+    @Test
+    void constructor_RejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new UserLookupCache(meterRegistry, Duration.ZERO, 10, clock));
+        assertThrows(IllegalArgumentException.class, () -> new UserLookupCache(meterRegistry, Duration.ofMinutes(1), 0, clock));
+    }
+}
@@ -139,12 +139,12 @@ function ReportViewer() {
           <table>
             <thead><tr><th>Ranking</th><th>Herramienta</th><th>Total Préstamos</th></tr></thead>
             <tbody>
-              {/* El backend devuelve Object[] con ToolEntity y Count */}
+              {/* El backend devuelve ToolRanking: toolId, name, category, totalLoans */}
               {reportData.map((item, index) => (
-                <tr key={item[0]?.id || index}> {/* Usar ID de herramienta si existe como key */}
+                <tr key={item.toolId || index}>
                   <td>{index + 1}</td>
-                  <td>{item[0]?.name}</td>
-                  <td>{item[1]}</td> {/* Asumiendo que item[1] es el count */}
+                  <td>{item.name}</td>
+                  <td>{item.totalLoans}</td>
                 </tr>
               ))}
             </tbody>
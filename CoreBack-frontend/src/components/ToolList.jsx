@@ -1,4 +1,4 @@
-import { useEffect, useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import { useKeycloak } from "@react-keycloak/web";
 import ToolService from "../services/tool.service";
 import { Link } from "react-router-dom";
@@ -43,33 +43,53 @@ function ToolList() {
   });
 
 
-  const loadTools = () => {
-    setError('');
-    ToolService.getAll()
-      .then(response => {
-          const allTools = response.data;
-          
-          // 1. Filtrar las herramientas
-          const decommissioned = allTools.filter(t => t.status === 'DECOMMISSIONED');
-          const active = allTools.filter(t => t.status !== 'DECOMMISSIONED');
-          
-          // 2. Ordenar las herramientas activas con la lógica compleja
-          const sortedActive = active.sort(sortTools);
-          
-          setActiveTools(sortedActive);
-          // Las herramientas de baja se ordenan solo por ID (el filtro de React no requiere .sort() extra)
-          setDecommissionedTools(decommissioned.sort((a, b) => a.id - b.id)); 
-          
-      })
-      .catch(e => {
-          console.error("Error fetching tools:", e);
-          setError('Failed to load tools.');
-      });
-  };
+  // Separa y ordena el catálogo en activas y de baja
+  const applyTools = (allTools) => {
+      // 1. Filtrar las herramientas
+      const decommissioned = allTools.filter(t => t.status === 'DECOMMISSIONED');
+      const active = allTools.filter(t => t.status !== 'DECOMMISSIONED');
+
+      // 2. Ordenar las herramientas activas con la lógica compleja
+      const sortedActive = active.sort(sortTools);
+
+      setActiveTools(sortedActive);
+      // Las herramientas de baja se ordenan solo por ID (el filtro de React no requiere .sort() extra)
+      setDecommissionedTools(decommissioned.sort((a, b) => a.id - b.id));
+  };
+
+  // Catálogo vigente: los cambios del feed se aplican sobre él sin volver a pedir GET /tools
+  const toolsRef = useRef([]);
+
+  const loadTools = () => {
+    setError('');
+    ToolService.getAll()
+      .then(response => {
+          toolsRef.current = response.data;
+          applyTools(response.data);
+      })
+      .catch(e => {
+          console.error("Error fetching tools:", e);
+          setError('Failed to load tools.');
+      });
+  };
 
-  useEffect(() => {
-    loadTools();
-  }, []);
+  // Feed de disponibilidad (SSE): el primer evento es 'reset' (carga inicial); luego solo llegan cambios de stock/estado
+  useEffect(() => {
+    const close = ToolService.streamAvailability({
+      onReset: loadTools,
+      onChange: (change) => {
+        if (!toolsRef.current.some(t => t.id === change.toolId)) {
+          loadTools(); // Herramienta nueva: traer nombre, categoría y valor
+          return;
+        }
+        toolsRef.current = toolsRef.current.map(t => t.id === change.toolId
+            ? { ...t, stock: change.stock, inRepair: change.inRepair, status: change.status }
+            : t);
+        applyTools(toolsRef.current);
+      },
+    });
+    return close;
+  }, []);
 
   // --- Funciones de Stock y Decommission se mantienen sin cambios ---
   const handleDecommission = (id) => {
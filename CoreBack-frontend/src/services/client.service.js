@@ -5,6 +5,15 @@ class ClientService {
     return http.get("/clients");
   }
 
+  // --- LISTADOS PAGINADOS (page/size y keyset con after=<id>) ---
+  getPage(page = 0, size = 20) {
+    return http.get("/clients/page", { params: { page, size } });
+  }
+
+  getAfter(after = null, size = 20) {
+    return http.get("/clients/scroll", { params: { after: after ?? undefined, size } });
+  }
+
   // --- OBTENER CLIENTE POR ID ---
   get(id) {
     return http.get(`/clients/${id}`);
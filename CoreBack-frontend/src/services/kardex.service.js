@@ -22,6 +22,15 @@ class KardexService {
     const endDateTime = `${endDate}T23:59:59`;
     return http.get(`/kardex/date?start=${startDateTime}&end=${endDateTime}`);
   }
+
+  // RF5.3 por bloques: recorrido incremental del rango con after=<id> (respuesta { content, nextAfter, hasNext })
+  getByDateRangeAfter(startDate, endDate, after = null, size = 20) {
+    if (!startDate || !endDate) {
+        return Promise.reject(new Error("Both start date and end date are required."));
+    }
+    const params = { start: `${startDate}T00:00:00`, end: `${endDate}T23:59:59`, after: after ?? undefined, size };
+    return http.get("/kardex/date/scroll", { params });
+  }
 }
 
 export default new KardexService();
\ No newline at end of file
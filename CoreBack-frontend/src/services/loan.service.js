@@ -6,6 +6,15 @@ class LoanService {
     return http.get("/loans");
   }
 
+  // Préstamos activos + atrasados, paginados (page/size) o por keyset (after=<id>)
+  getPage(page = 0, size = 20) {
+    return http.get("/loans/page", { params: { page, size } });
+  }
+
+  getAfter(after = null, size = 20) {
+    return http.get("/loans/scroll", { params: { after: after ?? undefined, size } });
+  }
+
   get(id) {
     return http.get(`/loans/${id}`);
   }
@@ -21,13 +21,17 @@ class ReportService {
     return http.get(url);
   }
 
-  // RF6.3: Sin cambios, ya enviaba fechas
-  getTopTools(from, to) {
+  // RF6.3: Ranking por rango de fechas, 'limit' opcional (top-N)
+  getTopTools(from, to, limit) {
     // Validar fechas aquí o asumir que el componente lo hace
     if (!from || !to) {
         return Promise.reject(new Error("Both 'from' and 'to' dates are required for Top Tools report."));
     }
-    return http.get(`/reports/tools/top?from=${from}&to=${to}`);
+    let url = `/reports/tools/top?from=${from}&to=${to}`;
+    if (limit) {
+      url += `&limit=${limit}`;
+    }
+    return http.get(url);
   }
 }
 
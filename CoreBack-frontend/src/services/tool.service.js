@@ -1,4 +1,5 @@
 import http from "../http-common";
+import keycloak from "./keycloak";
 
 class ToolService {
   // --- METODO GET ALL ---
@@ -6,6 +7,69 @@ class ToolService {
     return http.get("/tools");
   }
 
+  // --- MÉTODOS PAGINADOS (page/size y keyset con after=<id>) ---
+  getPage(page = 0, size = 20) {
+    return http.get("/tools/page", { params: { page, size } });
+  }
+
+  getAfter(after = null, size = 20) {
+    return http.get("/tools/scroll", { params: { after: after ?? undefined, size } });
+  }
+
+  // --- FEED DE DISPONIBILIDAD (SSE) ---
+  // GET /tools/availability con fetch (EventSource no permite el header Authorization).
+  // onChange({ toolId, stock, inRepair, status }) por cada cambio; onReset() cuando hay que recargar el catálogo.
+  // Reconecta sola enviando Last-Event-ID; devuelve una función para cerrar la conexión.
+  streamAvailability({ onChange, onReset }) {
+    const controller = new AbortController();
+    let lastEventId = null;
+
+    const dispatch = (block) => {
+      let event = "message";
+      let data = "";
+      for (const line of block.split("\n")) {
+        if (line.startsWith("id:")) lastEventId = line.slice(3).trim();
+        else if (line.startsWith("event:")) event = line.slice(6).trim();
+        else if (line.startsWith("data:")) data += line.slice(5);
+      }
+      if (event === "reset") onReset();
+      else if (event === "availability") onChange(JSON.parse(data));
+    };
+
+    const connect = async () => {
+      while (!controller.signal.aborted) {
+        try {
+          await keycloak.updateToken(5);
+          const headers = { Authorization: `Bearer ${keycloak.token}`, Accept: "text/event-stream" };
+          if (lastEventId) headers["Last-Event-ID"] = lastEventId;
+          const response = await fetch(`${http.defaults.baseURL}/tools/availability`, { headers, signal: controller.signal });
+          if (!response.ok) throw new Error(`HTTP ${response.status}`);
+
+          const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+          let buffer = "";
+          for (;;) {
+            const { value, done } = await reader.read();
+            if (done) break;
+            buffer += value.replace(/\r\n/g, "\n");
+            let end;
+            while ((end = buffer.indexOf("\n\n")) >= 0) {
+              dispatch(buffer.slice(0, end));
+              buffer = buffer.slice(end + 2);
+            }
+          }
+        } catch (e) {
+          if (controller.signal.aborted) return;
+          console.error("Availability stream error:", e);
+        }
+        // Conexión cerrada (timeout, buffer lleno o error): reintentar en unos segundos
+        await new Promise(resolve => setTimeout(resolve, 3000));
+      }
+    };
+
+    connect();
+    return () => controller.abort();
+  }
+
   // --- MÉTODO GET ONE ---
   get(id) {
     return http.get(`/tools/${id}`);
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+// Sustitutos en memoria de los repositorios Spring Data (y de cualquier otra interfaz): cada método se resuelve con
+// la función registrada por nombre; los demás devuelven un valor neutro según su tipo de retorno.
+// Sin Mockito ni Spring en el camino medido: solo una llamada por proxy dinámico.
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Function<Object[], Object> implementation = methods.get(method.getName());
+            if (implementation != null) {
+                return implementation.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> "InMemory" + type.getSimpleName();
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> neutralValue(method.getReturnType());
+            };
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    // save(x) / saveAndFlush(x) devuelven la misma entidad, como hace JPA con una entidad gestionada
+    public static Function<Object[], Object> returnFirstArgument() {
+        return args -> args[0];
+    }
+
+    private static Object neutralValue(Class<?> returnType) {
+        if (returnType == boolean.class) return false;
+        if (returnType == int.class) return 0;
+        if (returnType == long.class) return 0L;
+        if (returnType == double.class) return 0.0;
+        if (returnType == Optional.class) return Optional.empty();
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import entities.ClientLoanSummaryEntity;
+import entities.LoanEntity;
+import entities.UserEntity;
+import entities.enums.LoanStatus;
+import org.openjdk.jmh.annotations.*;
+import services.LoanService;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Alta de un préstamo: reglas de elegibilidad (contadores de client_loan_summary), reserva de stock y Kardex, sin BD.
+// Con openLoans > 0 se evalúa además la regla de "herramienta ya prestada" (consulta extra al repositorio).
+// Ejecutar con: java -jar benchmarks/target/benchmarks.jar LoanEligibilityBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanEligibilityBenchmark {
+
+    @Param({"0", "4"})
+    public int openLoans;
+
+    private LoanService loanService;
+    private UserEntity user;
+    private LocalDate startDate;
+    private LocalDate dueDate;
+
+    @Setup
+    public void setUp() {
+        startDate = LocalDate.of(2025, 3, 1);
+        dueDate = startDate.plusDays(7);
+
+        ClientLoanSummaryEntity summary = ClientLoanSummaryEntity.empty(LoanFixtures.CLIENT_ID);
+        summary.setOpenLoans(openLoans);
+        loanService = LoanFixtures.loanService(
+                LoanFixtures.openLoan(startDate, dueDate, LoanStatus.ACTIVE), summary);
+        user = LoanFixtures.user();
+    }
+
+    @Benchmark
+    public LoanEntity createLoan() {
+        return loanService.createLoan(LoanFixtures.CLIENT_ID, LoanFixtures.TOOL_ID, startDate, dueDate, user);
+    }
+}
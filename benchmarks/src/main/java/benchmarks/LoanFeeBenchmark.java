@@ -0,0 +1,56 @@
+package benchmarks;
+
+import entities.ClientLoanSummaryEntity;
+import entities.LoanEntity;
+import entities.UserEntity;
+import entities.enums.LoanStatus;
+import org.openjdk.jmh.annotations.*;
+import services.LoanService;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Devolución de un préstamo (validación, tarifas, movimiento de herramienta y cálculo del total a pagar) sin BD.
+// Ejecutar con: java -jar benchmarks/target/benchmarks.jar LoanFeeBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanFeeBenchmark {
+
+    public enum Scenario { ON_TIME, LATE, DAMAGED, IRREPARABLE }
+
+    @Param({"ON_TIME", "LATE", "DAMAGED", "IRREPARABLE"})
+    public Scenario scenario;
+
+    private LoanService loanService;
+    private UserEntity user;
+    private LocalDate returnDate;
+    private boolean damaged;
+    private boolean irreparable;
+
+    @Setup
+    public void setUp() {
+        // Préstamo de 7 días; LATE se devuelve 10 días después del vencimiento
+        LocalDate start = LocalDate.of(2025, 3, 1);
+        LocalDate due = start.plusDays(7);
+        boolean late = scenario == Scenario.LATE;
+        returnDate = late ? due.plusDays(10) : due;
+        damaged = scenario == Scenario.DAMAGED || scenario == Scenario.IRREPARABLE;
+        irreparable = scenario == Scenario.IRREPARABLE;
+
+        loanService = LoanFixtures.loanService(
+                LoanFixtures.openLoan(start, due, late ? LoanStatus.LATE : LoanStatus.ACTIVE),
+                ClientLoanSummaryEntity.empty(LoanFixtures.CLIENT_ID));
+        user = LoanFixtures.user();
+    }
+
+    @Benchmark
+    public double returnLoan() {
+        LoanEntity returned = loanService.returnLoan(LoanFixtures.LOAN_ID, LoanFixtures.TOOL_ID,
+                damaged, irreparable, user, returnDate);
+        return returned.getTotalPenalty();
+    }
+}
@@ -0,0 +1,108 @@
+package benchmarks;
+
+import app.utils.TableVersions;
+import entities.ClientEntity;
+import entities.ClientLoanSummaryEntity;
+import entities.LoanEntity;
+import entities.TariffEntity;
+import entities.ToolEntity;
+import entities.UserEntity;
+import entities.enums.ClientStatus;
+import entities.enums.LoanStatus;
+import entities.enums.ToolStatus;
+import entities.enums.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import repositories.ClientLoanSummaryRepository;
+import repositories.ClientRepository;
+import repositories.KardexRepository;
+import repositories.LoanRepository;
+import repositories.TariffRepository;
+import repositories.ToolLoanDailyRepository;
+import repositories.ToolRepository;
+import repositories.UserRepository;
+import services.ClientLoanSummaryService;
+import services.ClientService;
+import services.KardexAsyncWriter;
+import services.KardexService;
+import services.LoanService;
+import services.TariffService;
+import services.ToolAvailabilityFeed;
+import services.ToolLoanRollupService;
+import services.ToolService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static benchmarks.InMemoryRepositories.returnFirstArgument;
+import static benchmarks.InMemoryRepositories.stub;
+
+// Arma un LoanService real (mismas clases que producción) sobre repositorios en memoria
+final class LoanFixtures {
+
+    static final long CLIENT_ID = 1L;
+    static final long TOOL_ID = 10L;
+    static final long LOAN_ID = 100L;
+
+    private LoanFixtures() {
+    }
+
+    static UserEntity user() {
+        return UserEntity.builder().id(1L).username("bench").role(UserRole.ADMIN).build();
+    }
+
+    static ClientEntity activeClient() {
+        return ClientEntity.builder().id(CLIENT_ID).name("Cliente Benchmark").rut("11.111.111-1").status(ClientStatus.ACTIVE).build();
+    }
+
+    static ToolEntity availableTool() {
+        return ToolEntity.builder().id(TOOL_ID).name("Taladro").category("Electric Tools")
+                .status(ToolStatus.AVAILABLE).stock(5).inRepair(0).replacementValue(45000).version(0L).build();
+    }
+
+    // Préstamo abierto nuevo en cada lectura: returnLoan lo deja en RECEIVED y la siguiente iteración necesita otro
+    static Supplier<LoanEntity> openLoan(LocalDate startDate, LocalDate dueDate, LoanStatus status) {
+        return () -> LoanEntity.builder().id(LOAN_ID).client(activeClient()).tool(availableTool())
+                .startDate(startDate).dueDate(dueDate).status(status).totalPenalty(0.0).version(0L).build();
+    }
+
+    static LoanService loanService(Supplier<LoanEntity> loans, ClientLoanSummaryEntity summary) {
+        TariffEntity tariff = TariffEntity.builder().id(1L).dailyRentFee(3000).dailyLateFee(5000).repairFee(15000).build();
+
+        LoanRepository loanRepository = stub(LoanRepository.class, Map.of(
+                "findById", args -> Optional.of(loans.get()),
+                "save", returnFirstArgument()));
+        ClientRepository clientRepository = stub(ClientRepository.class, Map.of(
+                "findById", args -> Optional.of(activeClient()), // updateStatus lo deja RESTRICTED: uno nuevo por lectura
+                "save", returnFirstArgument()));
+        ToolRepository toolRepository = stub(ToolRepository.class, Map.of(
+                "findById", args -> Optional.of(availableTool()),
+                "save", returnFirstArgument(),
+                "reserveUnit", args -> 1));
+        KardexRepository kardexRepository = stub(KardexRepository.class, Map.of("save", returnFirstArgument()));
+        TariffRepository tariffRepository = stub(TariffRepository.class, Map.of("findAll", args -> List.of(tariff)));
+        ToolLoanDailyRepository dailyRepository = stub(ToolLoanDailyRepository.class, Map.of("addLoans", args -> 1));
+        ClientLoanSummaryRepository summaryRepository = stub(ClientLoanSummaryRepository.class, Map.of(
+                "findById", args -> Optional.of(summary),
+                "applyDelta", args -> 1));
+
+        KardexAsyncWriter asyncWriter = new KardexAsyncWriter(kardexRepository, toolRepository,
+                stub(UserRepository.class, Map.of()), stub(PlatformTransactionManager.class, Map.of()),
+                new SimpleMeterRegistry(), false, 1, 1, Duration.ZERO, Duration.ZERO);
+        KardexService kardexService = new KardexService(kardexRepository, toolRepository, asyncWriter);
+        TableVersions tableVersions = new TableVersions(new SimpleMeterRegistry());
+        ToolService toolService = new ToolService(toolRepository, kardexService, stub(EntityManager.class, Map.of()),
+                new ToolAvailabilityFeed(new SimpleMeterRegistry(), 1024, 256, Duration.ofMinutes(30)), tableVersions);
+        ClientLoanSummaryService summaryService = new ClientLoanSummaryService(summaryRepository, loanRepository);
+        ClientService clientService = new ClientService(clientRepository, summaryService, tableVersions);
+
+        return new LoanService(loanRepository, clientRepository, toolRepository, toolService, kardexService,
+                new TariffService(tariffRepository, tableVersions, Duration.ofSeconds(30)), clientService, new ToolLoanRollupService(dailyRepository), summaryService,
+                new SimpleMeterRegistry());
+    }
+}